@@ -0,0 +1,57 @@
+package com.example.demo.dto;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// One page of a keyset-paginated listing. nextCursor is null on the last page.
+public class CursorPage<T> {
+    
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    
+    private final List<T> items;
+    private final String nextCursor;
+    private final Long totalCount;
+    
+    public CursorPage(List<T> items, String nextCursor, Long totalCount) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.totalCount = totalCount;
+    }
+    
+    // Queries fetch one row more than the page size; its presence means there is a next page
+    public static <T> CursorPage<T> fromLookahead(List<T> fetched, int pageSize, Function<T, String> cursorOf,
+                                                  Long totalCount) {
+        if (fetched.size() <= pageSize) {
+            return new CursorPage<>(fetched, null, totalCount);
+        }
+        List<T> page = fetched.subList(0, pageSize);
+        return new CursorPage<>(page, cursorOf.apply(page.get(pageSize - 1)), totalCount);
+    }
+    
+    public static int pageSize(int requested) {
+        return requested <= 0 ? DEFAULT_PAGE_SIZE : Math.min(requested, MAX_PAGE_SIZE);
+    }
+    
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).collect(Collectors.toList()), nextCursor, totalCount);
+    }
+    
+    public List<T> getItems() {
+        return items;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+    
+    // Null when the caller asked to skip the count query
+    public Long getTotalCount() {
+        return totalCount;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+// Library row joined with the game columns library views show, filled by a JPQL constructor expression
+public class LibraryEntryView {
+    
+    private final Long id;
+    private final Long gameId;
+    private final String title;
+    private final String coverImageUrl;
+    private final int playtime;
+    private final LocalDateTime lastPlayed;
+    private final boolean installed;
+    private final boolean favorite;
+    private final boolean hidden;
+    private final String category;
+    private final LocalDateTime purchaseDate;
+    
+    public LibraryEntryView(Long id, Long gameId, String title, String coverImageUrl, int playtime,
+                            LocalDateTime lastPlayed, boolean installed, boolean favorite, boolean hidden,
+                            String category, LocalDateTime purchaseDate) {
+        this.id = id;
+        this.gameId = gameId;
+        this.title = title;
+        this.coverImageUrl = coverImageUrl;
+        this.playtime = playtime;
+        this.lastPlayed = lastPlayed;
+        this.installed = installed;
+        this.favorite = favorite;
+        this.hidden = hidden;
+        this.category = category;
+        this.purchaseDate = purchaseDate;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public Long getGameId() {
+        return gameId;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public String getCoverImageUrl() {
+        return coverImageUrl;
+    }
+    
+    public int getPlaytime() {
+        return playtime;
+    }
+    
+    public LocalDateTime getLastPlayed() {
+        return lastPlayed;
+    }
+    
+    public boolean isInstalled() {
+        return installed;
+    }
+    
+    public boolean isFavorite() {
+        return favorite;
+    }
+    
+    public boolean isHidden() {
+        return hidden;
+    }
+    
+    public String getCategory() {
+        return category;
+    }
+    
+    public LocalDateTime getPurchaseDate() {
+        return purchaseDate;
+    }
+}
\ No newline at end of file
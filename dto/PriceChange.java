@@ -0,0 +1,61 @@
+package com.example.demo.dto;
+
+// New pricing for one game, with the values it was computed from so the write can check nothing moved meanwhile
+public class PriceChange {
+    
+    private final Long gameId;
+    private final double previousPrice;
+    private final double previousSalePrice;
+    private final boolean previousOnSale;
+    private final double price;
+    private final double salePrice;
+    private final boolean onSale;
+    
+    public PriceChange(Long gameId, double previousPrice, double previousSalePrice, boolean previousOnSale,
+                       double price, double salePrice, boolean onSale) {
+        this.gameId = gameId;
+        this.previousPrice = previousPrice;
+        this.previousSalePrice = previousSalePrice;
+        this.previousOnSale = previousOnSale;
+        this.price = price;
+        this.salePrice = salePrice;
+        this.onSale = onSale;
+    }
+    
+    public Long getGameId() {
+        return gameId;
+    }
+    
+    public double getPreviousPrice() {
+        return previousPrice;
+    }
+    
+    public double getPreviousSalePrice() {
+        return previousSalePrice;
+    }
+    
+    public boolean isPreviousOnSale() {
+        return previousOnSale;
+    }
+    
+    public double getPrice() {
+        return price;
+    }
+    
+    public double getSalePrice() {
+        return salePrice;
+    }
+    
+    public boolean isOnSale() {
+        return onSale;
+    }
+    
+    // The price a buyer pays after the change
+    public double getEffectivePrice() {
+        return onSale ? salePrice : price;
+    }
+    
+    public double getPreviousEffectivePrice() {
+        return previousOnSale ? previousSalePrice : previousPrice;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+// A game's price from this time until the next point
+public class PricePoint {
+    
+    private final LocalDateTime time;
+    private final double regularPrice;
+    private final double price;
+    
+    public PricePoint(LocalDateTime time, double regularPrice, double price) {
+        this.time = time;
+        this.regularPrice = regularPrice;
+        this.price = price;
+    }
+    
+    public LocalDateTime getTime() {
+        return time;
+    }
+    
+    public double getRegularPrice() {
+        return regularPrice;
+    }
+    
+    // What a buyer paid: the sale price while on sale, otherwise the regular price
+    public double getPrice() {
+        return price;
+    }
+    
+    public boolean isOnSale() {
+        return price < regularPrice;
+    }
+}
\ No newline at end of file
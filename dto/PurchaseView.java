@@ -0,0 +1,56 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+import com.example.demo.model.Purchase;
+
+// Purchase row with the game's title and cover, filled by a JPQL constructor expression
+public class PurchaseView {
+    
+    private final Long id;
+    private final Long gameId;
+    private final String title;
+    private final String coverImageUrl;
+    private final double price;
+    private final LocalDateTime purchaseDate;
+    private final Purchase.PurchaseStatus status;
+    
+    public PurchaseView(Long id, Long gameId, String title, String coverImageUrl, double price,
+                        LocalDateTime purchaseDate, Purchase.PurchaseStatus status) {
+        this.id = id;
+        this.gameId = gameId;
+        this.title = title;
+        this.coverImageUrl = coverImageUrl;
+        this.price = price;
+        this.purchaseDate = purchaseDate;
+        this.status = status;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public Long getGameId() {
+        return gameId;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public String getCoverImageUrl() {
+        return coverImageUrl;
+    }
+    
+    public double getPrice() {
+        return price;
+    }
+    
+    public LocalDateTime getPurchaseDate() {
+        return purchaseDate;
+    }
+    
+    public Purchase.PurchaseStatus getStatus() {
+        return status;
+    }
+}
\ No newline at end of file
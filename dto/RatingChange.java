@@ -0,0 +1,27 @@
+package com.example.demo.dto;
+
+// A game's rating after a flush of buffered ratings
+public class RatingChange {
+    
+    private final Long gameId;
+    private final double averageRating;
+    private final int reviewCount;
+    
+    public RatingChange(Long gameId, double averageRating, int reviewCount) {
+        this.gameId = gameId;
+        this.averageRating = averageRating;
+        this.reviewCount = reviewCount;
+    }
+    
+    public Long getGameId() {
+        return gameId;
+    }
+    
+    public double getAverageRating() {
+        return averageRating;
+    }
+    
+    public int getReviewCount() {
+        return reviewCount;
+    }
+}
\ No newline at end of file
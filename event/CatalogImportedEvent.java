@@ -0,0 +1,15 @@
+package com.example.demo.event;
+
+// Published after a bulk import wrote games straight through JDBC; in-memory catalog indexes reload from the database
+public class CatalogImportedEvent {
+    
+    private final long gamesImported;
+    
+    public CatalogImportedEvent(long gamesImported) {
+        this.gamesImported = gamesImported;
+    }
+    
+    public long getGamesImported() {
+        return gamesImported;
+    }
+}
\ No newline at end of file
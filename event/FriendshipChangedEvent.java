@@ -0,0 +1,21 @@
+package com.example.demo.event;
+
+// Published when two users become friends or stop being friends, in either direction
+public class FriendshipChangedEvent {
+    
+    private final Long userId;
+    private final Long otherUserId;
+    
+    public FriendshipChangedEvent(Long userId, Long otherUserId) {
+        this.userId = userId;
+        this.otherUserId = otherUserId;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public Long getOtherUserId() {
+        return otherUserId;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.example.demo.event;
+
+import com.example.demo.model.Game;
+
+// Published whenever a game is created, updated or deleted so in-memory catalog indexes can follow along
+public class GameChangedEvent {
+    
+    public enum ChangeType {
+        SAVED,
+        DELETED
+    }
+    
+    private final Long gameId;
+    private final Game game;
+    private final ChangeType changeType;
+    
+    private GameChangedEvent(Long gameId, Game game, ChangeType changeType) {
+        this.gameId = gameId;
+        this.game = game;
+        this.changeType = changeType;
+    }
+    
+    public static GameChangedEvent saved(Game game) {
+        return new GameChangedEvent(game.getId(), game, ChangeType.SAVED);
+    }
+    
+    public static GameChangedEvent deleted(Long gameId) {
+        return new GameChangedEvent(gameId, null, ChangeType.DELETED);
+    }
+    
+    public Long getGameId() {
+        return gameId;
+    }
+    
+    // Null for deletions
+    public Game getGame() {
+        return game;
+    }
+    
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+    
+    public boolean isDeleted() {
+        return changeType == ChangeType.DELETED;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.example.demo.event;
+
+// Published when a purchase completes; listeners that count sales should act after commit
+public class GamePurchasedEvent {
+    
+    private final Long userId;
+    private final Long gameId;
+    private final double price;
+    
+    public GamePurchasedEvent(Long userId, Long gameId, double price) {
+        this.userId = userId;
+        this.gameId = gameId;
+        this.price = price;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public Long getGameId() {
+        return gameId;
+    }
+    
+    public double getPrice() {
+        return price;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.example.demo.event;
+
+// Published when a game is added to or removed from a user's library, however it got there
+public class LibraryChangedEvent {
+    
+    public enum ChangeType {
+        ADDED,
+        REMOVED
+    }
+    
+    private final Long userId;
+    private final Long gameId;
+    private final ChangeType changeType;
+    
+    private LibraryChangedEvent(Long userId, Long gameId, ChangeType changeType) {
+        this.userId = userId;
+        this.gameId = gameId;
+        this.changeType = changeType;
+    }
+    
+    public static LibraryChangedEvent added(Long userId, Long gameId) {
+        return new LibraryChangedEvent(userId, gameId, ChangeType.ADDED);
+    }
+    
+    public static LibraryChangedEvent removed(Long userId, Long gameId) {
+        return new LibraryChangedEvent(userId, gameId, ChangeType.REMOVED);
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public Long getGameId() {
+        return gameId;
+    }
+    
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+    
+    public boolean isRemoved() {
+        return changeType == ChangeType.REMOVED;
+    }
+}
\ No newline at end of file
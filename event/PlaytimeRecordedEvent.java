@@ -0,0 +1,27 @@
+package com.example.demo.event;
+
+// Published after a play session has been added to a user's library and playtime history
+public class PlaytimeRecordedEvent {
+    
+    private final Long userId;
+    private final Long gameId;
+    private final int minutesPlayed;
+    
+    public PlaytimeRecordedEvent(Long userId, Long gameId, int minutesPlayed) {
+        this.userId = userId;
+        this.gameId = gameId;
+        this.minutesPlayed = minutesPlayed;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public Long getGameId() {
+        return gameId;
+    }
+    
+    public int getMinutesPlayed() {
+        return minutesPlayed;
+    }
+}
\ No newline at end of file
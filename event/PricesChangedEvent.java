@@ -0,0 +1,25 @@
+package com.example.demo.event;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.example.demo.dto.PriceChange;
+
+// Published once per committed chunk of a bulk repricing, instead of a GameChangedEvent per game.
+// Only price, sale price and sale state changed; everything else about the games is as before.
+public class PricesChangedEvent {
+    
+    private final List<PriceChange> changes;
+    
+    public PricesChangedEvent(List<PriceChange> changes) {
+        this.changes = List.copyOf(changes);
+    }
+    
+    public List<PriceChange> getChanges() {
+        return changes;
+    }
+    
+    public List<Long> getGameIds() {
+        return changes.stream().map(PriceChange::getGameId).collect(Collectors.toList());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.example.demo.event;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.example.demo.dto.RatingChange;
+
+// Published once per rating flush, instead of a GameChangedEvent per game.
+// Only average rating and review count changed; everything else about the games is as before.
+public class RatingsChangedEvent {
+    
+    private final List<RatingChange> changes;
+    
+    public RatingsChangedEvent(List<RatingChange> changes) {
+        this.changes = List.copyOf(changes);
+    }
+    
+    public List<RatingChange> getChanges() {
+        return changes;
+    }
+    
+    public List<Long> getGameIds() {
+        return changes.stream().map(RatingChange::getGameId).collect(Collectors.toList());
+    }
+}
\ No newline at end of file
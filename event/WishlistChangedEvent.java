@@ -0,0 +1,35 @@
+package com.example.demo.event;
+
+// Published when a game is added to or removed from a user's wishlist
+public class WishlistChangedEvent {
+    
+    private final Long userId;
+    private final Long gameId;
+    private final boolean removed;
+    
+    private WishlistChangedEvent(Long userId, Long gameId, boolean removed) {
+        this.userId = userId;
+        this.gameId = gameId;
+        this.removed = removed;
+    }
+    
+    public static WishlistChangedEvent added(Long userId, Long gameId) {
+        return new WishlistChangedEvent(userId, gameId, false);
+    }
+    
+    public static WishlistChangedEvent removed(Long userId, Long gameId) {
+        return new WishlistChangedEvent(userId, gameId, true);
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public Long getGameId() {
+        return gameId;
+    }
+    
+    public boolean isRemoved() {
+        return removed;
+    }
+}
\ No newline at end of file
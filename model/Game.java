@@ -1,12 +1,14 @@
 package com.example.demo.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "games")
+@DynamicUpdate // only changed columns are written, so entity saves don't overwrite batched rating totals
 public class Game {
     
     @Id
@@ -0,0 +1,48 @@
+package com.example.demo.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Checkpoint of a game's decayed popularity counter: the score as it stood at updatedAt
+@Entity
+@Table(name = "game_popularity")
+public class GamePopularity {
+    
+    @Id
+    @Column(name = "game_id")
+    private Long gameId;
+    
+    private double score;
+    
+    private LocalDateTime updatedAt;
+    
+    // Getters and Setters
+    
+    public Long getGameId() {
+        return gameId;
+    }
+    
+    public void setGameId(Long gameId) {
+        this.gameId = gameId;
+    }
+    
+    public double getScore() {
+        return score;
+    }
+    
+    public void setScore(double score) {
+        this.score = score;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
\ No newline at end of file
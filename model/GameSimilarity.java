@@ -0,0 +1,74 @@
+package com.example.demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// One entry of a game's precomputed similar-games list, written and read in bulk by SimilarGamesIndex
+@Entity
+@Table(name = "game_similarities", indexes = {
+    @Index(name = "idx_game_similarities_game", columnList = "game_id, position")
+})
+public class GameSimilarity {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "game_id", nullable = false)
+    private Long gameId;
+    
+    @Column(nullable = false)
+    private int position;
+    
+    @Column(name = "similar_game_id", nullable = false)
+    private Long similarGameId;
+    
+    private double score;
+    
+    // Getters and Setters
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getGameId() {
+        return gameId;
+    }
+    
+    public void setGameId(Long gameId) {
+        this.gameId = gameId;
+    }
+    
+    public int getPosition() {
+        return position;
+    }
+    
+    public void setPosition(int position) {
+        this.position = position;
+    }
+    
+    public Long getSimilarGameId() {
+        return similarGameId;
+    }
+    
+    public void setSimilarGameId(Long similarGameId) {
+        this.similarGameId = similarGameId;
+    }
+    
+    public double getScore() {
+        return score;
+    }
+    
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.example.demo.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// Side effect recorded in the same transaction as the change that caused it, delivered later by the relay
+@Entity
+@Table(name = "outbox_messages", indexes = {
+    @Index(name = "idx_outbox_available", columnList = "failed, available_at, id")
+})
+public class OutboxMessage {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String type;
+    
+    private Long userId;
+    
+    // JSON object, shape depends on type
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+    
+    private LocalDateTime createdAt;
+    
+    // Not picked up before this time: set ahead while claimed, and for backoff after a failed attempt
+    private LocalDateTime availableAt;
+    
+    private int attempts;
+    
+    // Gave up after too many attempts, kept for inspection
+    private boolean failed;
+    
+    // Getters and Setters
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public String getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getAvailableAt() {
+        return availableAt;
+    }
+    
+    public void setAvailableAt(LocalDateTime availableAt) {
+        this.availableAt = availableAt;
+    }
+    
+    public int getAttempts() {
+        return attempts;
+    }
+    
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+    
+    public boolean isFailed() {
+        return failed;
+    }
+    
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,158 @@
+package com.example.demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+// Block of a game's price history, delta/varint encoded by PriceHistoryStore.
+// Only the newest segment of a game is appended to; once full it is never touched again.
+@Entity
+@Table(name = "price_history_segments",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"game_id", "segment_no"}))
+public class PriceHistorySegment {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "game_id", nullable = false)
+    private Long gameId;
+    
+    @Column(name = "segment_no", nullable = false)
+    private int segmentNo;
+    
+    // Epoch seconds of the first and last point
+    private long firstTime;
+    
+    private long lastTime;
+    
+    private int pointCount;
+    
+    // Last point's prices in cents, so appends can encode the next delta without decoding
+    private long lastPriceCents;
+    
+    private long lastEffectiveCents;
+    
+    // Lowest and highest effective price in the segment, and when each was first reached
+    private long minCents;
+    
+    private long minTime;
+    
+    private long maxCents;
+    
+    private long maxTime;
+    
+    // (time, regular price, effective price) tuples
+    @Column(nullable = false)
+    private byte[] data;
+    
+    // Getters and Setters
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getGameId() {
+        return gameId;
+    }
+    
+    public void setGameId(Long gameId) {
+        this.gameId = gameId;
+    }
+    
+    public int getSegmentNo() {
+        return segmentNo;
+    }
+    
+    public void setSegmentNo(int segmentNo) {
+        this.segmentNo = segmentNo;
+    }
+    
+    public long getFirstTime() {
+        return firstTime;
+    }
+    
+    public void setFirstTime(long firstTime) {
+        this.firstTime = firstTime;
+    }
+    
+    public long getLastTime() {
+        return lastTime;
+    }
+    
+    public void setLastTime(long lastTime) {
+        this.lastTime = lastTime;
+    }
+    
+    public int getPointCount() {
+        return pointCount;
+    }
+    
+    public void setPointCount(int pointCount) {
+        this.pointCount = pointCount;
+    }
+    
+    public long getLastPriceCents() {
+        return lastPriceCents;
+    }
+    
+    public void setLastPriceCents(long lastPriceCents) {
+        this.lastPriceCents = lastPriceCents;
+    }
+    
+    public long getLastEffectiveCents() {
+        return lastEffectiveCents;
+    }
+    
+    public void setLastEffectiveCents(long lastEffectiveCents) {
+        this.lastEffectiveCents = lastEffectiveCents;
+    }
+    
+    public long getMinCents() {
+        return minCents;
+    }
+    
+    public void setMinCents(long minCents) {
+        this.minCents = minCents;
+    }
+    
+    public long getMinTime() {
+        return minTime;
+    }
+    
+    public void setMinTime(long minTime) {
+        this.minTime = minTime;
+    }
+    
+    public long getMaxCents() {
+        return maxCents;
+    }
+    
+    public void setMaxCents(long maxCents) {
+        this.maxCents = maxCents;
+    }
+    
+    public long getMaxTime() {
+        return maxTime;
+    }
+    
+    public void setMaxTime(long maxTime) {
+        this.maxTime = maxTime;
+    }
+    
+    public byte[] getData() {
+        return data;
+    }
+    
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+}
\ No newline at end of file
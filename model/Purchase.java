@@ -9,11 +9,14 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "purchases")
+@Table(name = "purchases", indexes = {
+    @Index(name = "idx_purchases_user_date", columnList = "user_id, purchase_date DESC, id DESC")
+})
 public class Purchase {
     
     @Id
@@ -0,0 +1,125 @@
+package com.example.demo.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+// Pricing a game switches to at a given second, such as a sale starting or ending.
+// The row is the source of truth for SaleScheduler: it is deleted once applied, and firing re-reads it.
+@Entity
+@Table(name = "scheduled_price_changes",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"sale_name", "game_id", "fire_at"}),
+       indexes = {
+           @Index(name = "idx_scheduled_price_fire_at", columnList = "fire_at"),
+           @Index(name = "idx_scheduled_price_sale", columnList = "sale_name")
+       })
+public class ScheduledPriceChange {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "game_id", nullable = false)
+    private Long gameId;
+    
+    @Column(name = "fire_at", nullable = false)
+    private LocalDateTime fireAt;
+    
+    // Null keeps the game's current value
+    private Double price;
+    
+    private Double salePrice;
+    
+    private boolean onSale;
+    
+    // Groups the transitions of one sale so it can be cancelled as a whole
+    @Column(name = "sale_name")
+    private String saleName;
+    
+    // Times the change was in a write that failed; it is retried with backoff until it gives up
+    private int attempts;
+    
+    // Gave up after too many attempts, kept for inspection
+    private boolean failed;
+    
+    // Getters and Setters
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getGameId() {
+        return gameId;
+    }
+    
+    public void setGameId(Long gameId) {
+        this.gameId = gameId;
+    }
+    
+    public LocalDateTime getFireAt() {
+        return fireAt;
+    }
+    
+    public void setFireAt(LocalDateTime fireAt) {
+        this.fireAt = fireAt;
+    }
+    
+    public Double getPrice() {
+        return price;
+    }
+    
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+    
+    public Double getSalePrice() {
+        return salePrice;
+    }
+    
+    public void setSalePrice(Double salePrice) {
+        this.salePrice = salePrice;
+    }
+    
+    public boolean isOnSale() {
+        return onSale;
+    }
+    
+    public void setOnSale(boolean onSale) {
+        this.onSale = onSale;
+    }
+    
+    public String getSaleName() {
+        return saleName;
+    }
+    
+    public void setSaleName(String saleName) {
+        this.saleName = saleName;
+    }
+    
+    public int getAttempts() {
+        return attempts;
+    }
+    
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+    
+    public boolean isFailed() {
+        return failed;
+    }
+    
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+}
\ No newline at end of file
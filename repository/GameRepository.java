@@ -18,18 +18,30 @@ public interface GameRepository extends JpaRepository<Game, Long> {
     @Override
     Page<Game> findAll(Pageable pageable);
     
+    // Keyset pagination in id order, pass PageRequest.of(0, size) so no count query runs
+    @Query("SELECT g FROM Game g ORDER BY g.id ASC")
+    List<Game> findFirstPageById(Pageable pageable);
+    
+    @Query("SELECT g FROM Game g WHERE g.id > :afterId ORDER BY g.id ASC")
+    List<Game> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+    
     Page<Game> findByTitleContainingIgnoreCase(String title, Pageable pageable);
     
-    @Query("SELECT g FROM Game g JOIN g.genres genre WHERE genre = :genre")
+    // Genre, tag and price filters match GameFacetIndex: case-insensitive values, price as currently charged
+    @Query("SELECT g FROM Game g JOIN g.genres genre WHERE LOWER(TRIM(genre)) = LOWER(TRIM(:genre))")
     Page<Game> findByGenre(@Param("genre") String genre, Pageable pageable);
     
-    @Query("SELECT g FROM Game g JOIN g.tags tag WHERE tag = :tag")
+    @Query("SELECT g FROM Game g JOIN g.tags tag WHERE LOWER(TRIM(tag)) = LOWER(TRIM(:tag))")
     Page<Game> findByTag(@Param("tag") String tag, Pageable pageable);
     
     List<Game> findByFeaturedTrue();
     
     List<Game> findByOnSaleTrue();
     
+    long countByFeaturedTrue();
+    
+    long countByOnSaleTrue();
+    
     @Query("SELECT g FROM Game g ORDER BY g.releaseDate DESC")
     List<Game> findNewReleases(Pageable pageable);
     
@@ -39,9 +51,36 @@ public interface GameRepository extends JpaRepository<Game, Long> {
     @Query("SELECT g FROM Game g JOIN g.genres genre WHERE genre = :genre ORDER BY g.averageRating DESC")
     List<Game> findTopRatedByGenre(@Param("genre") String genre, Pageable pageable);
     
-    @Query("SELECT g FROM Game g WHERE g.price <= :maxPrice")
+    @Query("SELECT g FROM Game g WHERE CASE WHEN g.onSale = true THEN g.salePrice ELSE g.price END <= :maxPrice")
     Page<Game> findByMaxPrice(@Param("maxPrice") double maxPrice, Pageable pageable);
     
-    @Query("SELECT g FROM Game g JOIN g.genres genre WHERE genre = :genre AND g.price <= :maxPrice")
+    @Query("SELECT g FROM Game g JOIN g.genres genre WHERE LOWER(TRIM(genre)) = LOWER(TRIM(:genre)) " +
+           "AND CASE WHEN g.onSale = true THEN g.salePrice ELSE g.price END <= :maxPrice")
     Page<Game> findByGenreAndMaxPrice(@Param("genre") String genre, @Param("maxPrice") double maxPrice, Pageable pageable);
+    
+    // Text columns for the in-memory search index, without hydrating entities
+    @Query("SELECT g.id, g.title, g.developer, g.publisher, g.description FROM Game g")
+    List<Object[]> findAllSearchDocuments();
+    
+    @Query("SELECT g.id, tag FROM Game g JOIN g.tags tag")
+    List<Object[]> findAllGameTags();
+    
+    @Query("SELECT tag FROM Game g JOIN g.tags tag WHERE g.id = :gameId")
+    List<String> findTagsByGameId(@Param("gameId") Long gameId);
+    
+    @Query("SELECT g.id, genre FROM Game g JOIN g.genres genre")
+    List<Object[]> findAllGameGenres();
+    
+    @Query("SELECT genre FROM Game g JOIN g.genres genre WHERE g.id = :gameId")
+    List<String> findGenresByGameId(@Param("gameId") Long gameId);
+    
+    @Query("SELECT g.id, g.price, g.salePrice, g.onSale FROM Game g")
+    List<Object[]> findAllPricing();
+    
+    @Query("SELECT g.id, g.title, g.averageRating, g.reviewCount FROM Game g")
+    List<Object[]> findAllAutocompleteRows();
+    
+    @Query("SELECT g.id, g.title, g.developer, g.publisher, g.releaseDate, g.coverImageUrl, g.headerImageUrl, " +
+           "g.price, g.salePrice, g.onSale, g.averageRating, g.reviewCount, g.featured FROM Game g")
+    List<Object[]> findAllCardRows();
 }
\ No newline at end of file
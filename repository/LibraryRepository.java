@@ -1,18 +1,25 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.demo.dto.LibraryEntryView;
 import com.example.demo.model.Library;
 
 @Repository
 public interface LibraryRepository extends JpaRepository<Library, Long> {
     
+    String LIBRARY_VIEW = "SELECT new com.example.demo.dto.LibraryEntryView(" +
+        "l.id, g.id, g.title, g.coverImageUrl, l.playtime, l.lastPlayed, l.installed, l.favorite, l.hidden, " +
+        "l.category, l.purchaseDate) FROM Library l JOIN l.game g ";
+    
     List<Library> findByUserId(Long userId);
     
     List<Library> findByUserIdOrderByLastPlayedDesc(Long userId);
@@ -21,12 +28,28 @@ public interface LibraryRepository extends JpaRepository<Library, Long> {
     
     boolean existsByUserIdAndGameId(Long userId, Long gameId);
     
+    @Query("SELECT l.game.id FROM Library l WHERE l.user.id = :userId AND l.game.id IN :gameIds")
+    List<Long> findOwnedGameIds(@Param("userId") Long userId, @Param("gameIds") Collection<Long> gameIds);
+    
     @Query("SELECT l FROM Library l WHERE l.user.id = :userId AND l.favorite = true")
     List<Library> findFavoritesByUserId(@Param("userId") Long userId);
     
     @Query("SELECT l FROM Library l WHERE l.user.id = :userId AND l.installed = true")
     List<Library> findInstalledByUserId(@Param("userId") Long userId);
     
+    // View queries select only the columns the library screens show, in one statement with no entity loading
+    @Query(LIBRARY_VIEW + "WHERE l.user.id = :userId")
+    List<LibraryEntryView> findEntryViewsByUserId(@Param("userId") Long userId);
+    
+    @Query(LIBRARY_VIEW + "WHERE l.user.id = :userId ORDER BY l.lastPlayed DESC")
+    List<LibraryEntryView> findEntryViewsByUserIdOrderByLastPlayedDesc(@Param("userId") Long userId);
+    
+    @Query(LIBRARY_VIEW + "WHERE l.user.id = :userId AND l.lastPlayed IS NOT NULL ORDER BY l.lastPlayed DESC")
+    List<LibraryEntryView> findRecentlyPlayedViews(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query(LIBRARY_VIEW + "WHERE l.user.id = :userId AND l.favorite = true")
+    List<LibraryEntryView> findFavoriteViewsByUserId(@Param("userId") Long userId);
+    
     @Query("SELECT COUNT(l) FROM Library l WHERE l.user.id = :userId")
     int countGamesByUserId(@Param("userId") Long userId);
     
@@ -10,15 +10,39 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.demo.dto.PurchaseView;
 import com.example.demo.model.Purchase;
 
 @Repository
 public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
     
+    String PURCHASE_VIEW = "SELECT new com.example.demo.dto.PurchaseView(" +
+        "p.id, p.gameId, g.title, g.coverImageUrl, p.price, p.purchaseDate, p.status) FROM Purchase p ";
+    
     List<Purchase> findByUserId(Long userId);
     
     Page<Purchase> findByUserIdOrderByPurchaseDateDesc(Long userId, Pageable pageable);
     
+    // Purchase history views, joined with the game's title and cover in the same statement
+    @Query(PURCHASE_VIEW + "JOIN Game g ON g.id = p.gameId WHERE p.userId = :userId")
+    List<PurchaseView> findViewsByUserId(@Param("userId") Long userId);
+    
+    // Keyset pagination, newest first; id breaks ties between purchases made at the same instant
+    @Query(PURCHASE_VIEW + "LEFT JOIN Game g ON g.id = p.gameId WHERE p.userId = :userId " +
+           "ORDER BY p.purchaseDate DESC, p.id DESC")
+    List<PurchaseView> findFirstViewPageByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query(PURCHASE_VIEW + "LEFT JOIN Game g ON g.id = p.gameId WHERE p.userId = :userId AND " +
+           "(p.purchaseDate < :purchaseDate OR (p.purchaseDate = :purchaseDate AND p.id < :id)) " +
+           "ORDER BY p.purchaseDate DESC, p.id DESC")
+    List<PurchaseView> findViewPageByUserIdBefore(
+            @Param("userId") Long userId,
+            @Param("purchaseDate") LocalDateTime purchaseDate,
+            @Param("id") Long id,
+            Pageable pageable);
+    
+    long countByUserId(Long userId);
+    
     List<Purchase> findByUserIdAndStatus(Long userId, Purchase.PurchaseStatus status);
     
     @Query("SELECT p FROM Purchase p WHERE p.userId = :userId AND p.purchaseDate >= :startDate AND p.purchaseDate <= :endDate")
@@ -16,27 +16,27 @@ import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 
 import com.example.demo.model.Achievement;
-import com.example.demo.model.Game;
 import com.example.demo.model.PlatformAchievement;
 import com.example.demo.repository.AchievementRepository;
-import com.example.demo.repository.GameRepository;
 import com.example.demo.repository.PlatformAchievementRepository;
+import com.example.demo.service.catalog.CatalogSnapshot;
+import com.example.demo.service.catalog.GameCard;
 
 @Service
 public class AchievementTimelineService {
     
     private final AchievementRepository achievementRepository;
     private final PlatformAchievementRepository platformAchievementRepository;
-    private final GameRepository gameRepository;
+    private final CatalogSnapshot catalogSnapshot;
     
   
     public AchievementTimelineService(
             AchievementRepository achievementRepository,
             PlatformAchievementRepository platformAchievementRepository,
-            GameRepository gameRepository) {
+            CatalogSnapshot catalogSnapshot) {
         this.achievementRepository = achievementRepository;
         this.platformAchievementRepository = platformAchievementRepository;
-        this.gameRepository = gameRepository;
+        this.catalogSnapshot = catalogSnapshot;
     }
     
     public Map<String, Object> getAchievementTimeline(Long userId, LocalDate startDate, LocalDate endDate) {
@@ -65,9 +65,7 @@ public class AchievementTimelineService {
             .map(Achievement::getGameId)
             .collect(Collectors.toSet());
         
-        List<Game> games = gameRepository.findAllById(gameIds);
-        Map<Long, Game> gameMap = games.stream()
-            .collect(Collectors.toMap(Game::getId, g -> g));
+        Map<Long, GameCard> gameMap = catalogSnapshot.getCards(gameIds);
         
         // Calculate days between start and end
         long daysBetween = ChronoUnit.DAYS.between(startDate, endDate) + 1;
@@ -96,7 +94,7 @@ public class AchievementTimelineService {
             achievementData.put("points", achievement.getPoints());
             
             // Add game info if available
-            Game game = gameMap.get(achievement.getGameId());
+            GameCard game = gameMap.get(achievement.getGameId());
             if (game != null) {
                 achievementData.put("gameId", game.getId());
                 achievementData.put("gameTitle", game.getTitle());
@@ -205,11 +203,10 @@ public class AchievementTimelineService {
                 .map(Map.Entry::getKey)
                 .collect(Collectors.toList());
             
-            Map<Long, Game> gameMap = gameRepository.findAllById(topGameIds).stream()
-                .collect(Collectors.toMap(Game::getId, g -> g));
+            Map<Long, GameCard> gameMap = catalogSnapshot.getCards(topGameIds);
             
             for (Map.Entry<Long, Long> entry : topGames) {
-                Game game = gameMap.get(entry.getKey());
+                GameCard game = gameMap.get(entry.getKey());
                 if (game == null) continue;
                 
                 Map<String, Object> gameData = new HashMap<>();
@@ -262,8 +259,7 @@ public class AchievementTimelineService {
             .map(Achievement::getGameId)
             .collect(Collectors.toSet());
         
-        Map<Long, Game> gameMap = gameRepository.findAllById(gameIds).stream()
-            .collect(Collectors.toMap(Game::getId, g -> g));
+        Map<Long, GameCard> gameMap = catalogSnapshot.getCards(gameIds);
         
         // Format achievements
         List<Map<String, Object>> result = new ArrayList<>();
@@ -276,7 +272,7 @@ public class AchievementTimelineService {
             achievementData.put("date", achievement.getDate());
             achievementData.put("points", achievement.getPoints());
             
-            Game game = gameMap.get(achievement.getGameId());
+            GameCard game = gameMap.get(achievement.getGameId());
             if (game != null) {
                 achievementData.put("gameId", game.getId());
                 achievementData.put("gameTitle", game.getTitle());
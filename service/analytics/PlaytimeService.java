@@ -14,28 +14,33 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import com.example.demo.model.Game;
+import com.example.demo.event.PlaytimeRecordedEvent;
 import com.example.demo.model.Library;
 import com.example.demo.model.Playtime;
-import com.example.demo.repository.GameRepository;
 import com.example.demo.repository.LibraryRepository;
 import com.example.demo.repository.PlaytimeRepository;
+import com.example.demo.service.catalog.CatalogSnapshot;
+import com.example.demo.service.catalog.GameCard;
 
 @Service
 public class PlaytimeService {
     
     private final PlaytimeRepository playtimeRepository;
     private final LibraryRepository libraryRepository;
-    private final GameRepository gameRepository;
+    private final CatalogSnapshot catalogSnapshot;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PlaytimeService(PlaytimeRepository playtimeRepository, 
                            LibraryRepository libraryRepository,
-                           GameRepository gameRepository) {
+                           CatalogSnapshot catalogSnapshot,
+                           ApplicationEventPublisher eventPublisher) {
         this.playtimeRepository = playtimeRepository;
         this.libraryRepository = libraryRepository;
-        this.gameRepository = gameRepository;
+        this.catalogSnapshot = catalogSnapshot;
+        this.eventPublisher = eventPublisher;
     }
     
     public void recordGameSession(Long userId, Long gameId, int minutesPlayed) {
@@ -56,6 +61,8 @@ public class PlaytimeService {
         playtime.setDuration(minutesPlayed);
         
         playtimeRepository.save(playtime);
+        
+        eventPublisher.publishEvent(new PlaytimeRecordedEvent(userId, gameId, minutesPlayed));
     }
     
     public Map<String, Object> getPlaytimeStatistics(Long userId) {
@@ -139,13 +146,12 @@ public class PlaytimeService {
         // Get game details and sort by playtime
         List<Map<String, Object>> gameBreakdown = new ArrayList<>();
         List<Long> gameIds = new ArrayList<>(gamePlaytimes.keySet());
-        Map<Long, Game> games = gameRepository.findAllById(gameIds).stream()
-            .collect(Collectors.toMap(Game::getId, game -> game));
+        Map<Long, GameCard> games = catalogSnapshot.getCards(gameIds);
         
         gamePlaytimes.entrySet().stream()
             .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed())
             .forEach(entry -> {
-                Game game = games.get(entry.getKey());
+                GameCard game = games.get(entry.getKey());
                 if (game == null) return;
                 
                 Map<String, Object> gameData = new HashMap<>();
@@ -243,14 +249,13 @@ public class PlaytimeService {
         // Get game details and sort by playtime
         List<Map<String, Object>> gameBreakdown = new ArrayList<>();
         List<Long> gameIds = new ArrayList<>(gamePlaytimes.keySet());
-        Map<Long, Game> games = gameRepository.findAllById(gameIds).stream()
-            .collect(Collectors.toMap(Game::getId, game -> game));
+        Map<Long, GameCard> games = catalogSnapshot.getCards(gameIds);
         
         gamePlaytimes.entrySet().stream()
             .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed())
             .limit(5) // Top 5 games
             .forEach(entry -> {
-                Game game = games.get(entry.getKey());
+                GameCard game = games.get(entry.getKey());
                 if (game == null) return;
                 
                 Map<String, Object> gameData = new HashMap<>();
@@ -281,8 +286,7 @@ public class PlaytimeService {
             .collect(Collectors.toList());
         
         // Get game details
-        Map<Long, Game> games = gameRepository.findAllById(gameIds).stream()
-            .collect(Collectors.toMap(Game::getId, game -> game));
+        Map<Long, GameCard> games = catalogSnapshot.getCards(gameIds);
         
         // Create result list
         List<Map<String, Object>> mostPlayed = new ArrayList<>();
@@ -294,7 +298,7 @@ public class PlaytimeService {
             Long gameId = (Long) row[0];
             Integer minutes = ((Number) row[1]).intValue();
             
-            Game game = games.get(gameId);
+            GameCard game = games.get(gameId);
             if (game == null) continue;
             
             Map<String, Object> gameData = new HashMap<>();
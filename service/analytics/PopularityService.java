@@ -0,0 +1,291 @@
+package com.example.demo.service.analytics;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.event.GamePurchasedEvent;
+import com.example.demo.event.PlaytimeRecordedEvent;
+import com.example.demo.service.catalog.CatalogSnapshot;
+import com.example.demo.service.catalog.GameCard;
+
+import jakarta.annotation.PreDestroy;
+
+// Per-game popularity as exponentially decayed sales and playtime counters, kept in memory and checkpointed.
+// Counters use forward decay: events are weighted up from a fixed landmark instead of decaying every counter over time.
+@Service
+public class PopularityService {
+    
+    // A purchase counts as much as two hours of play
+    private static final double PURCHASE_WEIGHT = 1.0;
+    private static final double WEIGHT_PER_MINUTE_PLAYED = 0.5 / 60;
+    
+    // Longer sessions (idling in menus, AFK farming) count as this many minutes
+    private static final int MAX_SESSION_MINUTES = 240;
+    
+    // The landmark moves forward long before exp() could overflow a double
+    private static final double MAX_EXPONENT = 50;
+    
+    private static final String LOAD_SQL = "SELECT game_id, score, updated_at FROM game_popularity";
+    
+    private static final String SAVE_SQL =
+        "INSERT INTO game_popularity (game_id, score, updated_at) VALUES (?, ?, ?) " +
+        "ON CONFLICT (game_id) DO UPDATE SET score = EXCLUDED.score, updated_at = EXCLUDED.updated_at";
+    
+    // Cold start only: history older than the window has decayed to almost nothing
+    private static final String SEED_PURCHASES_SQL =
+        "SELECT game_id, SUM(EXP(-? * EXTRACT(EPOCH FROM (? - purchase_date)))) FROM purchases " +
+        "WHERE status = 'COMPLETED' AND purchase_date > ? GROUP BY game_id";
+    
+    private static final String SEED_PLAYTIME_SQL =
+        "SELECT game_id, SUM(LEAST(duration, ?) * EXP(-? * EXTRACT(EPOCH FROM (? - session_end)))) FROM playtimes " +
+        "WHERE session_end > ? GROUP BY game_id";
+    
+    @Value("${popularity.half-life-hours:72}")
+    private double halfLifeHours;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogSnapshot catalogSnapshot;
+    
+    // Counter values are relative to the landmark; the write lock is only taken to move it
+    private final Map<Long, DoubleAdder> counters = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final ReadWriteLock landmarkLock = new ReentrantReadWriteLock();
+    private volatile long landmarkMillis = System.currentTimeMillis();
+    
+    private volatile Ranking ranking = new Ranking(new long[0], 0);
+    
+    public PopularityService(JdbcTemplate jdbcTemplate, CatalogSnapshot catalogSnapshot) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogSnapshot = catalogSnapshot;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long now = System.currentTimeMillis();
+        Map<Long, Double> restored = new HashMap<>();
+        
+        try {
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                long age = now - rs.getTimestamp(3).getTime();
+                restored.put(rs.getLong(1), rs.getDouble(2) * decay(age));
+            });
+            
+            if (restored.isEmpty()) {
+                seedFromHistory(now, restored);
+                dirty.addAll(restored.keySet());
+            }
+        } catch (Exception e) {
+            System.err.println("Error loading popularity counters: " + e.getMessage());
+        }
+        
+        // Events recorded since startup are kept, the restored values are added on top
+        landmarkLock.readLock().lock();
+        try {
+            double toLandmark = 1 / decay(now - landmarkMillis);
+            restored.forEach((gameId, score) -> counter(gameId).add(score * toLandmark));
+        } finally {
+            landmarkLock.readLock().unlock();
+        }
+        
+        refreshRanking();
+    }
+    
+    // Counted only once the purchase has committed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGamePurchased(GamePurchasedEvent event) {
+        record(event.getGameId(), PURCHASE_WEIGHT);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlaytimeRecorded(PlaytimeRecordedEvent event) {
+        int minutes = Math.min(Math.max(event.getMinutesPlayed(), 0), MAX_SESSION_MINUTES);
+        if (minutes > 0) {
+            record(event.getGameId(), minutes * WEIGHT_PER_MINUTE_PLAYED);
+        }
+    }
+    
+    // Decayed score right now
+    public double getScore(Long gameId) {
+        DoubleAdder counter = counters.get(gameId);
+        return counter != null ? toCurrent(counter.sum()) : 0.0;
+    }
+    
+    // 1-100 relative to the most popular game, on a log scale so the long tail still spreads out
+    public int getScaledScore(Long gameId) {
+        double top = toCurrent(ranking.topValue);
+        double score = getScore(gameId);
+        if (top <= 0 || score <= 0) {
+            return 1;
+        }
+        return (int) Math.max(1, Math.min(100, 1 + Math.round(99 * Math.log1p(score) / Math.log1p(top))));
+    }
+    
+    // Most popular first, as of the last ranking refresh
+    public List<Long> getMostPopularIds(int limit) {
+        long[] ids = ranking.gameIds;
+        int count = Math.min(Math.max(limit, 0), ids.length);
+        List<Long> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(ids[i]);
+        }
+        return result;
+    }
+    
+    public List<Map<String, Object>> getMostPopular(int limit) {
+        List<Long> ids = getMostPopularIds(limit);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        Map<Long, GameCard> cards = catalogSnapshot.getCards(ids);
+        List<Map<String, Object>> result = new ArrayList<>(ids.size());
+        for (Long gameId : ids) {
+            GameCard game = cards.get(gameId);
+            if (game == null) continue;
+            
+            Map<String, Object> gameData = new HashMap<>();
+            gameData.put("id", game.getId());
+            gameData.put("title", game.getTitle());
+            gameData.put("coverImageUrl", game.getCoverImageUrl());
+            gameData.put("popularity", getScore(gameId));
+            gameData.put("popularityScore", getScaledScore(gameId));
+            result.add(gameData);
+        }
+        return result;
+    }
+    
+    // Decay never changes the relative order, so re-sorting on a timer is enough to pick up new events
+    @Scheduled(fixedDelayString = "${popularity.ranking-refresh-ms:30000}")
+    public void refreshRanking() {
+        List<Map.Entry<Long, Double>> values = new ArrayList<>(counters.size());
+        counters.forEach((gameId, counter) -> values.add(Map.entry(gameId, counter.sum())));
+        values.sort(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        
+        long[] ids = new long[values.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = values.get(i).getKey();
+        }
+        ranking = new Ranking(ids, values.isEmpty() ? 0 : values.get(0).getValue());
+    }
+    
+    // Only counters that moved since the last checkpoint are written; a stored score decays on its own
+    @Scheduled(fixedDelayString = "${popularity.checkpoint-interval-ms:300000}")
+    public void checkpoint() {
+        moveLandmarkIfNeeded();
+        
+        long now = System.currentTimeMillis();
+        List<Object[]> batch = new ArrayList<>();
+        List<Long> written = new ArrayList<>();
+        for (Long gameId : dirty) {
+            dirty.remove(gameId);
+            written.add(gameId);
+            batch.add(new Object[] { gameId, getScore(gameId), new Timestamp(now) });
+        }
+        
+        if (batch.isEmpty()) {
+            return;
+        }
+        
+        try {
+            jdbcTemplate.batchUpdate(SAVE_SQL, batch);
+        } catch (Exception e) {
+            System.err.println("Error checkpointing popularity, will retry: " + e.getMessage());
+            dirty.addAll(written);
+        }
+    }
+    
+    @PreDestroy
+    public void checkpointOnShutdown() {
+        checkpoint();
+    }
+    
+    private void record(Long gameId, double weight) {
+        landmarkLock.readLock().lock();
+        try {
+            counter(gameId).add(weight / decay(System.currentTimeMillis() - landmarkMillis));
+        } finally {
+            landmarkLock.readLock().unlock();
+        }
+        dirty.add(gameId);
+    }
+    
+    // Rescales every counter to a new landmark; records wait for the few microseconds this takes
+    private void moveLandmarkIfNeeded() {
+        long now = System.currentTimeMillis();
+        if (-Math.log(decay(now - landmarkMillis)) < MAX_EXPONENT) {
+            return;
+        }
+        
+        landmarkLock.writeLock().lock();
+        try {
+            double factor = decay(now - landmarkMillis);
+            for (DoubleAdder counter : counters.values()) {
+                double value = counter.sumThenReset();
+                counter.add(value * factor);
+            }
+            landmarkMillis = now;
+        } finally {
+            landmarkLock.writeLock().unlock();
+        }
+        refreshRanking();
+    }
+    
+    private void seedFromHistory(long now, Map<Long, Double> restored) {
+        double ratePerSecond = decayRatePerMilli() * 1000;
+        Timestamp nowTs = new Timestamp(now);
+        // Eight half-lives back, older events would weigh under half a percent
+        Timestamp since = new Timestamp(now - (long) (8 * halfLifeHours * 3600 * 1000));
+        
+        jdbcTemplate.query(SEED_PURCHASES_SQL, rs -> {
+            restored.merge(rs.getLong(1), rs.getDouble(2) * PURCHASE_WEIGHT, Double::sum);
+        }, ratePerSecond, nowTs, since);
+        
+        jdbcTemplate.query(SEED_PLAYTIME_SQL, rs -> {
+            restored.merge(rs.getLong(1), rs.getDouble(2) * WEIGHT_PER_MINUTE_PLAYED, Double::sum);
+        }, MAX_SESSION_MINUTES, ratePerSecond, nowTs, since);
+    }
+    
+    private DoubleAdder counter(Long gameId) {
+        return counters.computeIfAbsent(gameId, id -> new DoubleAdder());
+    }
+    
+    private double toCurrent(double landmarkValue) {
+        return landmarkValue * decay(System.currentTimeMillis() - landmarkMillis);
+    }
+    
+    private double decay(long elapsedMillis) {
+        return Math.exp(-decayRatePerMilli() * elapsedMillis);
+    }
+    
+    private double decayRatePerMilli() {
+        return Math.log(2) / (halfLifeHours * 3600 * 1000);
+    }
+    
+    private static final class Ranking {
+        
+        private final long[] gameIds;
+        private final double topValue;
+        
+        Ranking(long[] gameIds, double topValue) {
+            this.gameIds = gameIds;
+            this.topValue = topValue;
+        }
+    }
+}
\ No newline at end of file
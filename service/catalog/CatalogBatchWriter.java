@@ -0,0 +1,215 @@
+package com.example.demo.service.catalog;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.Game;
+import com.example.demo.util.GameDataParser;
+
+// Writes whole batches of games and their collections with JDBC batch statements, bypassing the persistence context
+@Service
+public class CatalogBatchWriter {
+    
+    private static final String ALLOCATE_IDS =
+        "SELECT nextval(pg_get_serial_sequence('games', 'id')) FROM generate_series(1, ?)";
+    
+    private static final String INSERT_GAME =
+        "INSERT INTO games (id, title, description, developer, publisher, release_date, price, sale_price, " +
+        "on_sale, cover_image_url, header_image_url, system_requirements, average_rating, review_count, featured) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_GENRE = "INSERT INTO game_genres (game_id, genre) VALUES (?, ?)";
+    private static final String INSERT_TAG = "INSERT INTO game_tags (game_id, tag) VALUES (?, ?)";
+    private static final String INSERT_SCREENSHOT = "INSERT INTO game_screenshots (game_id, screenshot_url) VALUES (?, ?)";
+    
+    private static final String FIND_BY_TITLES =
+        "SELECT id, title, developer FROM games WHERE title IN (:titles) ORDER BY id";
+    
+    // Catalog drops refresh descriptive fields only; price, sale state and ratings stay with their services
+    private static final String UPDATE_GAME =
+        "UPDATE games SET description = COALESCE(?, description), publisher = COALESCE(?, publisher), " +
+        "release_date = COALESCE(?, release_date), cover_image_url = COALESCE(?, cover_image_url), " +
+        "header_image_url = COALESCE(?, header_image_url) WHERE id = ?";
+    
+    private static final String DELETE_GENRES = "DELETE FROM game_genres WHERE game_id = ?";
+    private static final String DELETE_TAGS = "DELETE FROM game_tags WHERE game_id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    
+    public CatalogBatchWriter(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+    
+    // One transaction per batch; ids come from the games sequence up front so child rows need no round trip
+    @Transactional
+    public void insertGames(List<Game> games) {
+        if (games.isEmpty()) {
+            return;
+        }
+        
+        List<Long> ids = jdbcTemplate.queryForList(ALLOCATE_IDS, Long.class, games.size());
+        for (int i = 0; i < games.size(); i++) {
+            games.get(i).setId(ids.get(i));
+        }
+        
+        jdbcTemplate.batchUpdate(INSERT_GAME, games, games.size(), (ps, game) -> {
+            ps.setLong(1, game.getId());
+            ps.setString(2, game.getTitle());
+            ps.setString(3, game.getDescription());
+            ps.setString(4, game.getDeveloper());
+            ps.setString(5, game.getPublisher());
+            ps.setDate(6, game.getReleaseDate() != null ? Date.valueOf(game.getReleaseDate()) : null);
+            ps.setDouble(7, game.getPrice());
+            ps.setDouble(8, game.getSalePrice());
+            ps.setBoolean(9, game.isOnSale());
+            ps.setString(10, game.getCoverImageUrl());
+            ps.setString(11, game.getHeaderImageUrl());
+            ps.setString(12, game.getSystemRequirements());
+            ps.setDouble(13, game.getAverageRating());
+            ps.setInt(14, game.getReviewCount());
+            ps.setBoolean(15, game.isFeatured());
+        });
+        
+        insertCollections(games);
+    }
+    
+    // Games matching an existing title/developer pair update that row, the rest are inserted.
+    // Counts are per distinct key, so records collapsed into a later duplicate count as neither.
+    @Transactional
+    public UpsertResult upsertGames(List<Game> games) {
+        if (games.isEmpty()) {
+            return new UpsertResult(0, 0);
+        }
+        
+        // Later records for the same key win, so a drop listing a game twice doesn't insert it twice
+        Map<String, Game> byKey = new LinkedHashMap<>();
+        for (Game game : games) {
+            byKey.put(key(game.getTitle(), game.getDeveloper()), game);
+        }
+        
+        Map<String, Long> existingIds = new HashMap<>();
+        Set<String> titles = byKey.values().stream().map(Game::getTitle).collect(Collectors.toSet());
+        namedJdbcTemplate.query(FIND_BY_TITLES, Map.of("titles", titles), rs -> {
+            // Ordered by id, so pre-existing duplicates resolve to the oldest row
+            existingIds.putIfAbsent(key(rs.getString(2), rs.getString(3)), rs.getLong(1));
+        });
+        
+        List<Game> inserts = new ArrayList<>();
+        List<Game> updates = new ArrayList<>();
+        for (Map.Entry<String, Game> entry : byKey.entrySet()) {
+            Long existingId = existingIds.get(entry.getKey());
+            if (existingId == null) {
+                inserts.add(entry.getValue());
+            } else {
+                entry.getValue().setId(existingId);
+                updates.add(entry.getValue());
+            }
+        }
+        
+        insertGames(inserts);
+        updateGames(updates);
+        return new UpsertResult(inserts.size(), updates.size());
+    }
+    
+    private void updateGames(List<Game> games) {
+        if (games.isEmpty()) {
+            return;
+        }
+        
+        jdbcTemplate.batchUpdate(UPDATE_GAME, games, games.size(), (ps, game) -> {
+            ps.setString(1, game.getDescription());
+            ps.setString(2, game.getPublisher());
+            ps.setDate(3, game.getReleaseDate() != null ? Date.valueOf(game.getReleaseDate()) : null);
+            // Parser placeholders mean the record had no image, keep whatever the game already has
+            ps.setString(4, GameDataParser.DEFAULT_COVER_IMAGE.equals(game.getCoverImageUrl()) ? null : game.getCoverImageUrl());
+            ps.setString(5, GameDataParser.DEFAULT_HEADER_IMAGE.equals(game.getHeaderImageUrl()) ? null : game.getHeaderImageUrl());
+            ps.setLong(6, game.getId());
+        });
+        
+        // Genre and tag lists are replaced wholesale
+        List<Object[]> ids = games.stream().map(game -> new Object[] { game.getId() }).collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(DELETE_GENRES, ids);
+        jdbcTemplate.batchUpdate(DELETE_TAGS, ids);
+        
+        List<Object[]> genres = new ArrayList<>();
+        List<Object[]> tags = new ArrayList<>();
+        for (Game game : games) {
+            for (String genre : game.getGenres()) {
+                genres.add(new Object[] { game.getId(), genre });
+            }
+            for (String tag : game.getTags()) {
+                tags.add(new Object[] { game.getId(), tag });
+            }
+        }
+        if (!genres.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_GENRE, genres);
+        }
+        if (!tags.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TAG, tags);
+        }
+    }
+    
+    private static String key(String title, String developer) {
+        return title + '\u0000' + (developer != null ? developer : "");
+    }
+    
+    private void insertCollections(List<Game> games) {
+        List<Object[]> genres = new ArrayList<>();
+        List<Object[]> tags = new ArrayList<>();
+        List<Object[]> screenshots = new ArrayList<>();
+        
+        for (Game game : games) {
+            for (String genre : game.getGenres()) {
+                genres.add(new Object[] { game.getId(), genre });
+            }
+            for (String tag : game.getTags()) {
+                tags.add(new Object[] { game.getId(), tag });
+            }
+            for (String screenshot : game.getScreenshots()) {
+                screenshots.add(new Object[] { game.getId(), screenshot });
+            }
+        }
+        
+        if (!genres.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_GENRE, genres);
+        }
+        if (!tags.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TAG, tags);
+        }
+        if (!screenshots.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SCREENSHOT, screenshots);
+        }
+    }
+    
+    public static final class UpsertResult {
+        
+        private final int inserted;
+        private final int updated;
+        
+        UpsertResult(int inserted, int updated) {
+            this.inserted = inserted;
+            this.updated = updated;
+        }
+        
+        public int getInserted() {
+            return inserted;
+        }
+        
+        public int getUpdated() {
+            return updated;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.example.demo.service.catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Running totals of one import, handed to the progress callback after every batch
+public class CatalogImportReport {
+    
+    // Only the first errors are kept so a bad dump can't exhaust memory
+    private static final int MAX_ERRORS = 1000;
+    
+    private final long startedAt = System.currentTimeMillis();
+    private long recordsRead;
+    private long imported;
+    private long updated;
+    private long skipped;
+    private final List<String> errors = new ArrayList<>();
+    private boolean finished;
+    
+    synchronized void addRead(long count) {
+        recordsRead += count;
+    }
+    
+    synchronized void addImported(long count) {
+        imported += count;
+    }
+    
+    synchronized void addUpdated(long count) {
+        updated += count;
+    }
+    
+    synchronized void addError(long location, String message) {
+        skipped++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("Record at " + location + ": " + message);
+        }
+    }
+    
+    synchronized void finish() {
+        finished = true;
+    }
+    
+    public synchronized long getRecordsRead() {
+        return recordsRead;
+    }
+    
+    public synchronized long getImported() {
+        return imported;
+    }
+    
+    public synchronized long getUpdated() {
+        return updated;
+    }
+    
+    public synchronized long getSkipped() {
+        return skipped;
+    }
+    
+    public synchronized List<String> getErrors() {
+        return Collections.unmodifiableList(new ArrayList<>(errors));
+    }
+    
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+    
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> report = new HashMap<>();
+        report.put("recordsRead", recordsRead);
+        report.put("imported", imported);
+        report.put("updated", updated);
+        report.put("skipped", skipped);
+        report.put("errors", new ArrayList<>(errors));
+        report.put("finished", finished);
+        report.put("elapsedMs", System.currentTimeMillis() - startedAt);
+        return report;
+    }
+}
\ No newline at end of file
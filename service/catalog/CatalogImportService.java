@@ -0,0 +1,180 @@
+package com.example.demo.service.catalog;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.event.CatalogImportedEvent;
+import com.example.demo.model.Game;
+import com.example.demo.util.CsvTokenizer;
+import com.example.demo.util.GameDataParser;
+import com.example.demo.util.GameDataParser.CsvLayout;
+import com.example.demo.util.JsonCatalogReader;
+import com.fasterxml.jackson.core.JsonParser;
+
+// Bulk catalog import: streams the input, validates each batch in parallel and writes it with JDBC batches
+@Service
+public class CatalogImportService {
+    
+    private static final int BATCH_SIZE = 2000;
+    
+    private final GameDataParser gameDataParser;
+    private final CatalogBatchWriter batchWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    public CatalogImportService(GameDataParser gameDataParser,
+                                CatalogBatchWriter batchWriter,
+                                ApplicationEventPublisher eventPublisher) {
+        this.gameDataParser = gameDataParser;
+        this.batchWriter = batchWriter;
+        this.eventPublisher = eventPublisher;
+    }
+    
+    public CatalogImportReport importCsv(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return importCsv(reader, report -> { });
+        }
+    }
+    
+    // The first record is the header; progress is called after every batch and once more when done
+    public CatalogImportReport importCsv(Reader reader, Consumer<CatalogImportReport> progress) throws IOException {
+        CatalogImportReport report = new CatalogImportReport();
+        CsvTokenizer tokenizer = new CsvTokenizer(reader);
+        
+        List<String> header = tokenizer.next();
+        if (header == null) {
+            report.finish();
+            progress.accept(report);
+            return report;
+        }
+        CsvLayout layout = CsvLayout.fromHeader(header);
+        
+        List<List<String>> records = new ArrayList<>(BATCH_SIZE);
+        List<Long> lineNumbers = new ArrayList<>(BATCH_SIZE);
+        List<String> record;
+        while ((record = tokenizer.next()) != null) {
+            records.add(record);
+            lineNumbers.add(tokenizer.getRecordLineNumber());
+            
+            if (records.size() == BATCH_SIZE) {
+                importBatch(records, lineNumbers, fields -> gameDataParser.parseCsvRecord(fields, layout), false, report);
+                progress.accept(report);
+                records = new ArrayList<>(BATCH_SIZE);
+                lineNumbers = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        if (!records.isEmpty()) {
+            importBatch(records, lineNumbers, fields -> gameDataParser.parseCsvRecord(fields, layout), false, report);
+        }
+        
+        report.finish();
+        progress.accept(report);
+        publishImported(report);
+        return report;
+    }
+    
+    public CatalogImportReport importJson(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return importJson(reader, report -> { });
+        }
+    }
+    
+    // JSON array or newline-delimited JSON; records matching an existing title/developer update that game
+    public CatalogImportReport importJson(Reader reader, Consumer<CatalogImportReport> progress) throws IOException {
+        CatalogImportReport report = new CatalogImportReport();
+        
+        try (JsonParser parser = gameDataParser.createJsonParser(reader)) {
+            JsonCatalogReader catalogReader = new JsonCatalogReader(parser);
+            
+            List<Map<String, String>> records = new ArrayList<>(BATCH_SIZE);
+            List<Long> recordNumbers = new ArrayList<>(BATCH_SIZE);
+            Map<String, String> record;
+            while ((record = catalogReader.next()) != null) {
+                records.add(record);
+                recordNumbers.add(catalogReader.getRecordNumber());
+                
+                if (records.size() == BATCH_SIZE) {
+                    importBatch(records, recordNumbers, gameDataParser::parseJsonRecord, true, report);
+                    progress.accept(report);
+                    records = new ArrayList<>(BATCH_SIZE);
+                    recordNumbers = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!records.isEmpty()) {
+                importBatch(records, recordNumbers, gameDataParser::parseJsonRecord, true, report);
+            }
+        } finally {
+            // Malformed JSON can't be resynchronized, but batches written before it stay imported
+            report.finish();
+            progress.accept(report);
+            publishImported(report);
+        }
+        return report;
+    }
+    
+    private <T> void importBatch(List<T> records, List<Long> locations, Function<T, Game> mapper,
+                                 boolean upsert, CatalogImportReport report) {
+        report.addRead(records.size());
+        
+        // Mapping and validation are CPU-only, so the batch is spread over the common pool
+        Game[] mapped = new Game[records.size()];
+        IntStream.range(0, records.size()).parallel().forEach(i -> {
+            try {
+                mapped[i] = mapper.apply(records.get(i));
+            } catch (Exception e) {
+                report.addError(locations.get(i), e.getMessage());
+            }
+        });
+        
+        List<Game> games = new ArrayList<>(mapped.length);
+        List<Long> gameLocations = new ArrayList<>(mapped.length);
+        for (int i = 0; i < mapped.length; i++) {
+            if (mapped[i] != null) {
+                games.add(mapped[i]);
+                gameLocations.add(locations.get(i));
+            }
+        }
+        
+        try {
+            write(games, upsert, report);
+        } catch (Exception e) {
+            // The batch rolled back as a whole; retry row by row so one bad record only costs itself
+            System.err.println("Error writing import batch, retrying individually: " + e.getMessage());
+            for (int i = 0; i < games.size(); i++) {
+                try {
+                    write(List.of(games.get(i)), upsert, report);
+                } catch (Exception rowError) {
+                    report.addError(gameLocations.get(i), rowError.getMessage());
+                }
+            }
+        }
+    }
+    
+    private void write(List<Game> games, boolean upsert, CatalogImportReport report) {
+        if (upsert) {
+            CatalogBatchWriter.UpsertResult result = batchWriter.upsertGames(games);
+            report.addImported(result.getInserted());
+            report.addUpdated(result.getUpdated());
+        } else {
+            batchWriter.insertGames(games);
+            report.addImported(games.size());
+        }
+    }
+    
+    private void publishImported(CatalogImportReport report) {
+        if (report.getImported() > 0 || report.getUpdated() > 0) {
+            eventPublisher.publishEvent(new CatalogImportedEvent(report.getImported() + report.getUpdated()));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,294 @@
+package com.example.demo.service.catalog;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.hibernate.Hibernate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.dto.PriceChange;
+import com.example.demo.dto.RatingChange;
+import com.example.demo.event.CatalogImportedEvent;
+import com.example.demo.event.GameChangedEvent;
+import com.example.demo.event.PricesChangedEvent;
+import com.example.demo.event.RatingsChangedEvent;
+import com.example.demo.model.Game;
+import com.example.demo.repository.GameRepository;
+
+// Immutable game cards in sorted primitive arrays. Readers never lock, writers copy and swap.
+@Service
+public class CatalogSnapshot {
+    
+    private final GameRepository gameRepository;
+    
+    // Writers are serialized, readers only ever dereference the volatile field once
+    private final Object writeLock = new Object();
+    private volatile Cards cards = Cards.EMPTY;
+    private volatile boolean ready = false;
+    
+    public CatalogSnapshot(GameRepository gameRepository) {
+        this.gameRepository = gameRepository;
+    }
+    
+    // Runs before the other listeners so read models derived from the snapshot see the new cards
+    @EventListener({ ApplicationReadyEvent.class, CatalogImportedEvent.class })
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void rebuild() {
+        // Held for the whole load so a change published meanwhile is applied on top, not overwritten
+        synchronized (writeLock) {
+            Map<String, String> interned = new HashMap<>();
+            Map<Long, List<String>> genresByGame = groupByGame(gameRepository.findAllGameGenres(), interned);
+            Map<Long, List<String>> tagsByGame = groupByGame(gameRepository.findAllGameTags(), interned);
+            
+            List<Object[]> rows = gameRepository.findAllCardRows();
+            List<GameCard> loaded = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                Long gameId = (Long) row[0];
+                loaded.add(new GameCard(
+                    gameId,
+                    (String) row[1],
+                    intern((String) row[2], interned),
+                    intern((String) row[3], interned),
+                    (LocalDate) row[4],
+                    (String) row[5],
+                    (String) row[6],
+                    ((Number) row[7]).doubleValue(),
+                    ((Number) row[8]).doubleValue(),
+                    (Boolean) row[9],
+                    ((Number) row[10]).doubleValue(),
+                    ((Number) row[11]).intValue(),
+                    (Boolean) row[12],
+                    genresByGame.get(gameId),
+                    tagsByGame.get(gameId)));
+            }
+            
+            cards = Cards.of(loaded);
+            ready = true;
+        }
+    }
+    
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onGameChanged(GameChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getGameId());
+        } else {
+            put(cardOf(event.getGame()));
+        }
+    }
+    
+    // Reprices the existing cards; a game the snapshot doesn't know yet is picked up by the next rebuild
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onPricesChanged(PricesChangedEvent event) {
+        synchronized (writeLock) {
+            Cards current = cards;
+            List<GameCard> updated = new ArrayList<>(event.getChanges().size());
+            for (PriceChange change : event.getChanges()) {
+                GameCard card = current.get(change.getGameId());
+                if (card != null) {
+                    updated.add(card.withPrices(change.getPrice(), change.getSalePrice(), change.isOnSale()));
+                }
+            }
+            if (!updated.isEmpty()) {
+                cards = current.with(updated);
+            }
+        }
+    }
+    
+    // Same for a rating flush
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onRatingsChanged(RatingsChangedEvent event) {
+        synchronized (writeLock) {
+            Cards current = cards;
+            List<GameCard> updated = new ArrayList<>(event.getChanges().size());
+            for (RatingChange change : event.getChanges()) {
+                GameCard card = current.get(change.getGameId());
+                if (card != null) {
+                    updated.add(card.withRating(change.getAverageRating(), change.getReviewCount()));
+                }
+            }
+            putAll(updated);
+        }
+    }
+    
+    public void put(GameCard card) {
+        putAll(Collections.singletonList(card));
+    }
+    
+    public void putAll(Collection<GameCard> updated) {
+        if (updated.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            cards = cards.with(updated);
+        }
+    }
+    
+    public void remove(Long gameId) {
+        synchronized (writeLock) {
+            cards = cards.without(gameId);
+        }
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public int size() {
+        return cards.ids.length;
+    }
+    
+    public GameCard get(Long gameId) {
+        return find(gameId).orElse(null);
+    }
+    
+    public Optional<GameCard> find(Long gameId) {
+        if (gameId == null) {
+            return Optional.empty();
+        }
+        if (!ready) {
+            return gameRepository.findById(gameId).map(this::cardOf);
+        }
+        return Optional.ofNullable(cards.get(gameId));
+    }
+    
+    // Same shape as findAllById(...).stream().collect(toMap(Game::getId, g -> g)); unknown ids are skipped
+    public Map<Long, GameCard> getCards(Collection<Long> gameIds) {
+        Map<Long, GameCard> result = new HashMap<>();
+        if (!ready) {
+            for (Game game : gameRepository.findAllById(gameIds)) {
+                result.put(game.getId(), cardOf(game));
+            }
+            return result;
+        }
+        
+        Cards current = cards;
+        for (Long gameId : gameIds) {
+            GameCard card = gameId != null ? current.get(gameId) : null;
+            if (card != null) {
+                result.put(gameId, card);
+            }
+        }
+        return result;
+    }
+    
+    // Every card in id order; the list is a fixed view of one snapshot
+    public List<GameCard> getAll() {
+        return Collections.unmodifiableList(Arrays.asList(cards.cards));
+    }
+    
+    public GameCard cardOf(Game game) {
+        List<String> genres = Hibernate.isInitialized(game.getGenres())
+            ? game.getGenres()
+            : gameRepository.findGenresByGameId(game.getId());
+        List<String> tags = Hibernate.isInitialized(game.getTags())
+            ? game.getTags()
+            : gameRepository.findTagsByGameId(game.getId());
+        
+        return GameCard.of(game, genres, tags);
+    }
+    
+    private static Map<Long, List<String>> groupByGame(List<Object[]> rows, Map<String, String> interned) {
+        Map<Long, List<String>> byGame = new HashMap<>();
+        for (Object[] row : rows) {
+            byGame.computeIfAbsent((Long) row[0], id -> new ArrayList<>(4))
+                .add(intern((String) row[1], interned));
+        }
+        return byGame;
+    }
+    
+    // Genres, tags and studio names repeat across thousands of cards
+    private static String intern(String value, Map<String, String> interned) {
+        return value == null ? null : interned.computeIfAbsent(value, v -> v);
+    }
+    
+    private static final class Cards {
+        
+        static final Cards EMPTY = new Cards(new long[0], new GameCard[0]);
+        
+        // Sorted ids and the card for each id at the same position
+        final long[] ids;
+        final GameCard[] cards;
+        
+        private Cards(long[] ids, GameCard[] cards) {
+            this.ids = ids;
+            this.cards = cards;
+        }
+        
+        static Cards of(List<GameCard> loaded) {
+            GameCard[] sorted = loaded.toArray(new GameCard[0]);
+            Arrays.sort(sorted, (a, b) -> Long.compare(a.getId(), b.getId()));
+            
+            long[] ids = new long[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                ids[i] = sorted[i].getId();
+            }
+            return new Cards(ids, sorted);
+        }
+        
+        GameCard get(long gameId) {
+            int index = Arrays.binarySearch(ids, gameId);
+            return index >= 0 ? cards[index] : null;
+        }
+        
+        // Merge a batch of changed cards into a fresh copy, one pass regardless of batch size
+        Cards with(Collection<GameCard> updated) {
+            GameCard[] changes = updated.toArray(new GameCard[0]);
+            Arrays.sort(changes, (a, b) -> Long.compare(a.getId(), b.getId()));
+            
+            long[] mergedIds = new long[ids.length + changes.length];
+            GameCard[] mergedCards = new GameCard[ids.length + changes.length];
+            int i = 0;
+            int c = 0;
+            int size = 0;
+            
+            while (i < ids.length || c < changes.length) {
+                long changeId = c < changes.length ? changes[c].getId() : Long.MAX_VALUE;
+                if (i < ids.length && ids[i] < changeId) {
+                    mergedIds[size] = ids[i];
+                    mergedCards[size++] = cards[i++];
+                    continue;
+                }
+                if (i < ids.length && ids[i] == changeId) {
+                    i++;
+                }
+                // Later duplicates in the same batch win
+                while (c + 1 < changes.length && changes[c + 1].getId() == changeId) {
+                    c++;
+                }
+                mergedIds[size] = changeId;
+                mergedCards[size++] = changes[c++];
+            }
+            
+            return new Cards(Arrays.copyOf(mergedIds, size), Arrays.copyOf(mergedCards, size));
+        }
+        
+        Cards without(long gameId) {
+            int index = Arrays.binarySearch(ids, gameId);
+            if (index < 0) {
+                return this;
+            }
+            
+            long[] remainingIds = new long[ids.length - 1];
+            GameCard[] remainingCards = new GameCard[ids.length - 1];
+            System.arraycopy(ids, 0, remainingIds, 0, index);
+            System.arraycopy(cards, 0, remainingCards, 0, index);
+            System.arraycopy(ids, index + 1, remainingIds, index, ids.length - index - 1);
+            System.arraycopy(cards, index + 1, remainingCards, index, ids.length - index - 1);
+            return new Cards(remainingIds, remainingCards);
+        }
+    }
+}
\ No newline at end of file
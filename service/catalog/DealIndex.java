@@ -0,0 +1,214 @@
+package com.example.demo.service.catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.event.CatalogImportedEvent;
+import com.example.demo.event.GameChangedEvent;
+import com.example.demo.event.PricesChangedEvent;
+
+// On-sale games ordered by discount, overall and per genre, kept current from game and price events.
+// Readers get an immutable top list published after each change, or walk a genre's set; they never lock or sort.
+@Service
+public class DealIndex {
+    
+    // Enough for the featured strip and the weekly sale
+    public static final int FEATURED_SIZE = 10;
+    
+    private static final Comparator<Entry> BIGGEST_DISCOUNT_FIRST = Comparator
+        .comparingDouble((Entry e) -> e.discount).reversed()
+        .thenComparingLong(e -> e.gameId);
+    
+    private final CatalogSnapshot catalogSnapshot;
+    
+    // Writers are serialized on this object; a rebuild fills new sets and swaps them in,
+    // so genre readers walk either the old sets or the complete new ones
+    private volatile Deals current = new Deals();
+    
+    private volatile List<GameCard> featured = Collections.emptyList();
+    private volatile boolean ready = false;
+    
+    public DealIndex(CatalogSnapshot catalogSnapshot) {
+        this.catalogSnapshot = catalogSnapshot;
+    }
+    
+    // Runs after CatalogSnapshot has loaded
+    @EventListener({ ApplicationReadyEvent.class, CatalogImportedEvent.class })
+    public synchronized void rebuild() {
+        Deals fresh = new Deals();
+        for (GameCard card : catalogSnapshot.getAll()) {
+            Entry entry = Entry.of(card);
+            if (entry != null) {
+                fresh.add(entry);
+            }
+        }
+        current = fresh;
+        publish();
+        ready = true;
+    }
+    
+    @EventListener
+    public synchronized void onGameChanged(GameChangedEvent event) {
+        if (!ready) {
+            return;
+        }
+        if (update(event.getGameId())) {
+            publish();
+        }
+    }
+    
+    // A repricing chunk republishes once
+    @EventListener
+    public synchronized void onPricesChanged(PricesChangedEvent event) {
+        if (!ready) {
+            return;
+        }
+        boolean changed = false;
+        for (Long gameId : event.getGameIds()) {
+            changed |= update(gameId);
+        }
+        if (changed) {
+            publish();
+        }
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    // Biggest discounts first, at most FEATURED_SIZE
+    public List<GameCard> getFeatured() {
+        return featured;
+    }
+    
+    public List<GameCard> getDealsByGenre(String genre, int limit) {
+        return getDealsByGenre(genre, limit, gameId -> false);
+    }
+    
+    // Biggest discounts in the genre first; skipped games don't count towards the limit
+    public List<GameCard> getDealsByGenre(String genre, int limit, Predicate<Long> skip) {
+        NavigableSet<Entry> entries = genre != null ? current.byGenre.get(normalize(genre)) : null;
+        if (entries == null) {
+            return Collections.emptyList();
+        }
+        
+        List<GameCard> cards = new ArrayList<>(Math.max(0, limit));
+        Iterator<Entry> it = entries.iterator();
+        while (it.hasNext() && cards.size() < limit) {
+            Entry entry = it.next();
+            if (!skip.test(entry.gameId)) {
+                cards.add(entry.card);
+            }
+        }
+        return cards;
+    }
+    
+    // Cards come from the snapshot, which has already applied the change; false if the game isn't and wasn't on sale
+    private boolean update(Long gameId) {
+        Deals deals = current;
+        Entry previous = deals.entriesByGame.get(gameId);
+        if (previous != null) {
+            deals.remove(previous);
+        }
+        
+        GameCard card = catalogSnapshot.get(gameId);
+        Entry next = card != null ? Entry.of(card) : null;
+        if (next != null) {
+            deals.add(next);
+        }
+        return previous != null || next != null;
+    }
+    
+    private void publish() {
+        List<GameCard> top = new ArrayList<>(FEATURED_SIZE);
+        Iterator<Entry> it = current.all.iterator();
+        while (it.hasNext() && top.size() < FEATURED_SIZE) {
+            top.add(it.next().card);
+        }
+        featured = Collections.unmodifiableList(top);
+    }
+    
+    // Discount as a fraction of the regular price
+    public static double discountOf(GameCard card) {
+        return 1 - (card.getSalePrice() / card.getPrice());
+    }
+    
+    private static List<String> genreKeys(List<String> genres) {
+        return genres.stream()
+            .map(DealIndex::normalize)
+            .distinct()
+            .collect(Collectors.toList());
+    }
+    
+    private static String normalize(String genre) {
+        return genre.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static final class Deals {
+        
+        // Only games on sale are held; the overall set is only walked by writers
+        private final NavigableSet<Entry> all = new TreeSet<>(BIGGEST_DISCOUNT_FIRST);
+        private final Map<Long, Entry> entriesByGame = new HashMap<>();
+        
+        // Concurrent sets so genre reads can walk while a writer updates them
+        private final Map<String, NavigableSet<Entry>> byGenre = new ConcurrentHashMap<>();
+        
+        void add(Entry entry) {
+            entriesByGame.put(entry.gameId, entry);
+            all.add(entry);
+            for (String genre : entry.genres) {
+                byGenre.computeIfAbsent(genre, g -> new ConcurrentSkipListSet<>(BIGGEST_DISCOUNT_FIRST)).add(entry);
+            }
+        }
+        
+        void remove(Entry entry) {
+            entriesByGame.remove(entry.gameId);
+            all.remove(entry);
+            for (String genre : entry.genres) {
+                NavigableSet<Entry> entries = byGenre.get(genre);
+                if (entries != null) {
+                    entries.remove(entry);
+                }
+            }
+        }
+    }
+    
+    private static final class Entry {
+        
+        private final long gameId;
+        private final double discount;
+        private final GameCard card;
+        private final List<String> genres;
+        
+        private Entry(GameCard card) {
+            this.gameId = card.getId();
+            this.discount = discountOf(card);
+            this.card = card;
+            this.genres = genreKeys(card.getGenres());
+        }
+        
+        // Null unless the game is on sale for less than its regular price
+        static Entry of(GameCard card) {
+            if (!card.isOnSale() || card.getPrice() <= 0 || card.getSalePrice() >= card.getPrice()) {
+                return null;
+            }
+            return new Entry(card);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,133 @@
+package com.example.demo.service.catalog;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.example.demo.model.Game;
+
+// Read-only view of the fields list and card pages need, detached from JPA
+public final class GameCard {
+    
+    private final long id;
+    private final String title;
+    private final String developer;
+    private final String publisher;
+    private final LocalDate releaseDate;
+    private final String coverImageUrl;
+    private final String headerImageUrl;
+    private final double price;
+    private final double salePrice;
+    private final boolean onSale;
+    private final double averageRating;
+    private final int reviewCount;
+    private final boolean featured;
+    private final List<String> genres;
+    private final List<String> tags;
+    
+    public GameCard(long id, String title, String developer, String publisher, LocalDate releaseDate,
+                    String coverImageUrl, String headerImageUrl, double price, double salePrice, boolean onSale,
+                    double averageRating, int reviewCount, boolean featured, List<String> genres, List<String> tags) {
+        this.id = id;
+        this.title = title;
+        this.developer = developer;
+        this.publisher = publisher;
+        this.releaseDate = releaseDate;
+        this.coverImageUrl = coverImageUrl;
+        this.headerImageUrl = headerImageUrl;
+        this.price = price;
+        this.salePrice = salePrice;
+        this.onSale = onSale;
+        this.averageRating = averageRating;
+        this.reviewCount = reviewCount;
+        this.featured = featured;
+        this.genres = genres != null ? List.copyOf(genres) : List.of();
+        this.tags = tags != null ? List.copyOf(tags) : List.of();
+    }
+    
+    public static GameCard of(Game game, List<String> genres, List<String> tags) {
+        return new GameCard(game.getId(), game.getTitle(), game.getDeveloper(), game.getPublisher(),
+            game.getReleaseDate(), game.getCoverImageUrl(), game.getHeaderImageUrl(), game.getPrice(),
+            game.getSalePrice(), game.isOnSale(), game.getAverageRating(), game.getReviewCount(),
+            game.isFeatured(), genres, tags);
+    }
+    
+    // Same card after a repricing
+    public GameCard withPrices(double newPrice, double newSalePrice, boolean newOnSale) {
+        return new GameCard(id, title, developer, publisher, releaseDate, coverImageUrl, headerImageUrl,
+            newPrice, newSalePrice, newOnSale, averageRating, reviewCount, featured, genres, tags);
+    }
+    
+    public GameCard withRating(double newAverageRating, int newReviewCount) {
+        return new GameCard(id, title, developer, publisher, releaseDate, coverImageUrl, headerImageUrl,
+            price, salePrice, onSale, newAverageRating, newReviewCount, featured, genres, tags);
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public String getDeveloper() {
+        return developer;
+    }
+    
+    public String getPublisher() {
+        return publisher;
+    }
+    
+    public LocalDate getReleaseDate() {
+        return releaseDate;
+    }
+    
+    public String getCoverImageUrl() {
+        return coverImageUrl;
+    }
+    
+    public String getHeaderImageUrl() {
+        return headerImageUrl;
+    }
+    
+    public double getPrice() {
+        return price;
+    }
+    
+    public double getSalePrice() {
+        return salePrice;
+    }
+    
+    public boolean isOnSale() {
+        return onSale;
+    }
+    
+    // What the store charges right now
+    public double getCurrentPrice() {
+        return onSale ? salePrice : price;
+    }
+    
+    public long getDiscountPercentage() {
+        return onSale && price > 0 ? Math.round((1 - (salePrice / price)) * 100) : 0;
+    }
+    
+    public double getAverageRating() {
+        return averageRating;
+    }
+    
+    public int getReviewCount() {
+        return reviewCount;
+    }
+    
+    public boolean isFeatured() {
+        return featured;
+    }
+    
+    public List<String> getGenres() {
+        return genres;
+    }
+    
+    public List<String> getTags() {
+        return tags;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,543 @@
+package com.example.demo.service.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.event.CatalogImportedEvent;
+import com.example.demo.event.GameChangedEvent;
+
+// Top similar games for every game, by cosine similarity over genre, tag and developer features.
+// Lists are computed in bulk, persisted, and patched when a game's features change.
+@Service
+public class SimilarGamesIndex {
+    
+    private static final int NEIGHBOURS = 10;
+    
+    // A shared genre counts most; a shared developer alone shouldn't outweigh a similar tag profile
+    private static final double GENRE_WEIGHT = 1.0;
+    private static final double TAG_WEIGHT = 0.8;
+    private static final double DEVELOPER_WEIGHT = 0.6;
+    
+    private static final String LOAD_SQL =
+        "SELECT game_id, similar_game_id, score FROM game_similarities ORDER BY game_id, position";
+    private static final String DELETE_ALL_SQL = "DELETE FROM game_similarities";
+    private static final String DELETE_SQL = "DELETE FROM game_similarities WHERE game_id = ?";
+    private static final String INSERT_SQL =
+        "INSERT INTO game_similarities (game_id, position, similar_game_id, score) VALUES (?, ?, ?, ?)";
+    
+    private final CatalogSnapshot catalogSnapshot;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    // Served lists, replaced one game at a time so readers never lock
+    private final Map<Long, Neighbours> neighbours = new ConcurrentHashMap<>();
+    
+    // Feature model for incremental updates and the changes seen during a rebuild, guarded by this
+    private FeatureModel model = null;
+    private final Set<Long> changedDuringRebuild = new HashSet<>();
+    private boolean rebuilding = false;
+    private volatile boolean ready = false;
+    
+    public SimilarGamesIndex(CatalogSnapshot catalogSnapshot,
+                             JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate) {
+        this.catalogSnapshot = catalogSnapshot;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+    
+    // Serves the persisted lists when there are any; only the feature vectors are rebuilt, which is linear
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Map<Long, Neighbours> persisted = loadPersisted();
+        if (persisted.isEmpty()) {
+            rebuild();
+            return;
+        }
+        
+        synchronized (this) {
+            model = FeatureModel.of(catalogSnapshot.getAll());
+            neighbours.putAll(persisted);
+            ready = true;
+        }
+    }
+    
+    // Full recomputation also refreshes feature weights, which incremental updates keep fixed
+    @Scheduled(cron = "0 30 4 * * ?") // Run at 4:30 AM every day
+    @EventListener(CatalogImportedEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            if (rebuilding) {
+                return;
+            }
+            rebuilding = true;
+            changedDuringRebuild.clear();
+        }
+        
+        try {
+            FeatureModel fresh = FeatureModel.of(catalogSnapshot.getAll());
+            Map<Long, Neighbours> computed = computeAll(fresh);
+            persistAll(computed);
+            
+            synchronized (this) {
+                model = fresh;
+                neighbours.putAll(computed);
+                neighbours.keySet().retainAll(computed.keySet());
+                ready = true;
+                
+                // Games edited while we were computing are patched on top of the fresh lists
+                for (Long gameId : changedDuringRebuild) {
+                    update(gameId);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error rebuilding similar games: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                rebuilding = false;
+                changedDuringRebuild.clear();
+            }
+        }
+    }
+    
+    @EventListener
+    public synchronized void onGameChanged(GameChangedEvent event) {
+        if (rebuilding) {
+            changedDuringRebuild.add(event.getGameId());
+            return;
+        }
+        if (!ready) {
+            return;
+        }
+        update(event.getGameId());
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    // Most similar first
+    public List<Long> similarTo(Long gameId, int limit) {
+        Neighbours list = neighbours.get(gameId);
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        
+        int count = Math.min(limit, list.ids.length);
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(list.ids[i]);
+        }
+        return ids;
+    }
+    
+    // Every game scored against the games it shares a feature with, spread over all cores
+    private static Map<Long, Neighbours> computeAll(FeatureModel model) {
+        long[] gameIds = model.features.keySet().stream().mapToLong(Long::longValue).toArray();
+        int gameCount = gameIds.length;
+        
+        Map<Long, Integer> gameIndex = new HashMap<>(gameCount * 2);
+        for (int i = 0; i < gameCount; i++) {
+            gameIndex.put(gameIds[i], i);
+        }
+        
+        // Dense copies of the model: feature ids, squared feature weights and posting arrays
+        Map<String, Integer> featureIndex = new HashMap<>();
+        int[][] gameFeatures = new int[gameCount][];
+        double[] norms = new double[gameCount];
+        for (int i = 0; i < gameCount; i++) {
+            String[] features = model.features.get(gameIds[i]);
+            gameFeatures[i] = new int[features.length];
+            for (int k = 0; k < features.length; k++) {
+                gameFeatures[i][k] = featureIndex.computeIfAbsent(features[k], f -> featureIndex.size());
+            }
+            norms[i] = model.norms.get(gameIds[i]);
+        }
+        
+        double[] squaredWeights = new double[featureIndex.size()];
+        int[][] postings = new int[featureIndex.size()][];
+        for (Map.Entry<String, Integer> feature : featureIndex.entrySet()) {
+            double weight = model.weight(feature.getKey());
+            squaredWeights[feature.getValue()] = weight * weight;
+            postings[feature.getValue()] = model.postings.get(feature.getKey()).stream()
+                .mapToInt(gameIndex::get)
+                .toArray();
+        }
+        
+        // Per-thread accumulators: dot products indexed by game, plus the games touched so far
+        ThreadLocal<double[]> dotScratch = ThreadLocal.withInitial(() -> new double[gameCount]);
+        ThreadLocal<int[]> touchedScratch = ThreadLocal.withInitial(() -> new int[gameCount]);
+        
+        Neighbours[] results = new Neighbours[gameCount];
+        IntStream.range(0, gameCount).parallel().forEach(i -> {
+            double[] dots = dotScratch.get();
+            int[] touched = touchedScratch.get();
+            int touchedCount = 0;
+            
+            for (int feature : gameFeatures[i]) {
+                double squaredWeight = squaredWeights[feature];
+                for (int j : postings[feature]) {
+                    if (j == i) {
+                        continue;
+                    }
+                    if (dots[j] == 0) {
+                        touched[touchedCount++] = j;
+                    }
+                    dots[j] += squaredWeight;
+                }
+            }
+            
+            TopN top = new TopN(NEIGHBOURS);
+            for (int k = 0; k < touchedCount; k++) {
+                int j = touched[k];
+                top.offer(gameIds[j], dots[j] / (norms[i] * norms[j]));
+                dots[j] = 0;
+            }
+            results[i] = top.toNeighbours();
+        });
+        
+        Map<Long, Neighbours> computed = new HashMap<>(gameCount * 2);
+        for (int i = 0; i < gameCount; i++) {
+            computed.put(gameIds[i], results[i]);
+        }
+        return computed;
+    }
+    
+    // Re-indexes one game and patches the lists it enters, leaves or moves in. Caller holds this.
+    private void update(Long gameId) {
+        GameCard card = catalogSnapshot.get(gameId);
+        String[] features = card != null ? FeatureModel.featuresOf(card) : null;
+        if (Arrays.equals(model.features.get(gameId), features)) {
+            // Price, rating and text edits don't change similarity
+            return;
+        }
+        
+        model.remove(gameId);
+        if (features != null) {
+            model.add(gameId, features);
+        }
+        
+        // Lists that mention the game, gathered before they are patched
+        Set<Long> mentioning = new HashSet<>();
+        neighbours.forEach((otherId, list) -> {
+            if (list.indexOf(gameId) >= 0) {
+                mentioning.add(otherId);
+            }
+        });
+        
+        Set<Long> affected = new TreeSet<>();
+        affected.add(gameId);
+        affected.addAll(mentioning);
+        
+        if (features == null) {
+            neighbours.remove(gameId);
+            for (Long otherId : mentioning) {
+                neighbours.put(otherId, top(model.scoreAgainstAll(otherId)));
+            }
+            persist(affected);
+            return;
+        }
+        
+        Map<Long, Double> scores = model.scoreAgainstAll(gameId);
+        neighbours.put(gameId, top(scores));
+        
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            Long otherId = entry.getKey();
+            Neighbours list = neighbours.getOrDefault(otherId, Neighbours.EMPTY);
+            int position = list.indexOf(gameId);
+            
+            if (position >= 0 && entry.getValue() < list.scores[position]) {
+                // Moving down may hand its slot to a game that isn't in the list yet
+                neighbours.put(otherId, top(model.scoreAgainstAll(otherId)));
+                affected.add(otherId);
+            } else {
+                Neighbours patched = list.with(gameId, entry.getValue());
+                if (patched != list) {
+                    neighbours.put(otherId, patched);
+                    affected.add(otherId);
+                }
+            }
+        }
+        
+        // No longer shares any feature with these, so its slot goes to the next best game
+        for (Long otherId : mentioning) {
+            if (!scores.containsKey(otherId)) {
+                neighbours.put(otherId, top(model.scoreAgainstAll(otherId)));
+            }
+        }
+        
+        persist(affected);
+    }
+    
+    private static Neighbours top(Map<Long, Double> scores) {
+        TopN top = new TopN(NEIGHBOURS);
+        scores.forEach(top::offer);
+        return top.toNeighbours();
+    }
+    
+    private Map<Long, Neighbours> loadPersisted() {
+        Map<Long, TopN> lists = new LinkedHashMap<>();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            lists.computeIfAbsent(rs.getLong(1), id -> new TopN(NEIGHBOURS)).offer(rs.getLong(2), rs.getDouble(3));
+        });
+        
+        Map<Long, Neighbours> loaded = new HashMap<>(lists.size() * 2);
+        lists.forEach((gameId, top) -> loaded.put(gameId, top.toNeighbours()));
+        return loaded;
+    }
+    
+    private void persistAll(Map<Long, Neighbours> computed) {
+        List<Object[]> rows = new ArrayList<>();
+        computed.forEach((gameId, list) -> addRows(rows, gameId, list));
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(DELETE_ALL_SQL);
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        });
+    }
+    
+    // Incremental writes happen on the thread that saved the game, so a failure is logged, not thrown
+    private void persist(Set<Long> gameIds) {
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (Long gameId : gameIds) {
+            deletes.add(new Object[] { gameId });
+            Neighbours list = neighbours.get(gameId);
+            if (list != null) {
+                addRows(rows, gameId, list);
+            }
+        }
+        
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(DELETE_SQL, deletes);
+                if (!rows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+                }
+            });
+        } catch (Exception e) {
+            System.err.println("Error saving similar games, next rebuild will catch up: " + e.getMessage());
+        }
+    }
+    
+    private static void addRows(List<Object[]> rows, Long gameId, Neighbours list) {
+        for (int i = 0; i < list.ids.length; i++) {
+            rows.add(new Object[] { gameId, i, list.ids[i], list.scores[i] });
+        }
+    }
+    
+    // Binary features per game, weighted by feature type and inverse document frequency
+    private static final class FeatureModel {
+        
+        private final Map<String, Double> idf;
+        private final double unseenIdf;
+        private final Map<Long, String[]> features = new HashMap<>();
+        private final Map<Long, Double> norms = new HashMap<>();
+        private final Map<String, Set<Long>> postings = new HashMap<>();
+        
+        private FeatureModel(Map<String, Double> idf, double unseenIdf) {
+            this.idf = idf;
+            this.unseenIdf = unseenIdf;
+        }
+        
+        static FeatureModel of(List<GameCard> cards) {
+            Map<Long, String[]> featuresByGame = new HashMap<>(cards.size() * 2);
+            Map<String, Integer> documentFrequency = new HashMap<>();
+            for (GameCard card : cards) {
+                String[] features = featuresOf(card);
+                featuresByGame.put(card.getId(), features);
+                for (String feature : features) {
+                    documentFrequency.merge(feature, 1, Integer::sum);
+                }
+            }
+            
+            // Smoothed idf, so a feature every game has still counts a little
+            double gameCount = cards.size();
+            Map<String, Double> idf = new HashMap<>(documentFrequency.size() * 2);
+            documentFrequency.forEach((feature, df) -> idf.put(feature, Math.log((gameCount + 1) / (df + 1)) + 1));
+            
+            // Features first seen after the build are as rare as possible until the next rebuild
+            FeatureModel model = new FeatureModel(idf, Math.log((gameCount + 1) / 2) + 1);
+            featuresByGame.forEach(model::add);
+            return model;
+        }
+        
+        static String[] featuresOf(GameCard card) {
+            Set<String> features = new TreeSet<>();
+            if (card.getGenres() != null) {
+                for (String genre : card.getGenres()) {
+                    features.add("g:" + normalize(genre));
+                }
+            }
+            if (card.getTags() != null) {
+                for (String tag : card.getTags()) {
+                    features.add("t:" + normalize(tag));
+                }
+            }
+            if (card.getDeveloper() != null && !card.getDeveloper().isBlank()) {
+                features.add("d:" + normalize(card.getDeveloper()));
+            }
+            return features.toArray(new String[0]);
+        }
+        
+        double weight(String feature) {
+            double typeWeight;
+            switch (feature.charAt(0)) {
+                case 'g':
+                    typeWeight = GENRE_WEIGHT;
+                    break;
+                case 't':
+                    typeWeight = TAG_WEIGHT;
+                    break;
+                default:
+                    typeWeight = DEVELOPER_WEIGHT;
+                    break;
+            }
+            return typeWeight * idf.getOrDefault(feature, unseenIdf);
+        }
+        
+        void add(Long gameId, String[] gameFeatures) {
+            double squaredNorm = 0;
+            for (String feature : gameFeatures) {
+                double weight = weight(feature);
+                squaredNorm += weight * weight;
+                postings.computeIfAbsent(feature, f -> new HashSet<>()).add(gameId);
+            }
+            features.put(gameId, gameFeatures);
+            norms.put(gameId, Math.sqrt(squaredNorm));
+        }
+        
+        void remove(Long gameId) {
+            String[] gameFeatures = features.remove(gameId);
+            norms.remove(gameId);
+            if (gameFeatures == null) {
+                return;
+            }
+            for (String feature : gameFeatures) {
+                Set<Long> games = postings.get(feature);
+                if (games != null) {
+                    games.remove(gameId);
+                    if (games.isEmpty()) {
+                        postings.remove(feature);
+                    }
+                }
+            }
+        }
+        
+        // Cosine similarity with every game sharing at least one feature
+        Map<Long, Double> scoreAgainstAll(Long gameId) {
+            Map<Long, Double> dots = new HashMap<>();
+            String[] gameFeatures = features.get(gameId);
+            if (gameFeatures == null) {
+                return dots;
+            }
+            
+            for (String feature : gameFeatures) {
+                double weight = weight(feature);
+                for (Long otherId : postings.getOrDefault(feature, Collections.emptySet())) {
+                    if (!otherId.equals(gameId)) {
+                        dots.merge(otherId, weight * weight, Double::sum);
+                    }
+                }
+            }
+            
+            double norm = norms.get(gameId);
+            dots.replaceAll((otherId, dot) -> dot / (norm * norms.get(otherId)));
+            return dots;
+        }
+        
+        private static String normalize(String value) {
+            return value.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+    
+    // Bounded best-first list; ties go to the lower id so results are stable across rebuilds
+    private static final class TopN {
+        
+        private final long[] ids;
+        private final double[] scores;
+        private int size = 0;
+        
+        TopN(int capacity) {
+            this.ids = new long[capacity];
+            this.scores = new double[capacity];
+        }
+        
+        void offer(long id, double score) {
+            if (size == ids.length && !ranksBefore(id, score, ids[size - 1], scores[size - 1])) {
+                return;
+            }
+            
+            int position = size < ids.length ? size++ : size - 1;
+            while (position > 0 && ranksBefore(id, score, ids[position - 1], scores[position - 1])) {
+                ids[position] = ids[position - 1];
+                scores[position] = scores[position - 1];
+                position--;
+            }
+            ids[position] = id;
+            scores[position] = score;
+        }
+        
+        Neighbours toNeighbours() {
+            return new Neighbours(Arrays.copyOf(ids, size), Arrays.copyOf(scores, size));
+        }
+        
+        private static boolean ranksBefore(long id, double score, long otherId, double otherScore) {
+            return score > otherScore || (score == otherScore && id < otherId);
+        }
+    }
+    
+    private static final class Neighbours {
+        
+        private static final Neighbours EMPTY = new Neighbours(new long[0], new double[0]);
+        
+        private final long[] ids;
+        private final double[] scores;
+        
+        Neighbours(long[] ids, double[] scores) {
+            this.ids = ids;
+            this.scores = scores;
+        }
+        
+        int indexOf(long gameId) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == gameId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        // Copy with the game (re)ranked at this score, or this same list when it doesn't make the cut
+        Neighbours with(long gameId, double score) {
+            TopN top = new TopN(NEIGHBOURS);
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != gameId) {
+                    top.offer(ids[i], scores[i]);
+                }
+            }
+            top.offer(gameId, score);
+            
+            Neighbours patched = top.toNeighbours();
+            return Arrays.equals(patched.ids, ids) && Arrays.equals(patched.scores, scores) ? this : patched;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,200 @@
+package com.example.demo.service.catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.event.CatalogImportedEvent;
+import com.example.demo.event.GameChangedEvent;
+import com.example.demo.event.RatingsChangedEvent;
+import com.example.demo.model.Game;
+import com.example.demo.repository.GameRepository;
+
+// Games ordered by rating, overall and per genre. Reading the top K walks K entries, no sort.
+@Service
+public class TopRatedIndex {
+    
+    private static final Comparator<Entry> BEST_RATED_FIRST = Comparator
+        .comparingDouble((Entry e) -> e.rating).reversed()
+        .thenComparingLong(e -> e.gameId);
+    
+    private final CatalogSnapshot catalogSnapshot;
+    private final GameRepository gameRepository;
+    
+    // Writers are serialized on this object; a rebuild fills a new ranking and swaps it in,
+    // so readers see either the old one or the complete new one
+    private volatile Ranking ranking = new Ranking();
+    private volatile boolean ready = false;
+    
+    public TopRatedIndex(CatalogSnapshot catalogSnapshot, GameRepository gameRepository) {
+        this.catalogSnapshot = catalogSnapshot;
+        this.gameRepository = gameRepository;
+    }
+    
+    // Runs after CatalogSnapshot has loaded
+    @EventListener({ ApplicationReadyEvent.class, CatalogImportedEvent.class })
+    public synchronized void rebuild() {
+        Ranking fresh = new Ranking();
+        for (GameCard card : catalogSnapshot.getAll()) {
+            fresh.add(card);
+        }
+        ranking = fresh;
+        ready = true;
+    }
+    
+    @EventListener
+    public synchronized void onGameChanged(GameChangedEvent event) {
+        if (!ready) {
+            return;
+        }
+        
+        update(ranking, event.getGameId(), event.isDeleted() ? null : catalogSnapshot.get(event.getGameId()));
+    }
+    
+    // A rating flush is applied in one pass
+    @EventListener
+    public synchronized void onRatingsChanged(RatingsChangedEvent event) {
+        if (!ready) {
+            return;
+        }
+        
+        Ranking current = ranking;
+        for (Long gameId : event.getGameIds()) {
+            update(current, gameId, catalogSnapshot.get(gameId));
+        }
+    }
+    
+    // Cards come from the snapshot, which has already applied the change; null for a deleted game
+    private static void update(Ranking current, Long gameId, GameCard card) {
+        Entry previous = current.entriesByGame.get(gameId);
+        
+        // Price, title and similar edits don't move the game in any ranking
+        if (previous != null && card != null
+                && previous.rating == card.getAverageRating()
+                && previous.genres.equals(genreKeys(card.getGenres()))) {
+            return;
+        }
+        
+        if (previous != null) {
+            current.remove(previous);
+        }
+        if (card != null) {
+            current.add(card);
+        }
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public List<Long> topRated(int limit) {
+        if (!ready) {
+            return idsOf(gameRepository.findTopRated(PageRequest.of(0, limit)));
+        }
+        return take(ranking.all, limit, Collections.emptySet());
+    }
+    
+    public List<Long> topRatedByGenre(String genre, int limit) {
+        return topRatedByGenre(genre, limit, Collections.emptySet());
+    }
+    
+    // Skips excluded ids while walking, so callers still get up to limit results
+    public List<Long> topRatedByGenre(String genre, int limit, Set<Long> excludedIds) {
+        if (genre == null) {
+            return Collections.emptyList();
+        }
+        if (!ready) {
+            return idsOf(gameRepository.findTopRatedByGenre(genre, PageRequest.of(0, limit + excludedIds.size())))
+                .stream()
+                .filter(id -> !excludedIds.contains(id))
+                .limit(limit)
+                .collect(Collectors.toList());
+        }
+        
+        NavigableSet<Entry> entries = ranking.byGenre.get(normalize(genre));
+        return entries == null ? Collections.emptyList() : take(entries, limit, excludedIds);
+    }
+    
+    private static List<Long> take(NavigableSet<Entry> entries, int limit, Set<Long> excludedIds) {
+        List<Long> ids = new ArrayList<>(Math.max(0, limit));
+        Iterator<Entry> it = entries.iterator();
+        while (it.hasNext() && ids.size() < limit) {
+            long gameId = it.next().gameId;
+            if (!excludedIds.contains(gameId)) {
+                ids.add(gameId);
+            }
+        }
+        return ids;
+    }
+    
+    private static List<Long> idsOf(List<Game> games) {
+        return games.stream().map(Game::getId).collect(Collectors.toList());
+    }
+    
+    private static List<String> genreKeys(List<String> genres) {
+        return genres.stream()
+            .map(TopRatedIndex::normalize)
+            .distinct()
+            .collect(Collectors.toList());
+    }
+    
+    private static String normalize(String genre) {
+        return genre.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    // Skip-list sets so readers walking them never block
+    private static final class Ranking {
+        
+        private final NavigableSet<Entry> all = new ConcurrentSkipListSet<>(BEST_RATED_FIRST);
+        private final Map<String, NavigableSet<Entry>> byGenre = new ConcurrentHashMap<>();
+        private final Map<Long, Entry> entriesByGame = new HashMap<>();
+        
+        void add(GameCard card) {
+            Entry entry = new Entry(card.getId(), card.getAverageRating(), genreKeys(card.getGenres()));
+            entriesByGame.put(entry.gameId, entry);
+            all.add(entry);
+            for (String genre : entry.genres) {
+                byGenre.computeIfAbsent(genre, g -> new ConcurrentSkipListSet<>(BEST_RATED_FIRST)).add(entry);
+            }
+        }
+        
+        void remove(Entry entry) {
+            entriesByGame.remove(entry.gameId);
+            all.remove(entry);
+            for (String genre : entry.genres) {
+                NavigableSet<Entry> entries = byGenre.get(genre);
+                if (entries != null) {
+                    entries.remove(entry);
+                }
+            }
+        }
+    }
+    
+    private static final class Entry {
+        
+        private final long gameId;
+        private final double rating;
+        private final List<String> genres;
+        
+        Entry(long gameId, double rating, List<String> genres) {
+            this.gameId = gameId;
+            this.rating = rating;
+            this.genres = genres;
+        }
+    }
+}
\ No newline at end of file
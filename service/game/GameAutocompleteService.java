@@ -0,0 +1,564 @@
+package com.example.demo.service.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.dto.RatingChange;
+import com.example.demo.event.CatalogImportedEvent;
+import com.example.demo.event.GameChangedEvent;
+import com.example.demo.event.RatingsChangedEvent;
+import com.example.demo.model.Game;
+import com.example.demo.repository.GameRepository;
+import com.example.demo.service.search.SearchTokenizer;
+
+@Service
+public class GameAutocompleteService {
+    
+    private static final int DEFAULT_LIMIT = 8;
+    private static final int MAX_LIMIT = 20;
+    
+    // Suggestions for prefixes up to this length are precomputed, longer prefixes scan a narrow key range
+    private static final int CACHED_PREFIX_LENGTH = 3;
+    
+    // Each title is reachable from the start of each of its first few words ("witcher" finds "The Witcher 3")
+    private static final int MAX_WORD_STARTS = 6;
+    
+    // SymSpell settings: deletes are generated from the first letters of each word only
+    private static final int SYMSPELL_PREFIX_LENGTH = 7;
+    private static final int MIN_FUZZY_WORD_LENGTH = 4;
+    private static final int MAX_WORD_COMPLETIONS = 64;
+    
+    private final GameRepository gameRepository;
+    
+    // Source of truth for rebuilds; the dictionary and its ranking are immutable and swapped atomically
+    private final Map<Long, Suggestion> suggestionsByGame = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> aliasesByGame = new ConcurrentHashMap<>();
+    
+    // Title and alias changes need new search keys; rating changes only re-rank the existing ones
+    private volatile boolean keysDirty = false;
+    private volatile boolean rankingDirty = false;
+    private volatile Ranking ranking = Ranking.of(
+        Dictionary.build(Collections.emptyList(), Collections.emptyMap()), Collections.emptyMap());
+    
+    public GameAutocompleteService(GameRepository gameRepository) {
+        this.gameRepository = gameRepository;
+    }
+    
+    @EventListener({ ApplicationReadyEvent.class, CatalogImportedEvent.class })
+    public void rebuild() {
+        for (Object[] row : gameRepository.findAllAutocompleteRows()) {
+            Long gameId = (Long) row[0];
+            suggestionsByGame.put(gameId, new Suggestion(gameId, (String) row[1],
+                popularity(((Number) row[2]).doubleValue(), ((Number) row[3]).intValue())));
+        }
+        
+        keysDirty = false;
+        rankingDirty = false;
+        ranking = Ranking.of(Dictionary.build(new ArrayList<>(suggestionsByGame.values()), aliasesByGame),
+            suggestionsByGame);
+    }
+    
+    @EventListener
+    public void onGameChanged(GameChangedEvent event) {
+        if (event.isDeleted()) {
+            keysDirty |= suggestionsByGame.remove(event.getGameId()) != null;
+            aliasesByGame.remove(event.getGameId());
+            return;
+        }
+        
+        Game game = event.getGame();
+        Suggestion updated = new Suggestion(game.getId(), game.getTitle(),
+            popularity(game.getAverageRating(), game.getReviewCount()));
+        Suggestion previous = suggestionsByGame.put(game.getId(), updated);
+        
+        if (previous == null || !previous.title.equals(updated.title)) {
+            keysDirty = true;
+        } else if (previous.popularity != updated.popularity) {
+            rankingDirty = true;
+        }
+    }
+    
+    // Ratings move popularity only; the titles stay as they are
+    @EventListener
+    public void onRatingsChanged(RatingsChangedEvent event) {
+        for (RatingChange change : event.getChanges()) {
+            Suggestion previous = suggestionsByGame.get(change.getGameId());
+            if (previous == null) {
+                continue;
+            }
+            Suggestion updated = new Suggestion(previous.gameId, previous.title,
+                popularity(change.getAverageRating(), change.getReviewCount()));
+            if (previous.popularity != updated.popularity) {
+                suggestionsByGame.put(change.getGameId(), updated);
+                rankingDirty = true;
+            }
+        }
+    }
+    
+    // Changes are batched into one rebuild every few seconds. Only title or alias changes pay for new
+    // keys and SymSpell deletes; rating changes re-rank the current dictionary's entries.
+    @Scheduled(fixedDelayString = "${autocomplete.rebuild-interval-ms:5000}")
+    public void rebuildIfDirty() {
+        if (keysDirty) {
+            keysDirty = false;
+            rankingDirty = false;
+            ranking = Ranking.of(Dictionary.build(new ArrayList<>(suggestionsByGame.values()), aliasesByGame),
+                suggestionsByGame);
+        } else if (rankingDirty) {
+            rankingDirty = false;
+            ranking = Ranking.of(ranking.dictionary, suggestionsByGame);
+        }
+    }
+    
+    // Extra search keys for a game, e.g. "gta 5" or "botw"
+    public void addAlias(Long gameId, String alias) {
+        String key = Dictionary.normalizeKey(alias);
+        if (!key.isEmpty()) {
+            aliasesByGame.computeIfAbsent(gameId, id -> ConcurrentHashMap.newKeySet()).add(key);
+            keysDirty = true;
+        }
+    }
+    
+    public List<Map<String, Object>> suggest(String query) {
+        return suggest(query, DEFAULT_LIMIT);
+    }
+    
+    public List<Map<String, Object>> suggest(String query, int limit) {
+        String key = Dictionary.normalizeKey(query);
+        int max = Math.max(1, Math.min(limit, MAX_LIMIT));
+        if (key.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        Ranking r = ranking;
+        Dictionary d = r.dictionary;
+        
+        // Exact prefix matches first, then typo-tolerant matches to fill up the list
+        Map<Integer, Boolean> matches = new LinkedHashMap<>();
+        for (int entry : r.prefixMatches(key, max)) {
+            matches.put(entry, false);
+        }
+        if (matches.size() < max) {
+            for (int entry : d.fuzzyMatches(key, max, r.popularity)) {
+                if (matches.size() >= max) {
+                    break;
+                }
+                matches.putIfAbsent(entry, true);
+            }
+        }
+        
+        List<Map<String, Object>> suggestions = new ArrayList<>();
+        for (Map.Entry<Integer, Boolean> match : matches.entrySet()) {
+            Map<String, Object> suggestion = new HashMap<>();
+            suggestion.put("id", d.gameIds[match.getKey()]);
+            suggestion.put("title", d.titles[match.getKey()]);
+            suggestion.put("corrected", match.getValue());
+            suggestions.add(suggestion);
+        }
+        
+        return suggestions;
+    }
+    
+    // Popularity signal used to rank suggestions sharing a prefix
+    private static float popularity(double averageRating, int reviewCount) {
+        return (float) (Math.log1p(reviewCount) * (1 + averageRating / 5.0));
+    }
+    
+    private static final class Suggestion {
+        
+        private final Long gameId;
+        private final String title;
+        private final float popularity;
+        
+        Suggestion(Long gameId, String title, float popularity) {
+            this.gameId = gameId;
+            this.title = title != null ? title : "";
+            this.popularity = popularity;
+        }
+    }
+    
+    // Popularity per dictionary entry and the ranked suggestions of every short prefix. Kept apart from the
+    // dictionary so a rating change re-ranks the same keys without regenerating the delete variants.
+    private static final class Ranking {
+        
+        private final Dictionary dictionary;
+        private final float[] popularity;
+        private final Map<String, int[]> cachedPrefixes;
+        
+        private Ranking(Dictionary dictionary, float[] popularity, Map<String, int[]> cachedPrefixes) {
+            this.dictionary = dictionary;
+            this.popularity = popularity;
+            this.cachedPrefixes = cachedPrefixes;
+        }
+        
+        static Ranking of(Dictionary dictionary, Map<Long, Suggestion> suggestions) {
+            float[] popularity = new float[dictionary.gameIds.length];
+            for (int entry = 0; entry < popularity.length; entry++) {
+                Suggestion suggestion = suggestions.get(dictionary.gameIds[entry]);
+                popularity[entry] = suggestion != null ? suggestion.popularity : 0f;
+            }
+            
+            // Precompute the ranked suggestions of every short prefix
+            String[] keys = dictionary.keys;
+            Map<String, List<Integer>> prefixCandidates = new HashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                for (int length = 1; length <= CACHED_PREFIX_LENGTH && length <= keys[i].length(); length++) {
+                    List<Integer> top = prefixCandidates.computeIfAbsent(keys[i].substring(0, length), k -> new ArrayList<>());
+                    Dictionary.offerTop(top, dictionary.keyEntries[i], popularity);
+                }
+            }
+            Map<String, int[]> cachedPrefixes = new HashMap<>();
+            prefixCandidates.forEach((prefix, top) ->
+                cachedPrefixes.put(prefix, top.stream().mapToInt(Integer::intValue).toArray()));
+            
+            return new Ranking(dictionary, popularity, cachedPrefixes);
+        }
+        
+        List<Integer> prefixMatches(String prefix, int limit) {
+            List<Integer> top = new ArrayList<>();
+            
+            if (prefix.length() <= CACHED_PREFIX_LENGTH) {
+                int[] cached = cachedPrefixes.get(prefix);
+                if (cached != null) {
+                    for (int i = 0; i < cached.length && i < limit; i++) {
+                        top.add(cached[i]);
+                    }
+                }
+                return top;
+            }
+            
+            String[] keys = dictionary.keys;
+            for (int i = Dictionary.lowerBound(keys, prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+                Dictionary.offerTop(top, dictionary.keyEntries[i], popularity);
+            }
+            return top.size() > limit ? top.subList(0, limit) : top;
+        }
+    }
+    
+    private static final class Dictionary {
+        
+        // Entries: one per game
+        private final long[] gameIds;
+        private final String[] titles;
+        
+        // Sorted search keys (titles from each word start, acronyms, aliases) pointing at entries
+        private final String[] keys;
+        private final int[] keyEntries;
+        
+        // Vocabulary for typo correction
+        private final String[] words;
+        private final int[][] wordEntries;
+        private final Map<String, int[]> deletes;
+        
+        private Dictionary(long[] gameIds, String[] titles, String[] keys, int[] keyEntries,
+                           String[] words, int[][] wordEntries, Map<String, int[]> deletes) {
+            this.gameIds = gameIds;
+            this.titles = titles;
+            this.keys = keys;
+            this.keyEntries = keyEntries;
+            this.words = words;
+            this.wordEntries = wordEntries;
+            this.deletes = deletes;
+        }
+        
+        static Dictionary build(Collection<Suggestion> suggestions, Map<Long, Set<String>> aliases) {
+            int size = suggestions.size();
+            long[] gameIds = new long[size];
+            String[] titles = new String[size];
+            
+            List<String[]> keyPairs = new ArrayList<>();
+            Map<String, List<Integer>> entriesByWord = new HashMap<>();
+            
+            int entry = 0;
+            for (Suggestion suggestion : suggestions) {
+                gameIds[entry] = suggestion.gameId;
+                titles[entry] = suggestion.title;
+                
+                String normalized = normalizeKey(suggestion.title);
+                String[] titleWords = normalized.isEmpty() ? new String[0] : normalized.split(" ");
+                
+                Set<String> entryKeys = new HashSet<>();
+                int offset = 0;
+                for (int w = 0; w < titleWords.length && w < MAX_WORD_STARTS; w++) {
+                    entryKeys.add(normalized.substring(offset));
+                    offset += titleWords[w].length() + 1;
+                }
+                if (titleWords.length > 1) {
+                    entryKeys.add(acronym(titleWords));
+                }
+                entryKeys.addAll(aliases.getOrDefault(suggestion.gameId, Collections.emptySet()));
+                
+                for (String key : entryKeys) {
+                    keyPairs.add(new String[] { key, Integer.toString(entry) });
+                }
+                for (String word : titleWords) {
+                    List<Integer> wordList = entriesByWord.computeIfAbsent(word, k -> new ArrayList<>());
+                    if (wordList.isEmpty() || wordList.get(wordList.size() - 1) != entry) {
+                        wordList.add(entry);
+                    }
+                }
+                entry++;
+            }
+            
+            keyPairs.sort((a, b) -> a[0].compareTo(b[0]));
+            String[] keys = new String[keyPairs.size()];
+            int[] keyEntries = new int[keyPairs.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = keyPairs.get(i)[0];
+                keyEntries[i] = Integer.parseInt(keyPairs.get(i)[1]);
+            }
+            
+            // Vocabulary and SymSpell delete index
+            String[] words = entriesByWord.keySet().toArray(new String[0]);
+            Arrays.sort(words);
+            int[][] wordEntries = new int[words.length][];
+            Map<String, List<Integer>> deleteLists = new HashMap<>();
+            for (int w = 0; w < words.length; w++) {
+                wordEntries[w] = entriesByWord.get(words[w]).stream().mapToInt(Integer::intValue).toArray();
+                if (words[w].length() >= MIN_FUZZY_WORD_LENGTH - 1) {
+                    for (String delete : deletesOf(words[w], maxDistance(words[w]))) {
+                        deleteLists.computeIfAbsent(delete, k -> new ArrayList<>()).add(w);
+                    }
+                }
+            }
+            Map<String, int[]> deletes = new HashMap<>();
+            deleteLists.forEach((delete, list) ->
+                deletes.put(delete, list.stream().mapToInt(Integer::intValue).toArray()));
+            
+            return new Dictionary(gameIds, titles, keys, keyEntries, words, wordEntries, deletes);
+        }
+        
+        // Ties on match cost go to the more popular entry
+        List<Integer> fuzzyMatches(String query, int limit, float[] popularity) {
+            String[] queryWords = query.split(" ");
+            
+            // entry -> summed match cost over all query words; entries must match every word
+            Map<Integer, Integer> distances = null;
+            for (int q = 0; q < queryWords.length; q++) {
+                Map<Integer, Integer> wordMatches = candidateWords(queryWords[q], q == queryWords.length - 1);
+                if (wordMatches.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                
+                Map<Integer, Integer> entryDistances = new HashMap<>();
+                wordMatches.forEach((word, distance) -> {
+                    for (int entry : wordEntries[word]) {
+                        entryDistances.merge(entry, distance, Math::min);
+                    }
+                });
+                
+                if (distances == null) {
+                    distances = entryDistances;
+                } else {
+                    Map<Integer, Integer> combined = new HashMap<>();
+                    for (Map.Entry<Integer, Integer> e : distances.entrySet()) {
+                        Integer distance = entryDistances.get(e.getKey());
+                        if (distance != null) {
+                            combined.put(e.getKey(), e.getValue() + distance);
+                        }
+                    }
+                    distances = combined;
+                }
+            }
+            
+            Map<Integer, Integer> finalDistances = distances;
+            List<Integer> ranked = new ArrayList<>(finalDistances.keySet());
+            ranked.sort((a, b) -> {
+                int cmp = Integer.compare(finalDistances.get(a), finalDistances.get(b));
+                return cmp != 0 ? cmp : Float.compare(popularity[b], popularity[a]);
+            });
+            return ranked.size() > limit ? ranked.subList(0, limit) : ranked;
+        }
+        
+        // word id -> match cost (twice the edit distance, +1 for completing a partial word) for vocabulary
+        // words the query word could stand for
+        private Map<Integer, Integer> candidateWords(String queryWord, boolean lastWord) {
+            Map<Integer, Integer> candidates = new HashMap<>();
+            
+            int exact = Arrays.binarySearch(words, queryWord);
+            if (exact >= 0) {
+                candidates.put(exact, 0);
+            }
+            
+            // The word being typed may be incomplete
+            if (lastWord) {
+                int completions = 0;
+                for (int w = lowerBound(words, queryWord);
+                     w < words.length && words[w].startsWith(queryWord) && completions < MAX_WORD_COMPLETIONS;
+                     w++, completions++) {
+                    candidates.putIfAbsent(w, 1);
+                }
+            }
+            
+            if (queryWord.length() < MIN_FUZZY_WORD_LENGTH) {
+                return candidates;
+            }
+            
+            int maxDistance = maxDistance(queryWord);
+            for (String delete : deletesOf(queryWord, maxDistance)) {
+                int[] wordIds = deletes.get(delete);
+                if (wordIds == null) {
+                    continue;
+                }
+                for (int w : wordIds) {
+                    if (candidates.containsKey(w)) {
+                        continue;
+                    }
+                    int distance = editDistance(queryWord, words[w], maxDistance);
+                    if (distance <= maxDistance) {
+                        candidates.put(w, distance * 2);
+                        continue;
+                    }
+                    
+                    // A partially typed last word is compared against the start of the candidate, ranked after whole-word matches
+                    if (lastWord && words[w].length() > queryWord.length()) {
+                        String start = words[w].substring(0, Math.min(words[w].length(), queryWord.length() + 1));
+                        distance = editDistance(queryWord, start, maxDistance);
+                        if (distance <= maxDistance) {
+                            candidates.put(w, distance * 2 + 1);
+                        }
+                    }
+                }
+            }
+            
+            return candidates;
+        }
+        
+        // Keeps the list ordered by popularity, at most MAX_LIMIT distinct entries
+        private static void offerTop(List<Integer> top, int entry, float[] popularity) {
+            if (top.contains(entry)) {
+                return;
+            }
+            if (top.size() >= MAX_LIMIT && popularity[top.get(top.size() - 1)] >= popularity[entry]) {
+                return;
+            }
+            
+            int position = top.size();
+            while (position > 0 && popularity[top.get(position - 1)] < popularity[entry]) {
+                position--;
+            }
+            top.add(position, entry);
+            if (top.size() > MAX_LIMIT) {
+                top.remove(top.size() - 1);
+            }
+        }
+        
+        private static int lowerBound(String[] sorted, String key) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sorted[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+        
+        private static int maxDistance(String word) {
+            return word.length() >= 6 ? 2 : 1;
+        }
+        
+        private static String prefixOf(String word) {
+            return word.length() > SYMSPELL_PREFIX_LENGTH ? word.substring(0, SYMSPELL_PREFIX_LENGTH) : word;
+        }
+        
+        private static Set<String> deletesOf(String word, int maxDistance) {
+            Set<String> result = new HashSet<>();
+            String prefix = prefixOf(word);
+            result.add(prefix);
+            collectDeletes(prefix, maxDistance, result);
+            return result;
+        }
+        
+        private static void collectDeletes(String word, int remaining, Set<String> result) {
+            if (remaining == 0 || word.length() <= 1) {
+                return;
+            }
+            for (int i = 0; i < word.length(); i++) {
+                String delete = word.substring(0, i) + word.substring(i + 1);
+                if (result.add(delete)) {
+                    collectDeletes(delete, remaining - 1, result);
+                }
+            }
+        }
+        
+        // Optimal string alignment distance, giving up once it exceeds max
+        private static int editDistance(String a, String b, int max) {
+            if (Math.abs(a.length() - b.length()) > max) {
+                return max + 1;
+            }
+            
+            int[][] d = new int[a.length() + 1][b.length() + 1];
+            for (int i = 0; i <= a.length(); i++) {
+                d[i][0] = i;
+            }
+            for (int j = 0; j <= b.length(); j++) {
+                d[0][j] = j;
+            }
+            
+            for (int i = 1; i <= a.length(); i++) {
+                int rowMin = Integer.MAX_VALUE;
+                for (int j = 1; j <= b.length(); j++) {
+                    int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                    d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                    if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                        d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                    }
+                    rowMin = Math.min(rowMin, d[i][j]);
+                }
+                if (rowMin > max) {
+                    return max + 1;
+                }
+            }
+            
+            return d[a.length()][b.length()];
+        }
+        
+        private static String acronym(String[] titleWords) {
+            StringBuilder sb = new StringBuilder();
+            for (String word : titleWords) {
+                sb.append(word.charAt(0));
+            }
+            return sb.toString();
+        }
+        
+        // Lowercase, accent-free, punctuation collapsed to single spaces
+        static String normalizeKey(String text) {
+            String normalized = SearchTokenizer.normalize(text);
+            StringBuilder sb = new StringBuilder(normalized.length());
+            boolean pendingSpace = false;
+            
+            for (int i = 0; i < normalized.length(); i++) {
+                char c = normalized.charAt(i);
+                if (Character.isLetterOrDigit(c)) {
+                    if (pendingSpace && sb.length() > 0) {
+                        sb.append(' ');
+                    }
+                    sb.append(c);
+                    pendingSpace = false;
+                } else {
+                    pendingSpace = true;
+                }
+            }
+            
+            return sb.toString();
+        }
+    }
+}
\ No newline at end of file
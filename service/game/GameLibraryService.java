@@ -1,16 +1,17 @@
 package com.example.demo.service.game;
 
 import java.time.LocalDateTime;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import com.example.demo.event.LibraryChangedEvent;
 import com.example.demo.model.Game;
 import com.example.demo.model.Library;
 import com.example.demo.model.User;
@@ -24,41 +25,29 @@ public class GameLibraryService {
     private final LibraryRepository libraryRepository;
     private final GameRepository gameRepository;
     private final UserRepository userRepository;
-      
+    private final ApplicationEventPublisher eventPublisher;
+    private final OwnershipIndex ownershipIndex;
+    
     public GameLibraryService(LibraryRepository libraryRepository, 
                              GameRepository gameRepository,
-                             UserRepository userRepository) {
+                             UserRepository userRepository,
+                             ApplicationEventPublisher eventPublisher,
+                             OwnershipIndex ownershipIndex) {
         this.libraryRepository = libraryRepository;
         this.gameRepository = gameRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.ownershipIndex = ownershipIndex;
     }
     
     public List<Map<String, Object>> getUserLibrary(Long userId) {
-        List<Library> libraryEntries = libraryRepository.findByUserId(userId);
-        
-        if (libraryEntries.isEmpty()) {
-            return Collections.emptyList();
-        }
-        
-        // Get all game IDs from library
-        List<Long> gameIds = libraryEntries.stream()
-            .map(library -> library.getGame().getId())
-            .collect(Collectors.toList());
-        
-        // Get all games in library
-        Map<Long, Game> gameMap = gameRepository.findAllById(gameIds).stream()
-            .collect(Collectors.toMap(Game::getId, game -> game));
-        
-        // Build response with game details and library metadata
-        return libraryEntries.stream().map(library -> {
-            Game game = gameMap.get(library.getGame().getId());
-            if (game == null) return null;
-            
+        // Library rows come back already joined with the game columns shown, in one query
+        return libraryRepository.findEntryViewsByUserId(userId).stream().map(library -> {
             Map<String, Object> entry = new HashMap<>();
             entry.put("id", library.getId());
-            entry.put("gameId", game.getId());
-            entry.put("title", game.getTitle());
-            entry.put("coverImageUrl", game.getCoverImageUrl());
+            entry.put("gameId", library.getGameId());
+            entry.put("title", library.getTitle());
+            entry.put("coverImageUrl", library.getCoverImageUrl());
             entry.put("playtime", library.getPlaytime());
             entry.put("lastPlayed", library.getLastPlayed());
             entry.put("installed", library.isInstalled());
@@ -68,70 +57,35 @@ public class GameLibraryService {
             entry.put("purchaseDate", library.getPurchaseDate());
             
             return entry;
-        }).filter(Objects::nonNull).collect(Collectors.toList());
+        }).collect(Collectors.toList());
     }
     
     public List<Map<String, Object>> getRecentlyPlayedGames(Long userId) {
-        List<Library> libraryEntries = libraryRepository.findByUserIdOrderByLastPlayedDesc(userId);
-        
-        // Get entries with lastPlayed not null
-        List<Library> recentlyPlayed = libraryEntries.stream()
-            .filter(library -> library.getLastPlayed() != null)
-            .limit(5)
-            .collect(Collectors.toList());
-        
-        // Get all game IDs from recent played
-        List<Long> gameIds = recentlyPlayed.stream()
-            .map(library -> library.getGame().getId())
-            .collect(Collectors.toList());
-        
-        // Get all games in recently played
-        Map<Long, Game> gameMap = gameRepository.findAllById(gameIds).stream()
-            .collect(Collectors.toMap(Game::getId, game -> game));
-        
-        // Build response with game details and library metadata
-        return recentlyPlayed.stream().map(library -> {
-            Game game = gameMap.get(library.getGame().getId());
-            if (game == null) return null;
-            
+        // Filtering and the limit of 5 happen in the query
+        return libraryRepository.findRecentlyPlayedViews(userId, PageRequest.of(0, 5)).stream().map(library -> {
             Map<String, Object> entry = new HashMap<>();
             entry.put("id", library.getId());
-            entry.put("gameId", game.getId());
-            entry.put("title", game.getTitle());
-            entry.put("coverImageUrl", game.getCoverImageUrl());
+            entry.put("gameId", library.getGameId());
+            entry.put("title", library.getTitle());
+            entry.put("coverImageUrl", library.getCoverImageUrl());
             entry.put("playtime", library.getPlaytime());
             entry.put("lastPlayed", library.getLastPlayed());
             
             return entry;
-        }).filter(Objects::nonNull).collect(Collectors.toList());
+        }).collect(Collectors.toList());
     }
     
     public List<Map<String, Object>> getFavoriteGames(Long userId) {
-        List<Library> favorites = libraryRepository.findFavoritesByUserId(userId);
-        
-        // Get all game IDs from favorites
-        List<Long> gameIds = favorites.stream()
-            .map(library -> library.getGame().getId())
-            .collect(Collectors.toList());
-        
-        // Get all games in favorites
-        Map<Long, Game> gameMap = gameRepository.findAllById(gameIds).stream()
-            .collect(Collectors.toMap(Game::getId, game -> game));
-        
-        // Build response with game details and library metadata
-        return favorites.stream().map(library -> {
-            Game game = gameMap.get(library.getGame().getId());
-            if (game == null) return null;
-            
+        return libraryRepository.findFavoriteViewsByUserId(userId).stream().map(library -> {
             Map<String, Object> entry = new HashMap<>();
             entry.put("id", library.getId());
-            entry.put("gameId", game.getId());
-            entry.put("title", game.getTitle());
-            entry.put("coverImageUrl", game.getCoverImageUrl());
+            entry.put("gameId", library.getGameId());
+            entry.put("title", library.getTitle());
+            entry.put("coverImageUrl", library.getCoverImageUrl());
             entry.put("playtime", library.getPlaytime());
             
             return entry;
-        }).filter(Objects::nonNull).collect(Collectors.toList());
+        }).collect(Collectors.toList());
     }
     
     public Library addGameToLibrary(Long userId, Long gameId) {
@@ -158,7 +112,9 @@ public class GameLibraryService {
         library.setFavorite(false);
         library.setHidden(false);
         
-        return libraryRepository.save(library);
+        Library saved = libraryRepository.save(library);
+        eventPublisher.publishEvent(LibraryChangedEvent.added(userId, gameId));
+        return saved;
     }
     
     public void recordGamePlay(Long userId, Long gameId, int minutes) {
@@ -206,6 +162,7 @@ public class GameLibraryService {
             .orElseThrow(() -> new IllegalArgumentException("Game not in user's library"));
         
         libraryRepository.delete(library);
+        eventPublisher.publishEvent(LibraryChangedEvent.removed(userId, gameId));
     }
     
     public int getLibrarySize(Long userId) {
@@ -217,7 +174,8 @@ public class GameLibraryService {
         return playtime != null ? playtime : 0;
     }
     
+    // Served from the cached ownership bitmap; only a user's first check after eviction queries the database
     public boolean hasGame(Long userId, Long gameId) {
-        return libraryRepository.existsByUserIdAndGameId(userId, gameId);
+        return ownershipIndex.owns(userId, gameId);
     }
 }
\ No newline at end of file
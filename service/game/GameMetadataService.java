@@ -4,16 +4,23 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.example.demo.event.GameChangedEvent;
 import com.example.demo.model.Game;
 import com.example.demo.repository.GameRepository;
+import com.example.demo.service.analytics.PopularityService;
+import com.example.demo.service.catalog.CatalogSnapshot;
+import com.example.demo.service.catalog.GameCard;
+import com.example.demo.service.catalog.SimilarGamesIndex;
+import com.example.demo.service.catalog.TopRatedIndex;
 import com.example.demo.service.integration.SteamAPIService;
 
 @Service
@@ -21,11 +28,27 @@ public class GameMetadataService {
     
     private final GameRepository gameRepository;
     private final SteamAPIService steamAPIService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogSnapshot catalogSnapshot;
+    private final TopRatedIndex topRatedIndex;
+    private final SimilarGamesIndex similarGamesIndex;
+    private final PopularityService popularityService;
     
 
-    public GameMetadataService(GameRepository gameRepository, SteamAPIService steamAPIService) {
+    public GameMetadataService(GameRepository gameRepository,
+                               SteamAPIService steamAPIService,
+                               ApplicationEventPublisher eventPublisher,
+                               CatalogSnapshot catalogSnapshot,
+                               TopRatedIndex topRatedIndex,
+                               SimilarGamesIndex similarGamesIndex,
+                               PopularityService popularityService) {
         this.gameRepository = gameRepository;
         this.steamAPIService = steamAPIService;
+        this.eventPublisher = eventPublisher;
+        this.catalogSnapshot = catalogSnapshot;
+        this.topRatedIndex = topRatedIndex;
+        this.similarGamesIndex = similarGamesIndex;
+        this.popularityService = popularityService;
     }
     
     public void updateGameMetadata(Long gameId) {
@@ -102,7 +125,8 @@ public class GameMetadataService {
         }
         
         // Save updated game
-        gameRepository.save(game);
+        Game saved = gameRepository.save(game);
+        eventPublisher.publishEvent(GameChangedEvent.saved(saved));
     }
     
     public Map<String, Object> enrichGameDetails(Map<String, Object> gameDetails) {
@@ -110,7 +134,7 @@ public class GameMetadataService {
         Long gameId = (Long) gameDetails.get("id");
         
         // Example: Add similar games
-        List<Game> similarGames = findSimilarGames(gameId);
+        List<GameCard> similarGames = findSimilarGames(gameId);
         List<Map<String, Object>> similarGamesList = similarGames.stream()
             .map(game -> {
                 Map<String, Object> data = new HashMap<>();
@@ -124,39 +148,37 @@ public class GameMetadataService {
         gameDetails.put("similarGames", similarGamesList);
         
         // Add popularity score
-        gameDetails.put("popularityScore", calculatePopularityScore(gameId));
+        gameDetails.put("popularityScore", popularityService.getScaledScore(gameId));
         
         return gameDetails;
     }
     
-    private List<Game> findSimilarGames(Long gameId) {
-        Game game = gameRepository.findById(gameId)
+    private List<GameCard> findSimilarGames(Long gameId) {
+        GameCard game = catalogSnapshot.find(gameId)
             .orElseThrow(() -> new IllegalArgumentException("Game not found"));
         
-        // Get primary genre for the game
-        List<String> genres = game.getGenres();
-        if (genres == null || genres.isEmpty()) {
-            return Collections.emptyList();
+        List<Long> similarIds;
+        if (similarGamesIndex.isReady()) {
+            // Precomputed nearest neighbours over genres, tags and developer
+            similarIds = similarGamesIndex.similarTo(gameId, 5);
+        } else {
+            // Get primary genre for the game
+            List<String> genres = game.getGenres();
+            if (genres == null || genres.isEmpty()) {
+                return Collections.emptyList();
+            }
+            
+            String primaryGenre = genres.get(0);
+            
+            // Best rated games in the same genre, excluding this game, limited to 5
+            similarIds = topRatedIndex.topRatedByGenre(primaryGenre, 5, Set.of(gameId));
         }
+        Map<Long, GameCard> cards = catalogSnapshot.getCards(similarIds);
         
-        String primaryGenre = genres.get(0);
-        
-        // Find games in the same genre, excluding this game
-        Page<Game> genreGames = gameRepository.findByGenre(
-            primaryGenre, 
-            org.springframework.data.domain.PageRequest.of(0, 6)
-        );
-        
-        // Filter out the current game and limit to 5 similar games
-        return genreGames.stream()
-            .filter(g -> !g.getId().equals(gameId))
-            .limit(5)
+        return similarIds.stream()
+            .map(cards::get)
+            .filter(Objects::nonNull)
             .collect(Collectors.toList());
     }
     
-    private int calculatePopularityScore(@SuppressWarnings("unused") Long gameId) {
-        // This would be based on various factors like sales, playtime, etc.
-        // For now, we'll return a random score between 1-100
-        return new Random().nextInt(100) + 1;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.example.demo.service.game;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.event.LibraryChangedEvent;
+import com.example.demo.util.StreamingQuery;
+import com.example.demo.util.UserBitmapIndex;
+
+// Owning user ids per game as compressed bitmaps, for questions like "which of these users own this game".
+// Built from libraries at startup and nightly, kept current from library events in between.
+@Service
+public class GameOwnersIndex {
+    
+    private static final String OWNERS_SQL = "SELECT game_id, user_id FROM libraries";
+    
+    private final UserBitmapIndex<LibraryChangedEvent> owners;
+    
+    public GameOwnersIndex(StreamingQuery streamingQuery) {
+        this.owners = new UserBitmapIndex<>(streamingQuery, OWNERS_SQL,
+            LibraryChangedEvent::getGameId, LibraryChangedEvent::getUserId, LibraryChangedEvent::isRemoved);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 30 5 * * ?") // Run at 5:30 AM every day
+    public void rebuild() {
+        try {
+            owners.rebuild();
+        } catch (RuntimeException e) {
+            System.err.println("Error building game owners index: " + e.getMessage());
+        }
+    }
+    
+    public boolean isReady() {
+        return owners.isReady();
+    }
+    
+    // The users in candidates that own the game, as a new bitmap; null until the index has been built
+    public RoaringBitmap ownersAmong(Long gameId, RoaringBitmap candidates) {
+        return owners.usersAmong(gameId, candidates);
+    }
+    
+    public int countOwners(Long gameId) {
+        return owners.countUsers(gameId);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLibraryChanged(LibraryChangedEvent event) {
+        owners.onChanged(event);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,431 @@
+package com.example.demo.service.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.catalog.TopRatedIndex;
+import com.example.demo.util.StreamingQuery;
+
+// Item-item collaborative filtering over library co-ownership, weighted by playtime.
+// Neighbour lists are built in a nightly batch; a recommendation only reads the user's library and those lists.
+@Service
+public class GameRecommender {
+    
+    private static final int NEIGHBOURS = 50;
+    
+    // Libraries beyond this many games only contribute their most played ones, which bounds the pair count
+    private static final int MAX_ITEMS_PER_USER = 500;
+    
+    // Owned games used as seeds at request time, most played first
+    private static final int MAX_SEEDS = 200;
+    
+    // Pairs co-owned by only a handful of users are shrunk towards zero
+    private static final float SHRINKAGE = 10f;
+    
+    private static final String LIBRARY_ROWS_SQL =
+        "SELECT user_id, game_id, playtime FROM libraries ORDER BY user_id";
+    
+    private static final String USER_LIBRARY_SQL =
+        "SELECT game_id, playtime FROM libraries WHERE user_id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final StreamingQuery streamingQuery;
+    private final TopRatedIndex topRatedIndex;
+    
+    private volatile Model model = null;
+    
+    public GameRecommender(JdbcTemplate jdbcTemplate,
+                           StreamingQuery streamingQuery,
+                           TopRatedIndex topRatedIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingQuery = streamingQuery;
+        this.topRatedIndex = topRatedIndex;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 5 * * ?") // Run at 5 AM every day
+    public synchronized void rebuild() {
+        try {
+            model = build(readLibraries());
+        } catch (RuntimeException e) {
+            System.err.println("Error building recommendations: " + e.getMessage());
+        }
+    }
+    
+    public boolean isReady() {
+        return model != null;
+    }
+    
+    // Games the user doesn't own, best first; topped up with top rated games for thin or empty libraries
+    public List<Long> recommend(Long userId, int limit) {
+        Map<Long, Float> owned = new HashMap<>();
+        jdbcTemplate.query(USER_LIBRARY_SQL, rs -> {
+            owned.put(rs.getLong(1), weight(rs.getInt(2)));
+        }, userId);
+        
+        List<Long> recommended = new ArrayList<>(limit);
+        Model current = model;
+        if (current != null && !owned.isEmpty()) {
+            recommended.addAll(current.score(owned, limit));
+        }
+        
+        if (recommended.size() < limit) {
+            Set<Long> excluded = new HashSet<>(owned.keySet());
+            excluded.addAll(recommended);
+            for (Long gameId : topRatedIndex.topRated(limit + excluded.size())) {
+                if (recommended.size() >= limit) {
+                    break;
+                }
+                if (!excluded.contains(gameId)) {
+                    recommended.add(gameId);
+                }
+            }
+        }
+        return recommended;
+    }
+    
+    // Owning a game counts 1, each doubling of hours played adds roughly the same again
+    private static float weight(int playtimeMinutes) {
+        return 1f + (float) Math.log1p(Math.max(playtimeMinutes, 0) / 60.0);
+    }
+    
+    // Streams libraries grouped by user into compressed rows: userOffsets[u]..userOffsets[u+1] index items/weights
+    private Libraries readLibraries() {
+        Libraries libraries = new Libraries();
+        streamingQuery.query(LIBRARY_ROWS_SQL, rs -> {
+            libraries.add(rs.getLong(1), rs.getLong(2), weight(rs.getInt(3)));
+        });
+        libraries.finish();
+        return libraries;
+    }
+    
+    private static Model build(Libraries libraries) {
+        int gameCount = libraries.gameIds.size();
+        int[] userOffsets = libraries.userOffsets.toArray();
+        int[] userItems = libraries.items.toArray();
+        float[] userWeights = libraries.weights.toArray();
+        int userCount = userOffsets.length - 1;
+        
+        // Transpose into item columns: the users owning each game, with their weights
+        int[] itemOffsets = new int[gameCount + 1];
+        for (int item : userItems) {
+            itemOffsets[item + 1]++;
+        }
+        for (int i = 0; i < gameCount; i++) {
+            itemOffsets[i + 1] += itemOffsets[i];
+        }
+        int[] itemUsers = new int[userItems.length];
+        float[] itemWeights = new float[userItems.length];
+        int[] fill = Arrays.copyOf(itemOffsets, gameCount);
+        double[] squaredNorms = new double[gameCount];
+        for (int u = 0; u < userCount; u++) {
+            for (int p = userOffsets[u]; p < userOffsets[u + 1]; p++) {
+                int item = userItems[p];
+                itemUsers[fill[item]] = u;
+                itemWeights[fill[item]++] = userWeights[p];
+                squaredNorms[item] += (double) userWeights[p] * userWeights[p];
+            }
+        }
+        float[] norms = new float[gameCount];
+        for (int i = 0; i < gameCount; i++) {
+            norms[i] = (float) Math.sqrt(squaredNorms[i]);
+        }
+        
+        // Per-thread accumulators indexed by game: weighted dot product and co-owner count
+        ThreadLocal<float[]> dotScratch = ThreadLocal.withInitial(() -> new float[gameCount]);
+        ThreadLocal<int[]> countScratch = ThreadLocal.withInitial(() -> new int[gameCount]);
+        ThreadLocal<int[]> touchedScratch = ThreadLocal.withInitial(() -> new int[gameCount]);
+        
+        int[][] neighbours = new int[gameCount][];
+        float[][] similarities = new float[gameCount][];
+        IntStream.range(0, gameCount).parallel().forEach(i -> {
+            float[] dots = dotScratch.get();
+            int[] counts = countScratch.get();
+            int[] touched = touchedScratch.get();
+            int touchedCount = 0;
+            
+            for (int p = itemOffsets[i]; p < itemOffsets[i + 1]; p++) {
+                int u = itemUsers[p];
+                float wi = itemWeights[p];
+                for (int q = userOffsets[u]; q < userOffsets[u + 1]; q++) {
+                    int j = userItems[q];
+                    if (j == i) {
+                        continue;
+                    }
+                    if (counts[j] == 0) {
+                        touched[touchedCount++] = j;
+                    }
+                    dots[j] += wi * userWeights[q];
+                    counts[j]++;
+                }
+            }
+            
+            TopK top = new TopK(NEIGHBOURS);
+            for (int k = 0; k < touchedCount; k++) {
+                int j = touched[k];
+                float cosine = dots[j] / (norms[i] * norms[j]);
+                top.offer(j, cosine * counts[j] / (counts[j] + SHRINKAGE));
+                dots[j] = 0;
+                counts[j] = 0;
+            }
+            neighbours[i] = top.items();
+            similarities[i] = top.scores();
+        });
+        
+        return new Model(libraries.gameIds.toArray(), libraries.gameIndex, neighbours, similarities);
+    }
+    
+    private static final class Model {
+        
+        private final long[] gameIds;
+        private final Map<Long, Integer> gameIndex;
+        private final int[][] neighbours;
+        private final float[][] similarities;
+        
+        Model(long[] gameIds, Map<Long, Integer> gameIndex, int[][] neighbours, float[][] similarities) {
+            this.gameIds = gameIds;
+            this.gameIndex = gameIndex;
+            this.neighbours = neighbours;
+            this.similarities = similarities;
+        }
+        
+        // Sum of seed weight times similarity over the neighbour lists of the user's games
+        List<Long> score(Map<Long, Float> owned, int limit) {
+            List<Map.Entry<Long, Float>> seeds = new ArrayList<>(owned.entrySet());
+            if (seeds.size() > MAX_SEEDS) {
+                seeds.sort(Map.Entry.<Long, Float>comparingByValue().reversed());
+                seeds = seeds.subList(0, MAX_SEEDS);
+            }
+            
+            Set<Integer> ownedItems = new HashSet<>();
+            for (Long gameId : owned.keySet()) {
+                Integer item = gameIndex.get(gameId);
+                if (item != null) {
+                    ownedItems.add(item);
+                }
+            }
+            
+            Map<Integer, Float> scores = new HashMap<>();
+            for (Map.Entry<Long, Float> seed : seeds) {
+                Integer item = gameIndex.get(seed.getKey());
+                if (item == null) {
+                    continue;
+                }
+                int[] items = neighbours[item];
+                float[] sims = similarities[item];
+                for (int k = 0; k < items.length; k++) {
+                    if (!ownedItems.contains(items[k])) {
+                        scores.merge(items[k], seed.getValue() * sims[k], Float::sum);
+                    }
+                }
+            }
+            
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+            
+            TopK top = new TopK(limit);
+            scores.forEach(top::offer);
+            List<Long> result = new ArrayList<>(limit);
+            for (int item : top.items()) {
+                result.add(gameIds[item]);
+            }
+            return result;
+        }
+    }
+    
+    // Library rows accumulated user by user; each user's games are capped before being appended
+    private static final class Libraries {
+        
+        private final Map<Long, Integer> gameIndex = new HashMap<>();
+        private final LongList gameIds = new LongList();
+        private final IntList userOffsets = new IntList();
+        private final IntList items = new IntList();
+        private final FloatList weights = new FloatList();
+        
+        private long currentUser = Long.MIN_VALUE;
+        private final IntList userItems = new IntList();
+        private final FloatList userWeights = new FloatList();
+        
+        Libraries() {
+            userOffsets.add(0);
+        }
+        
+        void add(long userId, long gameId, float weight) {
+            if (userId != currentUser) {
+                flushUser();
+                currentUser = userId;
+            }
+            Integer item = gameIndex.get(gameId);
+            if (item == null) {
+                item = gameIds.size();
+                gameIndex.put(gameId, item);
+                gameIds.add(gameId);
+            }
+            userItems.add(item);
+            userWeights.add(weight);
+        }
+        
+        void finish() {
+            flushUser();
+        }
+        
+        private void flushUser() {
+            int size = userItems.size();
+            if (size == 0) {
+                return;
+            }
+            
+            if (size <= MAX_ITEMS_PER_USER) {
+                for (int k = 0; k < size; k++) {
+                    items.add(userItems.get(k));
+                    weights.add(userWeights.get(k));
+                }
+            } else {
+                TopK top = new TopK(MAX_ITEMS_PER_USER);
+                for (int k = 0; k < size; k++) {
+                    top.offer(userItems.get(k), userWeights.get(k));
+                }
+                int[] kept = top.items();
+                float[] keptWeights = top.scores();
+                for (int k = 0; k < kept.length; k++) {
+                    items.add(kept[k]);
+                    weights.add(keptWeights[k]);
+                }
+            }
+            userOffsets.add(items.size());
+            userItems.clear();
+            userWeights.clear();
+        }
+    }
+    
+    // Bounded best-first list of dense item indexes; ties go to the lower index
+    private static final class TopK {
+        
+        private final int[] items;
+        private final float[] scores;
+        private int size = 0;
+        
+        TopK(int capacity) {
+            this.items = new int[capacity];
+            this.scores = new float[capacity];
+        }
+        
+        void offer(int item, float score) {
+            if (items.length == 0
+                    || (size == items.length && !ranksBefore(item, score, items[size - 1], scores[size - 1]))) {
+                return;
+            }
+            
+            int position = size < items.length ? size++ : size - 1;
+            while (position > 0 && ranksBefore(item, score, items[position - 1], scores[position - 1])) {
+                items[position] = items[position - 1];
+                scores[position] = scores[position - 1];
+                position--;
+            }
+            items[position] = item;
+            scores[position] = score;
+        }
+        
+        int[] items() {
+            return Arrays.copyOf(items, size);
+        }
+        
+        float[] scores() {
+            return Arrays.copyOf(scores, size);
+        }
+        
+        private static boolean ranksBefore(int item, float score, int otherItem, float otherScore) {
+            return score > otherScore || (score == otherScore && item < otherItem);
+        }
+    }
+    
+    // Growable primitive arrays, so millions of library rows don't become millions of boxed objects
+    private static final class IntList {
+        
+        private int[] values = new int[1024];
+        private int size = 0;
+        
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        int get(int index) {
+            return values[index];
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        void clear() {
+            size = 0;
+        }
+        
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+    
+    private static final class LongList {
+        
+        private long[] values = new long[1024];
+        private int size = 0;
+        
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+    
+    private static final class FloatList {
+        
+        private float[] values = new float[1024];
+        private int size = 0;
+        
+        void add(float value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        float get(int index) {
+            return values[index];
+        }
+        
+        void clear() {
+            size = 0;
+        }
+        
+        float[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
\ No newline at end of file
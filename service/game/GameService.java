@@ -1,54 +1,205 @@
 package com.example.demo.service.game;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import com.example.demo.dto.CursorPage;
+import com.example.demo.event.GameChangedEvent;
 import com.example.demo.model.Game;
 import com.example.demo.repository.GameRepository;
+import com.example.demo.service.catalog.CatalogSnapshot;
+import com.example.demo.service.catalog.GameCard;
+import com.example.demo.service.catalog.TopRatedIndex;
+import com.example.demo.service.search.FacetQuery;
+import com.example.demo.service.search.GameFacetIndex;
+import com.example.demo.service.search.GameSearchIndex;
+import com.example.demo.util.CursorCodec;
 
 
 @Service
 public class GameService {
     
-    private final GameRepository gameRepository;
+    // Sort properties the facet path can order by from the catalog snapshot
+    @SuppressWarnings("rawtypes")
+    private static final Map<String, Function<GameCard, Comparable>> SORT_KEYS = new HashMap<>();
+    
+    static {
+        SORT_KEYS.put("id", GameCard::getId);
+        SORT_KEYS.put("title", GameCard::getTitle);
+        SORT_KEYS.put("developer", GameCard::getDeveloper);
+        SORT_KEYS.put("publisher", GameCard::getPublisher);
+        SORT_KEYS.put("releaseDate", GameCard::getReleaseDate);
+        SORT_KEYS.put("price", GameCard::getPrice);
+        SORT_KEYS.put("salePrice", GameCard::getSalePrice);
+        SORT_KEYS.put("onSale", GameCard::isOnSale);
+        SORT_KEYS.put("averageRating", GameCard::getAverageRating);
+        SORT_KEYS.put("reviewCount", GameCard::getReviewCount);
+        SORT_KEYS.put("featured", GameCard::isFeatured);
+    }
     
+    private final GameRepository gameRepository;
+    private final GameSearchIndex gameSearchIndex;
+    private final GameFacetIndex gameFacetIndex;
+    private final CatalogSnapshot catalogSnapshot;
+    private final TopRatedIndex topRatedIndex;
+    private final RatingAggregator ratingAggregator;
+    private final RecommendationCache recommendationCache;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public GameService(GameRepository gameRepository) {
+    public GameService(GameRepository gameRepository,
+                       GameSearchIndex gameSearchIndex,
+                       GameFacetIndex gameFacetIndex,
+                       CatalogSnapshot catalogSnapshot,
+                       TopRatedIndex topRatedIndex,
+                       RatingAggregator ratingAggregator,
+                       RecommendationCache recommendationCache,
+                       ApplicationEventPublisher eventPublisher) {
         this.gameRepository = gameRepository;
+        this.gameSearchIndex = gameSearchIndex;
+        this.gameFacetIndex = gameFacetIndex;
+        this.catalogSnapshot = catalogSnapshot;
+        this.topRatedIndex = topRatedIndex;
+        this.ratingAggregator = ratingAggregator;
+        this.recommendationCache = recommendationCache;
+        this.eventPublisher = eventPublisher;
     }
     
     public Page<Game> getAllGames(Pageable pageable) {
         return gameRepository.findAll(pageable);
     }
     
+    // Seek pagination: constant cost per page however deep the client scrolls
+    public CursorPage<Game> getAllGames(String cursor, int size, boolean includeTotal) {
+        int pageSize = CursorPage.pageSize(size);
+        PageRequest lookahead = PageRequest.of(0, pageSize + 1);
+        
+        List<Game> fetched = cursor == null || cursor.isBlank()
+            ? gameRepository.findFirstPageById(lookahead)
+            : gameRepository.findPageAfterId(CursorCodec.decodeLong(cursor), lookahead);
+        
+        return CursorPage.fromLookahead(fetched, pageSize, game -> CursorCodec.encode(game.getId()),
+            includeTotal ? gameRepository.count() : null);
+    }
+    
     public Optional<Game> getGameById(Long id) {
         return gameRepository.findById(id);
     }
     
     public Game saveGame(Game game) {
-        return gameRepository.save(game);
+        Game saved = gameRepository.save(game);
+        eventPublisher.publishEvent(GameChangedEvent.saved(saved));
+        return saved;
     }
     
     public void deleteGame(Long id) {
         gameRepository.deleteById(id);
+        eventPublisher.publishEvent(GameChangedEvent.deleted(id));
     }
     
     public Page<Game> searchGames(String query, Pageable pageable) {
-        return gameRepository.findByTitleContainingIgnoreCase(query, pageable);
+        // Fall back to the database until the index has been built at startup
+        if (query == null || query.isBlank() || !gameSearchIndex.isReady()) {
+            return gameRepository.findByTitleContainingIgnoreCase(query, pageable);
+        }
+        
+        int offset = pageable.isPaged() ? (int) pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        GameSearchIndex.SearchResult result = gameSearchIndex.search(query, offset, limit);
+        
+        // Only the requested page is loaded from the database, in ranked order
+        return new PageImpl<>(loadInOrder(result.getGameIds()), pageable, result.getTotalHits());
     }
     
     public Page<Game> getGamesByGenre(String genre, Pageable pageable) {
-        return gameRepository.findByGenre(genre, pageable);
+        if (!canUseFacetIndex(pageable)) {
+            return gameRepository.findByGenre(genre, pageable);
+        }
+        return filterGames(FacetQuery.forGenre(genre), pageable);
     }
     
     public Page<Game> getGamesByTag(String tag, Pageable pageable) {
-        return gameRepository.findByTag(tag, pageable);
+        if (!canUseFacetIndex(pageable)) {
+            return gameRepository.findByTag(tag, pageable);
+        }
+        return filterGames(FacetQuery.forTag(tag), pageable);
+    }
+    
+    public Page<Game> filterGames(FacetQuery query, Pageable pageable) {
+        int offset = pageable.isPaged() ? (int) pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        if (pageable.getSort().isUnsorted()) {
+            GameFacetIndex.FacetResult result = gameFacetIndex.query(query, offset, limit);
+            return new PageImpl<>(loadInOrder(result.getGameIds()), pageable, result.getTotalHits());
+        }
+        
+        Comparator<GameCard> order = comparatorFor(pageable.getSort());
+        if (order == null) {
+            throw new IllegalArgumentException("Unsupported sort");
+        }
+        
+        // The index pages by ascending id, so a sorted request orders every match before cutting the page
+        GameFacetIndex.FacetResult result = gameFacetIndex.query(query, 0, Integer.MAX_VALUE);
+        List<GameCard> matches = new ArrayList<>(catalogSnapshot.getCards(result.getGameIds()).values());
+        matches.sort(order);
+        
+        List<Long> pageIds = matches.stream()
+            .skip(offset)
+            .limit(limit)
+            .map(GameCard::getId)
+            .collect(Collectors.toList());
+        return new PageImpl<>(loadInOrder(pageIds), pageable, result.getTotalHits());
+    }
+    
+    // Both paths filter the same way; the database is only used until the index is built,
+    // or for a sort on a property the snapshot doesn't carry
+    private boolean canUseFacetIndex(Pageable pageable) {
+        return gameFacetIndex.isReady() && pageable != null
+            && (pageable.getSort().isUnsorted() || comparatorFor(pageable.getSort()) != null);
+    }
+    
+    // Null if any property can't be sorted in memory; ties fall back to ascending id like the index
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static Comparator<GameCard> comparatorFor(Sort sort) {
+        Comparator<GameCard> comparator = null;
+        for (Sort.Order order : sort) {
+            Function<GameCard, Comparable> key = SORT_KEYS.get(order.getProperty());
+            if (key == null) {
+                return null;
+            }
+            Comparator<GameCard> next = Comparator.comparing(key, Comparator.nullsLast(Comparator.naturalOrder()));
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator == null ? Comparator.comparing(GameCard::getId) : comparator.thenComparing(GameCard::getId);
+    }
+    
+    private List<Game> loadInOrder(List<Long> gameIds) {
+        Map<Long, Game> gameMap = new HashMap<>();
+        for (Game game : gameRepository.findAllById(gameIds)) {
+            gameMap.put(game.getId(), game);
+        }
+        
+        return gameIds.stream()
+            .map(gameMap::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
     }
     
     public List<Game> getFeaturedGames() {
@@ -64,17 +215,16 @@ public class GameService {
     }
     
     public List<Game> getTopRatedGames(int limit) {
-        return gameRepository.findTopRated(org.springframework.data.domain.PageRequest.of(0, limit));
+        return loadInOrder(topRatedIndex.topRated(limit));
     }
     
     public List<Game> getTopRatedByGenre(String genre, int limit) {
-        return gameRepository.findTopRatedByGenre(genre, org.springframework.data.domain.PageRequest.of(0, limit));
+        return loadInOrder(topRatedIndex.topRatedByGenre(genre, limit));
     }
     
+    // Item-item recommendations from co-owned games, excluding games the user already owns
     public List<Game> getRecommendedGames(Long userId, int limit) {
-        // This would typically use a recommendation algorithm based on user preferences
-        // For now, we'll return top rated games
-        return getTopRatedGames(limit);
+        return loadInOrder(recommendationCache.getRecommendations(userId, limit));
     }
     
     public Map<String, Object> getSystemRequirements(Long gameId) {
@@ -120,20 +270,13 @@ public class GameService {
         }
     }
     
+    // Buffered in memory and written in batches, see RatingAggregator
     public void updateGameRating(Long gameId, double rating) {
-        Game game = gameRepository.findById(gameId)
-            .orElseThrow(() -> new IllegalArgumentException("Game not found"));
-        
-        // Update average rating
-        double currentRating = game.getAverageRating();
-        int reviewCount = game.getReviewCount();
-        
-        double newRating = ((currentRating * reviewCount) + rating) / (reviewCount + 1);
-        
-        game.setAverageRating(newRating);
-        game.setReviewCount(reviewCount + 1);
-        
-        gameRepository.save(game);
+        ratingAggregator.record(gameId, rating);
+    }
+    
+    public Map<String, Object> getGameRating(Long gameId) {
+        return ratingAggregator.getRating(gameId);
     }
     
     public void setGameOnSale(Long gameId, double salePrice, boolean onSale) {
@@ -143,7 +286,7 @@ public class GameService {
         game.setSalePrice(salePrice);
         game.setOnSale(onSale);
         
-        gameRepository.save(game);
+        eventPublisher.publishEvent(GameChangedEvent.saved(gameRepository.save(game)));
     }
     
     public void addGameGenre(Long gameId, String genre) {
@@ -154,7 +297,7 @@ public class GameService {
         if (!genres.contains(genre)) {
             genres.add(genre);
             game.setGenres(genres);
-            gameRepository.save(game);
+            eventPublisher.publishEvent(GameChangedEvent.saved(gameRepository.save(game)));
         }
     }
     
@@ -166,7 +309,7 @@ public class GameService {
         if (!tags.contains(tag)) {
             tags.add(tag);
             game.setTags(tags);
-            gameRepository.save(game);
+            eventPublisher.publishEvent(GameChangedEvent.saved(gameRepository.save(game)));
         }
     }
     
@@ -178,15 +321,27 @@ public class GameService {
         if (!screenshots.contains(screenshotUrl)) {
             screenshots.add(screenshotUrl);
             game.setScreenshots(screenshots);
-            gameRepository.save(game);
+            eventPublisher.publishEvent(GameChangedEvent.saved(gameRepository.save(game)));
         }
     }
     
     public Page<Game> getGamesByMaxPrice(double maxPrice, Pageable pageable) {
-        return gameRepository.findByMaxPrice(maxPrice, pageable);
+        if (!canUseFacetIndex(pageable)) {
+            return gameRepository.findByMaxPrice(maxPrice, pageable);
+        }
+        
+        FacetQuery query = new FacetQuery();
+        query.setMaxPrice(maxPrice);
+        return filterGames(query, pageable);
     }
     
     public Page<Game> getGamesByGenreAndMaxPrice(String genre, double maxPrice, Pageable pageable) {
-        return gameRepository.findByGenreAndMaxPrice(genre, maxPrice, pageable);
+        if (!canUseFacetIndex(pageable)) {
+            return gameRepository.findByGenreAndMaxPrice(genre, maxPrice, pageable);
+        }
+        
+        FacetQuery query = FacetQuery.forGenre(genre);
+        query.setMaxPrice(maxPrice);
+        return filterGames(query, pageable);
     }
 }
\ No newline at end of file
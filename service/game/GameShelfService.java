@@ -12,26 +12,33 @@ import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 
+import com.example.demo.dto.LibraryEntryView;
 import com.example.demo.model.Game;
 import com.example.demo.model.Library;
 import com.example.demo.repository.GameRepository;
 import com.example.demo.repository.LibraryRepository;
+import com.example.demo.service.catalog.CatalogSnapshot;
+import com.example.demo.service.catalog.GameCard;
 
 @Service
 public class GameShelfService {
     
     private final LibraryRepository libraryRepository;
     private final GameRepository gameRepository;
+    private final CatalogSnapshot catalogSnapshot;
     
 
-    public GameShelfService(LibraryRepository libraryRepository, GameRepository gameRepository) {
+    public GameShelfService(LibraryRepository libraryRepository, GameRepository gameRepository,
+                            CatalogSnapshot catalogSnapshot) {
         this.libraryRepository = libraryRepository;
         this.gameRepository = gameRepository;
+        this.catalogSnapshot = catalogSnapshot;
     }
     
     public Map<String, Object> getUserGameShelf(Long userId) {
         // Get user's library
-        List<Library> libraryEntries = libraryRepository.findByUserIdOrderByLastPlayedDesc(userId);
+        // Only the library columns the shelf shows; titles, covers and genres come from the catalog snapshot
+        List<LibraryEntryView> libraryEntries = libraryRepository.findEntryViewsByUserIdOrderByLastPlayedDesc(userId);
         
         if (libraryEntries.isEmpty()) {
             return new HashMap<>();
@@ -39,14 +46,11 @@ public class GameShelfService {
         
         // Get all games in the library
         List<Long> gameIds = libraryEntries.stream()
-            .map(Library::getGameId)
+            .map(LibraryEntryView::getGameId)
             .collect(Collectors.toList());
         
-        List<Game> games = gameRepository.findAllById(gameIds);
-        
         // Map games to their library entries
-        Map<Long, Game> gameMap = games.stream()
-            .collect(Collectors.toMap(Game::getId, game -> game));
+        Map<Long, GameCard> gameMap = catalogSnapshot.getCards(gameIds);
         
         // Create 3D shelf representation
         Map<String, Object> shelfData = new HashMap<>();
@@ -54,8 +58,8 @@ public class GameShelfService {
         // Create shelves by category/genre
         Map<String, List<Map<String, Object>>> shelvesByGenre = new HashMap<>();
         
-        for (Library entry : libraryEntries) {
-            Game game = gameMap.get(entry.getGameId());
+        for (LibraryEntryView entry : libraryEntries) {
+            GameCard game = gameMap.get(entry.getGameId());
             if (game == null) continue;
             
             String primaryGenre = getPrimaryGenre(game);
@@ -91,10 +95,10 @@ public class GameShelfService {
         // Add recently played section
         List<Map<String, Object>> recentlyPlayed = libraryEntries.stream()
             .filter(entry -> entry.getLastPlayed() != null)
-            .sorted(Comparator.comparing(Library::getLastPlayed).reversed())
+            .sorted(Comparator.comparing(LibraryEntryView::getLastPlayed).reversed())
             .limit(5)
             .map(entry -> {
-                Game game = gameMap.get(entry.getGameId());
+                GameCard game = gameMap.get(entry.getGameId());
                 if (game == null) return null;
                 
                 Map<String, Object> gameObj = new HashMap<>();
@@ -112,9 +116,9 @@ public class GameShelfService {
         
         // Add favorite section
         List<Map<String, Object>> favorites = libraryEntries.stream()
-            .filter(Library::isFavorite)
+            .filter(LibraryEntryView::isFavorite)
             .map(entry -> {
-                Game game = gameMap.get(entry.getGameId());
+                GameCard game = gameMap.get(entry.getGameId());
                 if (game == null) return null;
                 
                 Map<String, Object> gameObj = new HashMap<>();
@@ -135,7 +139,7 @@ public class GameShelfService {
         return shelfData;
     }
     
-    private String getPrimaryGenre(Game game) {
+    private String getPrimaryGenre(GameCard game) {
         // Assuming game.getGenres() returns a list or array of genres
         List<String> genres = game.getGenres();
         if (genres == null || genres.isEmpty()) {
@@ -0,0 +1,114 @@
+package com.example.demo.service.game;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.event.LibraryChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+// Owned game ids per active user as compressed bitmaps, loaded on first use and patched from library events.
+// Bounded by an estimate of bitmap bytes, so a few huge libraries push out many small ones rather than growing the heap.
+@Service
+public class OwnershipIndex {
+    
+    private static final String LOAD_SQL = "SELECT game_id FROM libraries WHERE user_id = ?";
+    
+    // Entry overhead on top of the bitmap itself: key, node, bitmap header
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    // Bitmaps are never modified once cached: updates swap in a patched copy, so readers need no locking
+    private final Cache<Long, RoaringBitmap> cache;
+    
+    public OwnershipIndex(JdbcTemplate jdbcTemplate,
+                          @Value("${ownership.cache.max-bytes:67108864}") long maxBytes,
+                          @Value("${ownership.cache.idle-minutes:60}") long idleMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher((Long userId, RoaringBitmap owned) -> ENTRY_OVERHEAD_BYTES + (int) owned.getLongSizeInBytes())
+            .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+            .recordStats()
+            .build();
+    }
+    
+    public boolean owns(Long userId, Long gameId) {
+        if (userId == null || gameId == null) {
+            return false;
+        }
+        // Game ids come from a sequence and stay well inside int range
+        return owned(userId).contains(Math.toIntExact(gameId));
+    }
+    
+    public int countOwned(Long userId) {
+        return owned(userId).getCardinality();
+    }
+    
+    // Ascending game ids
+    public List<Long> getOwnedGameIds(Long userId) {
+        RoaringBitmap owned = owned(userId);
+        List<Long> gameIds = new ArrayList<>(owned.getCardinality());
+        owned.forEach((int gameId) -> gameIds.add((long) gameId));
+        return gameIds;
+    }
+    
+    // After commit, so a load racing the purchase either sees the row or gets patched right after.
+    // A load still in flight finishes before the patch is applied to it.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLibraryChanged(LibraryChangedEvent event) {
+        int gameId = Math.toIntExact(event.getGameId());
+        cache.asMap().computeIfPresent(event.getUserId(), (userId, owned) -> {
+            if (owned.contains(gameId) != event.isRemoved()) {
+                return owned;
+            }
+            RoaringBitmap patched = owned.clone();
+            if (event.isRemoved()) {
+                patched.remove(gameId);
+            } else {
+                patched.add(gameId);
+            }
+            patched.runOptimize();
+            return patched;
+        });
+    }
+    
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+    }
+    
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("users", cache.estimatedSize());
+        result.put("bytes", cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L));
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+    
+    // Concurrent misses for the same user run one query
+    private RoaringBitmap owned(Long userId) {
+        return cache.get(userId, this::load);
+    }
+    
+    private RoaringBitmap load(Long userId) {
+        RoaringBitmap owned = new RoaringBitmap();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            owned.add(Math.toIntExact(rs.getLong(1)));
+        }, userId);
+        owned.runOptimize();
+        return owned;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.example.demo.service.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.dto.RatingChange;
+import com.example.demo.event.RatingsChangedEvent;
+import com.example.demo.service.catalog.CatalogSnapshot;
+import com.example.demo.service.catalog.GameCard;
+
+import jakarta.annotation.PreDestroy;
+
+// Buffers incoming ratings in striped counters and folds them into games in periodic batches
+@Service
+public class RatingAggregator {
+    
+    // Ratings are summed as fixed-point thousandths so deltas stay exact
+    private static final long SCALE = 1000;
+    
+    // Average and count are recomputed in SQL from the row's current values, no read-modify-write in Java
+    private static final String FLUSH_SQL =
+        "UPDATE games SET average_rating = (average_rating * review_count + ?) / (review_count + ?), " +
+        "review_count = review_count + ? WHERE id = ?";
+    
+    private static final String READ_SQL =
+        "SELECT id, average_rating, review_count FROM games WHERE id IN (:ids)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final CatalogSnapshot catalogSnapshot;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private final Map<Long, Accumulator> accumulators = new ConcurrentHashMap<>();
+    
+    public RatingAggregator(JdbcTemplate jdbcTemplate,
+                            NamedParameterJdbcTemplate namedJdbcTemplate,
+                            CatalogSnapshot catalogSnapshot,
+                            ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.catalogSnapshot = catalogSnapshot;
+        this.eventPublisher = eventPublisher;
+    }
+    
+    // Lock-free: concurrent ratings for the same game land on different adder cells
+    public void record(Long gameId, double rating) {
+        if (Double.isNaN(rating) || Double.isInfinite(rating)) {
+            throw new IllegalArgumentException("Invalid rating");
+        }
+        
+        Accumulator accumulator = accumulators.get(gameId);
+        if (accumulator == null) {
+            if (!catalogSnapshot.find(gameId).isPresent()) {
+                throw new IllegalArgumentException("Game not found");
+            }
+            accumulator = accumulators.computeIfAbsent(gameId, id -> new Accumulator());
+        }
+        
+        accumulator.sum.add(Math.round(rating * SCALE));
+        accumulator.count.increment();
+    }
+    
+    // Last flushed value plus ratings still waiting for the next flush
+    public Map<String, Object> getRating(Long gameId) {
+        GameCard card = catalogSnapshot.find(gameId)
+            .orElseThrow(() -> new IllegalArgumentException("Game not found"));
+        
+        double total = card.getAverageRating() * card.getReviewCount();
+        long count = card.getReviewCount();
+        
+        Accumulator accumulator = accumulators.get(gameId);
+        if (accumulator != null) {
+            long pendingCount = accumulator.count.sum() - accumulator.flushedCount;
+            long pendingSum = accumulator.sum.sum() - accumulator.flushedSum;
+            if (pendingCount > 0) {
+                total += (double) pendingSum / SCALE;
+                count += pendingCount;
+            }
+        }
+        
+        return Map.of(
+            "gameId", gameId,
+            "averageRating", count > 0 ? total / count : 0.0,
+            "reviewCount", count
+        );
+    }
+    
+    @Scheduled(fixedDelayString = "${ratings.flush-interval-ms:2000}")
+    public synchronized void flush() {
+        List<Long> gameIds = new ArrayList<>();
+        List<long[]> flushedTotals = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>();
+        
+        for (Map.Entry<Long, Accumulator> entry : accumulators.entrySet()) {
+            Accumulator accumulator = entry.getValue();
+            
+            // Adders are never reset, so a rating added while we read is simply picked up next time
+            long count = accumulator.count.sum();
+            long sum = accumulator.sum.sum();
+            long countDelta = count - accumulator.flushedCount;
+            long sumDelta = sum - accumulator.flushedSum;
+            if (countDelta <= 0) {
+                continue;
+            }
+            
+            gameIds.add(entry.getKey());
+            flushedTotals.add(new long[] { sum, count });
+            batch.add(new Object[] { (double) sumDelta / SCALE, countDelta, countDelta, entry.getKey() });
+        }
+        
+        if (batch.isEmpty()) {
+            return;
+        }
+        
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+        } catch (Exception e) {
+            System.err.println("Error flushing ratings, will retry: " + e.getMessage());
+            return;
+        }
+        
+        // One event for the whole flush; the snapshot applies it before the flushed totals move,
+        // so getRating never sees the pending ratings dropped before the new averages are visible
+        try {
+            List<RatingChange> changes = namedJdbcTemplate.query(READ_SQL, Map.of("ids", gameIds),
+                (rs, rowNum) -> new RatingChange(rs.getLong("id"), rs.getDouble("average_rating"),
+                    rs.getInt("review_count")));
+            eventPublisher.publishEvent(new RatingsChangedEvent(changes));
+        } catch (Exception e) {
+            // The update is already committed, so the totals still have to move or it is applied twice
+            System.err.println("Error reading flushed ratings: " + e.getMessage());
+        }
+        
+        for (int i = 0; i < gameIds.size(); i++) {
+            Accumulator accumulator = accumulators.get(gameIds.get(i));
+            accumulator.flushedSum = flushedTotals.get(i)[0];
+            accumulator.flushedCount = flushedTotals.get(i)[1];
+        }
+    }
+    
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+    
+    private static final class Accumulator {
+        
+        private final LongAdder sum = new LongAdder();
+        private final LongAdder count = new LongAdder();
+        
+        // Totals already written to the database, only touched by flush()
+        private volatile long flushedSum;
+        private volatile long flushedCount;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.example.demo.service.game;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.event.LibraryChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+// Recent recommendation lists per user, bounded by size (W-TinyLFU eviction) and age
+@Service
+public class RecommendationCache {
+    
+    // One list serves every page size up to this; longer requests bypass the cache
+    private static final int CACHED_LIMIT = 50;
+    
+    private final GameRecommender gameRecommender;
+    private final Cache<Long, List<Long>> cache;
+    
+    public RecommendationCache(GameRecommender gameRecommender,
+                               @Value("${recommendations.cache.max-users:100000}") long maxUsers,
+                               @Value("${recommendations.cache.ttl-minutes:30}") long ttlMinutes) {
+        this.gameRecommender = gameRecommender;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxUsers)
+            .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+            .recordStats()
+            .build();
+    }
+    
+    // Concurrent misses for the same user compute the list once
+    public List<Long> getRecommendations(Long userId, int limit) {
+        if (limit > CACHED_LIMIT) {
+            return gameRecommender.recommend(userId, limit);
+        }
+        
+        List<Long> recommended = cache.get(userId, id -> Collections.unmodifiableList(
+            gameRecommender.recommend(id, CACHED_LIMIT)));
+        return recommended.size() <= limit ? recommended : recommended.subList(0, limit);
+    }
+    
+    // After commit, so a list recomputed meanwhile can't still see the game as not owned
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLibraryChanged(LibraryChangedEvent event) {
+        if (event.isRemoved()) {
+            // The removed game may be worth recommending again, and the seeds changed
+            cache.invalidate(event.getUserId());
+            return;
+        }
+        
+        // A new game barely moves the rest of the list, so just drop it from the cached one
+        cache.asMap().computeIfPresent(event.getUserId(), (userId, recommended) -> {
+            if (!recommended.contains(event.getGameId())) {
+                return recommended;
+            }
+            List<Long> patched = new ArrayList<>(recommended);
+            patched.remove(event.getGameId());
+            return Collections.unmodifiableList(patched);
+        });
+    }
+    
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+    }
+    
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("averageLoadMs", stats.averageLoadPenalty() / 1_000_000.0);
+        return result;
+    }
+}
\ No newline at end of file
@@ -1,52 +1,174 @@
 package com.example.demo.service.game;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.PurchaseView;
+import com.example.demo.event.GamePurchasedEvent;
+import com.example.demo.event.LibraryChangedEvent;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.model.Game;
 import com.example.demo.model.Purchase;
 import com.example.demo.model.User;
 import com.example.demo.repository.GameRepository;
+import com.example.demo.repository.LibraryRepository;
 import com.example.demo.repository.PurchaseRepository;
 import com.example.demo.repository.UserRepository;
-import com.example.demo.service.realtime.NotificationService;
+import com.example.demo.service.catalog.CatalogSnapshot;
+import com.example.demo.service.catalog.GameCard;
+import com.example.demo.service.realtime.OutboxService;
+import com.example.demo.service.search.FacetQuery;
+import com.example.demo.service.search.GameFacetIndex;
+import com.example.demo.service.user.FriendGraphIndex;
+import com.example.demo.util.CursorCodec;
 
 @Service
 public class StoreService {
     
+    private static final int MAX_CART_SIZE = 100;
+    
+    // Friends listed by id next to the "N friends own this" count
+    private static final int FRIENDS_WHO_OWN_SHOWN = 3;
+    
+    private static final String INSERT_PURCHASE =
+        "INSERT INTO purchases (user_id, game_id, price, purchase_date, payment_method, transaction_id, status) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_LIBRARY_ENTRY =
+        "INSERT INTO libraries (user_id, game_id, purchase_date, playtime, installed, favorite, hidden) " +
+        "VALUES (?, ?, ?, 0, false, false, false)";
+    
     private final GameRepository gameRepository;
     private final PurchaseRepository purchaseRepository;
     private final UserRepository userRepository;
     private final GameLibraryService gameLibraryService;
-    private final NotificationService notificationService;
-  
+    private final OutboxService outboxService;
+    private final GameFacetIndex gameFacetIndex;
+    private final CatalogSnapshot catalogSnapshot;
+    private final StorefrontMaterializer storefrontMaterializer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LibraryRepository libraryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final FriendGraphIndex friendGraphIndex;
+    private final GameOwnersIndex gameOwnersIndex;
+    private final GameService gameService;
+    
     public StoreService(GameRepository gameRepository,
                        PurchaseRepository purchaseRepository,
                        UserRepository userRepository,
                        GameLibraryService gameLibraryService,
-                       NotificationService notificationService) {
+                       OutboxService outboxService,
+                       GameFacetIndex gameFacetIndex,
+                       CatalogSnapshot catalogSnapshot,
+                       StorefrontMaterializer storefrontMaterializer,
+                       ApplicationEventPublisher eventPublisher,
+                       LibraryRepository libraryRepository,
+                       JdbcTemplate jdbcTemplate,
+                       FriendGraphIndex friendGraphIndex,
+                       GameOwnersIndex gameOwnersIndex,
+                       GameService gameService) {
         this.gameRepository = gameRepository;
         this.purchaseRepository = purchaseRepository;
         this.userRepository = userRepository;
         this.gameLibraryService = gameLibraryService;
-        this.notificationService = notificationService;
+        this.outboxService = outboxService;
+        this.gameFacetIndex = gameFacetIndex;
+        this.catalogSnapshot = catalogSnapshot;
+        this.storefrontMaterializer = storefrontMaterializer;
+        this.eventPublisher = eventPublisher;
+        this.libraryRepository = libraryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.friendGraphIndex = friendGraphIndex;
+        this.gameOwnersIndex = gameOwnersIndex;
+        this.gameService = gameService;
     }
     
     public Page<Game> browseStore(Pageable pageable) {
         return gameRepository.findAll(pageable);
     }
     
+    // Cursor-based browsing for infinite scroll and crawlers; the total is only counted on request
+    public CursorPage<Game> browseStore(String cursor, int size, boolean includeTotal) {
+        return gameService.getAllGames(cursor, size, includeTotal);
+    }
+    
+    public Map<String, Object> browseStoreFacets(FacetQuery query, Pageable pageable) {
+        // Counts for every facet need the index; until its startup build finishes, say so instead of
+        // returning an empty page that looks like no game matches
+        if (!gameFacetIndex.isReady()) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("ready", false);
+            response.put("games", new ArrayList<>());
+            response.put("page", pageable.getPageNumber());
+            response.put("size", pageable.getPageSize());
+            return response;
+        }
+        
+        // One in-memory evaluation gives the matching page plus the counts for every sidebar facet
+        GameFacetIndex.FacetResult result = gameFacetIndex.query(
+            query, (int) pageable.getOffset(), pageable.getPageSize());
+        
+        // Only the games on the requested page are loaded
+        Map<Long, GameCard> gameMap = catalogSnapshot.getCards(result.getGameIds());
+        
+        List<Map<String, Object>> games = new ArrayList<>();
+        for (Long gameId : result.getGameIds()) {
+            GameCard game = gameMap.get(gameId);
+            if (game == null) continue;
+            
+            Map<String, Object> gameData = new HashMap<>();
+            gameData.put("id", game.getId());
+            gameData.put("title", game.getTitle());
+            gameData.put("coverImageUrl", game.getCoverImageUrl());
+            gameData.put("price", game.getPrice());
+            gameData.put("onSale", game.isOnSale());
+            
+            if (game.isOnSale()) {
+                gameData.put("salePrice", game.getSalePrice());
+                double discount = (1 - (game.getSalePrice() / game.getPrice())) * 100;
+                gameData.put("discountPercentage", Math.round(discount));
+            }
+            
+            games.add(gameData);
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("games", games);
+        response.put("totalHits", result.getTotalHits());
+        response.put("page", pageable.getPageNumber());
+        response.put("size", pageable.getPageSize());
+        response.put("facets", result.getFacetCounts());
+        response.put("ready", true);
+        
+        return response;
+    }
+    
     public List<Map<String, Object>> getFeaturedGames() {
+        if (storefrontMaterializer.isReady()) {
+            return storefrontMaterializer.getSection(StorefrontMaterializer.Section.FEATURED);
+        }
+        
         List<Game> featured = gameRepository.findByFeaturedTrue();
         
         return featured.stream().map(game -> {
@@ -68,6 +190,10 @@ public class StoreService {
     }
     
     public List<Map<String, Object>> getOnSaleGames() {
+        if (storefrontMaterializer.isReady()) {
+            return storefrontMaterializer.getSection(StorefrontMaterializer.Section.ON_SALE);
+        }
+        
         List<Game> onSale = gameRepository.findByOnSaleTrue();
         
         return onSale.stream().map(game -> {
@@ -86,6 +212,10 @@ public class StoreService {
     }
     
     public List<Map<String, Object>> getNewReleases() {
+        if (storefrontMaterializer.isReady()) {
+            return storefrontMaterializer.getSection(StorefrontMaterializer.Section.NEW_RELEASES);
+        }
+        
         List<Game> newReleases = gameRepository.findNewReleases(org.springframework.data.domain.PageRequest.of(0, 10));
         
         return newReleases.stream().map(game -> {
@@ -108,6 +238,10 @@ public class StoreService {
     }
     
     public List<Map<String, Object>> getTopRated() {
+        if (storefrontMaterializer.isReady()) {
+            return storefrontMaterializer.getSection(StorefrontMaterializer.Section.TOP_RATED);
+        }
+        
         List<Game> topRated = gameRepository.findTopRated(org.springframework.data.domain.PageRequest.of(0, 10));
         
         return topRated.stream().map(game -> {
@@ -161,11 +295,125 @@ public class StoreService {
         if (userId != null) {
             boolean owned = gameLibraryService.hasGame(userId, gameId);
             gameData.put("owned", owned);
+            
+            Map<String, Object> friendsWhoOwn = getFriendsWhoOwn(userId, gameId);
+            if (friendsWhoOwn != null) {
+                gameData.put("friendsWhoOwn", friendsWhoOwn);
+            }
         }
         
         return gameData;
     }
     
+    // One in-memory bitmap intersection of the viewer's friends with the game's owners, no query per view
+    private Map<String, Object> getFriendsWhoOwn(Long userId, Long gameId) {
+        RoaringBitmap friendOwners = gameOwnersIndex.ownersAmong(gameId, friendGraphIndex.getFriends(userId));
+        if (friendOwners == null) {
+            return null; // Index still building
+        }
+        
+        List<Long> shownIds = new ArrayList<>(FRIENDS_WHO_OWN_SHOWN);
+        PeekableIntIterator it = friendOwners.getIntIterator();
+        while (it.hasNext() && shownIds.size() < FRIENDS_WHO_OWN_SHOWN) {
+            shownIds.add((long) it.next());
+        }
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("count", friendOwners.getCardinality());
+        result.put("friendIds", shownIds);
+        return result;
+    }
+    
+    // Whole cart in one transaction: one ownership query, one price read, batched inserts, one notification
+    @Transactional
+    public Map<String, Object> checkoutCart(Long userId, List<Long> gameIds, String paymentMethod) {
+        Set<Long> cart = new LinkedHashSet<>(gameIds != null ? gameIds : Collections.emptyList());
+        cart.remove(null);
+        if (cart.isEmpty()) {
+            throw new IllegalArgumentException("Cart is empty");
+        }
+        if (cart.size() > MAX_CART_SIZE) {
+            throw new IllegalArgumentException("Cart cannot contain more than " + MAX_CART_SIZE + " games");
+        }
+        
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        
+        List<Long> owned = libraryRepository.findOwnedGameIds(userId, cart);
+        if (!owned.isEmpty()) {
+            throw new IllegalStateException("Games already in user's library: " + owned);
+        }
+        
+        // Every item is priced from the same read, so a sale flipping mid-checkout can't split the cart
+        Map<Long, Game> games = new HashMap<>();
+        for (Game game : gameRepository.findAllById(cart)) {
+            games.put(game.getId(), game);
+        }
+        if (games.size() < cart.size()) {
+            throw new IllegalArgumentException("Game not found");
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp purchaseDate = Timestamp.valueOf(now);
+        String transactionId = UUID.randomUUID().toString();
+        
+        List<Object[]> purchaseRows = new ArrayList<>(cart.size());
+        List<Object[]> libraryRows = new ArrayList<>(cart.size());
+        List<Map<String, Object>> items = new ArrayList<>(cart.size());
+        Map<Long, Double> prices = new HashMap<>();
+        double total = 0;
+        for (Long gameId : cart) {
+            Game game = games.get(gameId);
+            double price = game.isOnSale() ? game.getSalePrice() : game.getPrice();
+            prices.put(gameId, price);
+            total += price;
+            
+            purchaseRows.add(new Object[] { userId, gameId, price, purchaseDate, paymentMethod, transactionId,
+                Purchase.PurchaseStatus.COMPLETED.name() });
+            libraryRows.add(new Object[] { userId, gameId, purchaseDate });
+            
+            Map<String, Object> item = new HashMap<>();
+            item.put("gameId", gameId);
+            item.put("title", game.getTitle());
+            item.put("price", price);
+            items.add(item);
+        }
+        
+        // The (user_id, game_id) unique key rolls the whole cart back if a concurrent checkout got there first
+        jdbcTemplate.batchUpdate(INSERT_PURCHASE, purchaseRows);
+        jdbcTemplate.batchUpdate(INSERT_LIBRARY_ENTRY, libraryRows);
+        
+        for (Long gameId : cart) {
+            eventPublisher.publishEvent(new GamePurchasedEvent(userId, gameId, prices.get(gameId)));
+            eventPublisher.publishEvent(LibraryChangedEvent.added(userId, gameId));
+        }
+        
+        String message = cart.size() == 1
+            ? "Thank you for purchasing " + games.get(cart.iterator().next()).getTitle()
+            : "Thank you for purchasing " + cart.size() + " games";
+        // Delivered by the outbox relay after commit, checkout doesn't wait on the broker
+        outboxService.enqueueNotification(
+            userId,
+            "Purchase Complete",
+            message,
+            "purchase_complete",
+            Map.of(
+                "gameIds", new ArrayList<>(cart),
+                "transactionId", transactionId
+            )
+        );
+        outboxService.enqueueLibraryUpdate(userId, cart, "added");
+        outboxService.enqueueProgressChecks(userId);
+        
+        Map<String, Object> receipt = new HashMap<>();
+        receipt.put("transactionId", transactionId);
+        receipt.put("purchaseDate", now);
+        receipt.put("items", items);
+        receipt.put("total", total);
+        return receipt;
+    }
+    
     @Transactional
     public Purchase purchaseGame(Long userId, Long gameId, String paymentMethod) {
         // Check if user already has the game
@@ -199,8 +447,11 @@ public class StoreService {
         // Add game to user's library
         gameLibraryService.addGameToLibrary(userId, gameId);
         
-        // Send notification
-        notificationService.sendNotification(
+        eventPublisher.publishEvent(new GamePurchasedEvent(userId, gameId, price));
+        
+        // Notification, live library update and quest/achievement checks go through the outbox,
+        // written in this transaction and delivered once it commits
+        outboxService.enqueueNotification(
             userId,
             "Purchase Complete",
             "Thank you for purchasing " + game.getTitle(),
@@ -210,38 +461,54 @@ public class StoreService {
                 "purchaseId", savedPurchase.getId()
             )
         );
+        outboxService.enqueueLibraryUpdate(userId, List.of(gameId), "added");
+        outboxService.enqueueProgressChecks(userId);
         
         return savedPurchase;
     }
     
     public List<Map<String, Object>> getPurchaseHistory(Long userId) {
-        List<Purchase> purchases = purchaseRepository.findByUserId(userId);
-        
-        // Get all game IDs from purchases
-        List<Long> gameIds = purchases.stream()
-            .map(Purchase::getGameId)
+        // Purchases of games that no longer exist are dropped by the join
+        return purchaseRepository.findViewsByUserId(userId).stream()
+            .map(this::toPurchaseEntry)
             .collect(Collectors.toList());
+    }
+    
+    public CursorPage<Map<String, Object>> getPurchaseHistory(Long userId, String cursor, int size,
+                                                              boolean includeTotal) {
+        int pageSize = CursorPage.pageSize(size);
+        PageRequest lookahead = PageRequest.of(0, pageSize + 1);
         
-        // Get all games in purchase history
-        Map<Long, Game> gameMap = gameRepository.findAllById(gameIds).stream()
-            .collect(Collectors.toMap(Game::getId, game -> game));
+        List<PurchaseView> fetched;
+        if (cursor == null || cursor.isBlank()) {
+            fetched = purchaseRepository.findFirstViewPageByUserId(userId, lookahead);
+        } else {
+            String[] key = CursorCodec.decode(cursor, 2);
+            try {
+                fetched = purchaseRepository.findViewPageByUserIdBefore(
+                    userId, LocalDateTime.parse(key[0]), Long.parseLong(key[1]), lookahead);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+        }
         
-        // Build response with game details and purchase metadata
-        return purchases.stream().map(purchase -> {
-            Game game = gameMap.get(purchase.getGameId());
-            if (game == null) return null;
-            
-            Map<String, Object> entry = new HashMap<>();
-            entry.put("id", purchase.getId());
-            entry.put("gameId", game.getId());
-            entry.put("title", game.getTitle());
-            entry.put("coverImageUrl", game.getCoverImageUrl());
-            entry.put("price", purchase.getPrice());
-            entry.put("purchaseDate", purchase.getPurchaseDate());
-            entry.put("status", purchase.getStatus().name());
-            
-            return entry;
-        }).filter(Objects::nonNull).collect(Collectors.toList());
+        CursorPage<PurchaseView> page = CursorPage.fromLookahead(fetched, pageSize,
+            purchase -> CursorCodec.encode(purchase.getPurchaseDate(), purchase.getId()),
+            includeTotal ? purchaseRepository.countByUserId(userId) : null);
+        
+        return page.map(this::toPurchaseEntry);
+    }
+    
+    private Map<String, Object> toPurchaseEntry(PurchaseView purchase) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("id", purchase.getId());
+        entry.put("gameId", purchase.getGameId());
+        entry.put("title", purchase.getTitle());
+        entry.put("coverImageUrl", purchase.getCoverImageUrl());
+        entry.put("price", purchase.getPrice());
+        entry.put("purchaseDate", purchase.getPurchaseDate());
+        entry.put("status", purchase.getStatus().name());
+        return entry;
     }
     
     public double getTotalSpent(Long userId) {
@@ -250,14 +517,19 @@ public class StoreService {
     }
     
     public Map<String, Object> getStoreStats() {
+        if (storefrontMaterializer.isReady()) {
+            return storefrontMaterializer.getStats();
+        }
+        
         Map<String, Object> stats = new HashMap<>();
         
-        stats.put("totalGames", gameRepository.count());
-        stats.put("gamesOnSale", gameRepository.findByOnSaleTrue().size());
+        long totalGames = gameRepository.count();
+        stats.put("totalGames", totalGames);
+        stats.put("gamesOnSale", (int) gameRepository.countByOnSaleTrue());
         
         // Get some featured game categories
-        stats.put("featured", getFeaturedGames().size());
-        stats.put("newReleases", getNewReleases().size());
+        stats.put("featured", (int) gameRepository.countByFeaturedTrue());
+        stats.put("newReleases", (int) Math.min(10, totalGames));
         
         return stats;
     }
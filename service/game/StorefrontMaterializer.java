@@ -0,0 +1,352 @@
+package com.example.demo.service.game;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.event.CatalogImportedEvent;
+import com.example.demo.event.GameChangedEvent;
+import com.example.demo.event.PricesChangedEvent;
+import com.example.demo.event.RatingsChangedEvent;
+import com.example.demo.service.catalog.CatalogSnapshot;
+import com.example.demo.service.catalog.GameCard;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Store landing page sections kept ready to serve, both as maps and as serialized JSON
+@Service
+public class StorefrontMaterializer {
+    
+    public enum Section { FEATURED, ON_SALE, NEW_RELEASES, TOP_RATED }
+    
+    private static final int LIST_SIZE = 10;
+    
+    private static final Comparator<GameCard> BY_ID = Comparator.comparing(GameCard::getId);
+    
+    private static final Comparator<GameCard> NEWEST_FIRST = Comparator
+        .comparing(GameCard::getReleaseDate, Comparator.nullsLast(Comparator.reverseOrder()))
+        .thenComparing(GameCard::getId);
+    
+    private static final Comparator<GameCard> BEST_RATED_FIRST = Comparator
+        .comparingDouble(GameCard::getAverageRating).reversed()
+        .thenComparing(GameCard::getId);
+    
+    private final CatalogSnapshot catalogSnapshot;
+    private final ObjectMapper objectMapper;
+    
+    // Section membership and per-game serialized items, only touched while holding writeLock
+    private final Object writeLock = new Object();
+    private final Map<Long, GameCard> cardsById = new HashMap<>();
+    private final TreeSet<GameCard> featured = new TreeSet<>(BY_ID);
+    private final TreeSet<GameCard> onSale = new TreeSet<>(BY_ID);
+    private final TreeSet<GameCard> byReleaseDate = new TreeSet<>(NEWEST_FIRST);
+    private final TreeSet<GameCard> byRating = new TreeSet<>(BEST_RATED_FIRST);
+    private final Map<Section, Map<Long, Item>> itemCache = new EnumMap<>(Section.class);
+    
+    private volatile Storefront storefront = null;
+    
+    public StorefrontMaterializer(CatalogSnapshot catalogSnapshot, ObjectMapper objectMapper) {
+        this.catalogSnapshot = catalogSnapshot;
+        this.objectMapper = objectMapper;
+        for (Section section : Section.values()) {
+            itemCache.put(section, new HashMap<>());
+        }
+    }
+    
+    // Runs after CatalogSnapshot has loaded
+    @EventListener({ ApplicationReadyEvent.class, CatalogImportedEvent.class })
+    public void rebuild() {
+        synchronized (writeLock) {
+            cardsById.clear();
+            featured.clear();
+            onSale.clear();
+            byReleaseDate.clear();
+            byRating.clear();
+            itemCache.values().forEach(Map::clear);
+            
+            for (GameCard card : catalogSnapshot.getAll()) {
+                add(card);
+            }
+            
+            Map<Section, Payload> sections = new EnumMap<>(Section.class);
+            for (Section section : Section.values()) {
+                sections.put(section, buildSection(section));
+            }
+            publish(sections);
+        }
+    }
+    
+    @EventListener
+    public void onGameChanged(GameChangedEvent event) {
+        refresh(Collections.singletonList(event.getGameId()));
+    }
+    
+    // A whole repricing chunk rebuilds each affected section once
+    @EventListener
+    public void onPricesChanged(PricesChangedEvent event) {
+        refresh(event.getGameIds());
+    }
+    
+    @EventListener
+    public void onRatingsChanged(RatingsChangedEvent event) {
+        refresh(event.getGameIds());
+    }
+    
+    // Cards come from the snapshot, which has already applied the change; a deleted game has no card
+    private void refresh(Collection<Long> gameIds) {
+        if (storefront == null) {
+            return;
+        }
+        
+        synchronized (writeLock) {
+            List<GameCard> newestBefore = top(byReleaseDate);
+            List<GameCard> bestBefore = top(byRating);
+            
+            List<GameCard> previousCards = new ArrayList<>(gameIds.size());
+            List<GameCard> updatedCards = new ArrayList<>(gameIds.size());
+            for (Long gameId : gameIds) {
+                GameCard previous = cardsById.remove(gameId);
+                if (previous != null) {
+                    featured.remove(previous);
+                    onSale.remove(previous);
+                    byReleaseDate.remove(previous);
+                    byRating.remove(previous);
+                    previousCards.add(previous);
+                }
+                GameCard updated = catalogSnapshot.get(gameId);
+                if (updated != null) {
+                    add(updated);
+                    updatedCards.add(updated);
+                }
+                // Cached items for this game describe the old card
+                itemCache.values().forEach(items -> items.remove(gameId));
+            }
+            
+            List<GameCard> newestAfter = top(byReleaseDate);
+            List<GameCard> bestAfter = top(byRating);
+            
+            // Only sections a game was or is now part of get rebuilt
+            boolean featuredChanged = false;
+            boolean onSaleChanged = false;
+            boolean newestChanged = false;
+            boolean bestChanged = false;
+            for (GameCard previous : previousCards) {
+                featuredChanged |= isFeatured(previous);
+                onSaleChanged |= isOnSale(previous);
+                newestChanged |= newestBefore.contains(previous);
+                bestChanged |= bestBefore.contains(previous);
+            }
+            for (GameCard updated : updatedCards) {
+                featuredChanged |= isFeatured(updated);
+                onSaleChanged |= isOnSale(updated);
+                newestChanged |= newestAfter.contains(updated);
+                bestChanged |= bestAfter.contains(updated);
+            }
+            
+            Map<Section, Payload> sections = new EnumMap<>(storefront.sections);
+            if (featuredChanged) {
+                sections.put(Section.FEATURED, buildSection(Section.FEATURED));
+            }
+            if (onSaleChanged) {
+                sections.put(Section.ON_SALE, buildSection(Section.ON_SALE));
+            }
+            if (newestChanged) {
+                sections.put(Section.NEW_RELEASES, buildSection(Section.NEW_RELEASES));
+            }
+            if (bestChanged) {
+                sections.put(Section.TOP_RATED, buildSection(Section.TOP_RATED));
+            }
+            publish(sections);
+        }
+    }
+    
+    public boolean isReady() {
+        return storefront != null;
+    }
+    
+    public List<Map<String, Object>> getSection(Section section) {
+        return storefront.sections.get(section).items;
+    }
+    
+    // Serialized section, can be written to the response body as is
+    public byte[] getSectionJson(Section section) {
+        return storefront.sections.get(section).json;
+    }
+    
+    public Map<String, Object> getStats() {
+        return storefront.stats;
+    }
+    
+    public byte[] getStatsJson() {
+        return storefront.statsJson;
+    }
+    
+    private void add(GameCard card) {
+        cardsById.put(card.getId(), card);
+        if (card.isFeatured()) {
+            featured.add(card);
+        }
+        if (card.isOnSale()) {
+            onSale.add(card);
+        }
+        byReleaseDate.add(card);
+        byRating.add(card);
+    }
+    
+    private void publish(Map<Section, Payload> sections) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalGames", (long) cardsById.size());
+        stats.put("gamesOnSale", onSale.size());
+        stats.put("featured", featured.size());
+        stats.put("newReleases", Math.min(LIST_SIZE, byReleaseDate.size()));
+        
+        storefront = new Storefront(sections, Collections.unmodifiableMap(stats), serialize(stats));
+    }
+    
+    private Payload buildSection(Section section) {
+        Iterable<GameCard> members;
+        switch (section) {
+            case FEATURED:
+                members = featured;
+                break;
+            case ON_SALE:
+                members = onSale;
+                break;
+            case NEW_RELEASES:
+                members = top(byReleaseDate);
+                break;
+            default:
+                members = top(byRating);
+                break;
+        }
+        
+        Map<Long, Item> cache = itemCache.get(section);
+        List<Map<String, Object>> items = new ArrayList<>();
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        json.write('[');
+        
+        for (GameCard card : members) {
+            // Unchanged games reuse their map and JSON fragment
+            Item item = cache.get(card.getId());
+            if (item == null || item.card != card) {
+                Map<String, Object> data = toSectionItem(section, card);
+                item = new Item(card, data, serialize(data));
+                cache.put(card.getId(), item);
+            }
+            
+            if (!items.isEmpty()) {
+                json.write(',');
+            }
+            items.add(item.data);
+            json.write(item.json, 0, item.json.length);
+        }
+        
+        json.write(']');
+        return new Payload(Collections.unmodifiableList(items), json.toByteArray());
+    }
+    
+    // Same fields StoreService has always returned for each section
+    private static Map<String, Object> toSectionItem(Section section, GameCard game) {
+        Map<String, Object> gameData = new HashMap<>();
+        gameData.put("id", game.getId());
+        gameData.put("title", game.getTitle());
+        gameData.put("coverImageUrl", game.getCoverImageUrl());
+        gameData.put("price", game.getPrice());
+        
+        if (section == Section.NEW_RELEASES) {
+            gameData.put("releaseDate", game.getReleaseDate());
+        }
+        if (section == Section.TOP_RATED) {
+            gameData.put("rating", game.getAverageRating());
+            gameData.put("reviewCount", game.getReviewCount());
+        }
+        if (section != Section.ON_SALE) {
+            gameData.put("onSale", game.isOnSale());
+        }
+        
+        if (game.isOnSale()) {
+            gameData.put("salePrice", game.getSalePrice());
+            double discount = (1 - (game.getSalePrice() / game.getPrice())) * 100;
+            gameData.put("discountPercentage", Math.round(discount));
+        }
+        
+        return Collections.unmodifiableMap(gameData);
+    }
+    
+    private static List<GameCard> top(TreeSet<GameCard> ordered) {
+        List<GameCard> top = new ArrayList<>(LIST_SIZE);
+        Iterator<GameCard> it = ordered.iterator();
+        while (it.hasNext() && top.size() < LIST_SIZE) {
+            top.add(it.next());
+        }
+        return top;
+    }
+    
+    private static boolean isFeatured(GameCard card) {
+        return card != null && card.isFeatured();
+    }
+    
+    private static boolean isOnSale(GameCard card) {
+        return card != null && card.isOnSale();
+    }
+    
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            System.err.println("Error serializing storefront payload: " + e.getMessage());
+            return "null".getBytes(StandardCharsets.UTF_8);
+        }
+    }
+    
+    private static final class Item {
+        
+        private final GameCard card;
+        private final Map<String, Object> data;
+        private final byte[] json;
+        
+        Item(GameCard card, Map<String, Object> data, byte[] json) {
+            this.card = card;
+            this.data = data;
+            this.json = json;
+        }
+    }
+    
+    private static final class Payload {
+        
+        private final List<Map<String, Object>> items;
+        private final byte[] json;
+        
+        Payload(List<Map<String, Object>> items, byte[] json) {
+            this.items = items;
+            this.json = json;
+        }
+    }
+    
+    private static final class Storefront {
+        
+        private final Map<Section, Payload> sections;
+        private final Map<String, Object> stats;
+        private final byte[] statsJson;
+        
+        Storefront(Map<Section, Payload> sections, Map<String, Object> stats, byte[] statsJson) {
+            this.sections = sections;
+            this.stats = stats;
+            this.statsJson = statsJson;
+        }
+    }
+}
\ No newline at end of file
@@ -2,10 +2,13 @@ package com.example.demo.service.gamification;
 
 import com.example.demo.model.CollectionQuest;
 import com.example.demo.model.Game;
-import com.example.demo.model.Library;
 import com.example.demo.repository.CollectionQuestRepository;
 import com.example.demo.repository.GameRepository;
-import com.example.demo.repository.LibraryRepository;
+import com.example.demo.service.catalog.CatalogSnapshot;
+import com.example.demo.service.catalog.DealIndex;
+import com.example.demo.service.catalog.GameCard;
+import com.example.demo.service.catalog.TopRatedIndex;
+import com.example.demo.service.game.OwnershipIndex;
 import com.example.demo.service.realtime.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -18,9 +21,12 @@ import java.util.stream.Collectors;
 public class CollectionQuestService {
     
     private final CollectionQuestRepository questRepository;
-    private final LibraryRepository libraryRepository;
+    private final OwnershipIndex ownershipIndex;
     private final GameRepository gameRepository;
     private final NotificationService notificationService;
+    private final CatalogSnapshot catalogSnapshot;
+    private final DealIndex dealIndex;
+    private final TopRatedIndex topRatedIndex;
     
     // Predefined collection quests
     private final List<Map<String, Object>> COLLECTION_QUESTS = Arrays.asList(
@@ -119,13 +125,19 @@ public class CollectionQuestService {
     @Autowired
     public CollectionQuestService(
             CollectionQuestRepository questRepository,
-            LibraryRepository libraryRepository,
+            OwnershipIndex ownershipIndex,
             GameRepository gameRepository,
-            NotificationService notificationService) {
+            NotificationService notificationService,
+            CatalogSnapshot catalogSnapshot,
+            DealIndex dealIndex,
+            TopRatedIndex topRatedIndex) {
         this.questRepository = questRepository;
-        this.libraryRepository = libraryRepository;
+        this.ownershipIndex = ownershipIndex;
         this.gameRepository = gameRepository;
         this.notificationService = notificationService;
+        this.catalogSnapshot = catalogSnapshot;
+        this.dealIndex = dealIndex;
+        this.topRatedIndex = topRatedIndex;
     }
     
     public List<Map<String, Object>> getAllQuests() {
@@ -170,18 +182,13 @@ public class CollectionQuestService {
     }
     
     public void checkQuestProgress(Long userId) {
-        // Get user's library
-        List<Library> userLibrary = libraryRepository.findByUserId(userId);
+        // Get game IDs from the user's library
+        List<Long> gameIds = ownershipIndex.getOwnedGameIds(userId);
         
-        if (userLibrary.isEmpty()) {
+        if (gameIds.isEmpty()) {
             return; // No games to check
         }
         
-        // Get game IDs from library
-        List<Long> gameIds = userLibrary.stream()
-            .map(Library::getGameId)
-            .collect(Collectors.toList());
-        
         // Get game details
         List<Game> games = gameRepository.findAllById(gameIds);
         
@@ -262,17 +269,23 @@ public class CollectionQuestService {
             return Collections.emptyList();
         }
         
-        // Get user's library
-        List<Long> userGameIds = libraryRepository.findByUserId(userId).stream()
-            .map(Library::getGameId)
-            .collect(Collectors.toList());
+        // Games of the target genre that the user doesn't own: best deals first, then best rated
+        List<GameCard> recommendedGames = new ArrayList<>(
+            dealIndex.getDealsByGenre(targetGenre, 5, gameId -> ownershipIndex.owns(userId, gameId)));
         
-        // Find games of the target genre that the user doesn't own
-        List<Game> genreGames = gameRepository.findByGenre(targetGenre, null).getContent();
-        List<Game> recommendedGames = genreGames.stream()
-            .filter(game -> !userGameIds.contains(game.getId()))
-            .limit(5) // Limit to 5 recommendations
-            .collect(Collectors.toList());
+        if (recommendedGames.size() < 5) {
+            Set<Long> excludedIds = new HashSet<>(ownershipIndex.getOwnedGameIds(userId));
+            recommendedGames.forEach(game -> excludedIds.add(game.getId()));
+            
+            List<Long> topRatedIds = topRatedIndex.topRatedByGenre(targetGenre, 5 - recommendedGames.size(), excludedIds);
+            Map<Long, GameCard> cards = catalogSnapshot.getCards(topRatedIds);
+            for (Long gameId : topRatedIds) {
+                GameCard card = cards.get(gameId);
+                if (card != null) {
+                    recommendedGames.add(card);
+                }
+            }
+        }
         
         // Convert to response format
         return recommendedGames.stream()
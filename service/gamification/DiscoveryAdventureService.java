@@ -1,14 +1,13 @@
 package com.example.demo.service.gamification;
 
 import com.example.demo.model.DiscoveryAdventure;
-import com.example.demo.model.Game;
-import com.example.demo.model.Library;
 import com.example.demo.repository.DiscoveryAdventureRepository;
-import com.example.demo.repository.GameRepository;
-import com.example.demo.repository.LibraryRepository;
+import com.example.demo.service.catalog.CatalogSnapshot;
+import com.example.demo.service.catalog.GameCard;
+import com.example.demo.service.catalog.TopRatedIndex;
+import com.example.demo.service.game.OwnershipIndex;
 import com.example.demo.service.realtime.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -19,8 +18,9 @@ import java.util.stream.Collectors;
 public class DiscoveryAdventureService {
     
     private final DiscoveryAdventureRepository adventureRepository;
-    private final GameRepository gameRepository;
-    private final LibraryRepository libraryRepository;
+    private final CatalogSnapshot catalogSnapshot;
+    private final TopRatedIndex topRatedIndex;
+    private final OwnershipIndex ownershipIndex;
     private final NotificationService notificationService;
     
     // Predefined discovery adventures
@@ -93,12 +93,14 @@ public class DiscoveryAdventureService {
     @Autowired
     public DiscoveryAdventureService(
             DiscoveryAdventureRepository adventureRepository,
-            GameRepository gameRepository,
-            LibraryRepository libraryRepository,
+            CatalogSnapshot catalogSnapshot,
+            TopRatedIndex topRatedIndex,
+            OwnershipIndex ownershipIndex,
             NotificationService notificationService) {
         this.adventureRepository = adventureRepository;
-        this.gameRepository = gameRepository;
-        this.libraryRepository = libraryRepository;
+        this.catalogSnapshot = catalogSnapshot;
+        this.topRatedIndex = topRatedIndex;
+        this.ownershipIndex = ownershipIndex;
         this.notificationService = notificationService;
     }
     
@@ -135,7 +137,7 @@ public class DiscoveryAdventureService {
                 
                 // Get current game if in progress
                 if (!userAdventure.isCompleted() && userAdventure.getCurrentGameId() != null) {
-                    Game currentGame = gameRepository.findById(userAdventure.getCurrentGameId()).orElse(null);
+                    GameCard currentGame = catalogSnapshot.get(userAdventure.getCurrentGameId());
                     if (currentGame != null) {
                         Map<String, Object> gameData = new HashMap<>();
                         gameData.put("id", currentGame.getId());
@@ -175,17 +177,12 @@ public class DiscoveryAdventureService {
         // Get genre for this adventure
         String genre = (String) adventureData.get("genre");
         
-        // Get user's library
-        List<Long> userGameIds = libraryRepository.findByUserId(userId).stream()
-            .map(Library::getGameId)
-            .collect(Collectors.toList());
-        
         // Find a game for the first step
-        List<Game> genreGames = gameRepository.findByGenre(genre, PageRequest.of(0, 20)).getContent();
+        List<GameCard> genreGames = findGenreGames(genre);
         
         // Filter out games the user already owns
-        List<Game> availableGames = genreGames.stream()
-            .filter(game -> !userGameIds.contains(game.getId()))
+        List<GameCard> availableGames = genreGames.stream()
+            .filter(game -> !ownershipIndex.owns(userId, game.getId()))
             .collect(Collectors.toList());
         
         if (availableGames.isEmpty()) {
@@ -193,7 +190,7 @@ public class DiscoveryAdventureService {
         }
         
         // Select a random game
-        Game selectedGame = availableGames.get(new Random().nextInt(availableGames.size()));
+        GameCard selectedGame = availableGames.get(new Random().nextInt(availableGames.size()));
         
         // Create new adventure
         DiscoveryAdventure adventure = new DiscoveryAdventure();
@@ -273,30 +270,24 @@ public class DiscoveryAdventureService {
             // Select next game
             String genre = (String) adventureData.get("genre");
             
-            // Get user's library and already completed games
-            List<Long> userGameIds = libraryRepository.findByUserId(userId).stream()
-                .map(Library::getGameId)
-                .collect(Collectors.toList());
-            
-            // Combine with already completed games in this adventure
-            List<Long> excludeGameIds = new ArrayList<>(userGameIds);
-            excludeGameIds.addAll(completedGames);
+            // Games already completed in this adventure
+            Set<Long> excludeGameIds = new HashSet<>(completedGames);
             
             // Find games for the genre, excluding ones the user owns or has already used
-            List<Game> genreGames = gameRepository.findByGenre(genre, PageRequest.of(0, 20)).getContent();
-            List<Game> availableGames = genreGames.stream()
-                .filter(game -> !excludeGameIds.contains(game.getId()))
+            List<GameCard> genreGames = findGenreGames(genre);
+            List<GameCard> availableGames = genreGames.stream()
+                .filter(game -> !ownershipIndex.owns(userId, game.getId()) && !excludeGameIds.contains(game.getId()))
                 .collect(Collectors.toList());
             
             if (availableGames.isEmpty()) {
                 // If no more are available, allow repeats but not from user's library
                 availableGames = genreGames.stream()
-                    .filter(game -> !userGameIds.contains(game.getId()))
+                    .filter(game -> !ownershipIndex.owns(userId, game.getId()))
                     .collect(Collectors.toList());
             }
             
             if (!availableGames.isEmpty()) {
-                Game nextGame = availableGames.get(new Random().nextInt(availableGames.size()));
+                GameCard nextGame = availableGames.get(new Random().nextInt(availableGames.size()));
                 adventure.setCurrentGameId(nextGame.getId());
             } else {
                 // No available games, mark as complete
@@ -319,7 +310,7 @@ public class DiscoveryAdventureService {
             response.put("completedDate", adventure.getCompletedDate().toString());
         } else if (adventure.getCurrentGameId() != null) {
             // Get current game details
-            Game currentGame = gameRepository.findById(adventure.getCurrentGameId()).orElse(null);
+            GameCard currentGame = catalogSnapshot.get(adventure.getCurrentGameId());
             if (currentGame != null) {
                 Map<String, Object> gameData = new HashMap<>();
                 gameData.put("id", currentGame.getId());
@@ -357,14 +348,8 @@ public class DiscoveryAdventureService {
         // Select a new game
         String genre = (String) adventureData.get("genre");
         
-        // Get user's library and already completed games
-        List<Long> userGameIds = libraryRepository.findByUserId(userId).stream()
-            .map(Library::getGameId)
-            .collect(Collectors.toList());
-        
-        // Combine with already completed games in this adventure
-        List<Long> excludeGameIds = new ArrayList<>(userGameIds);
-        excludeGameIds.addAll(adventure.getCompletedGameIds());
+        // Games already completed in this adventure
+        Set<Long> excludeGameIds = new HashSet<>(adventure.getCompletedGameIds());
         
         // Also exclude current game
         if (adventure.getCurrentGameId() != null) {
@@ -372,21 +357,21 @@ public class DiscoveryAdventureService {
         }
         
         // Find games for the genre, excluding ones the user owns or has already used
-        List<Game> genreGames = gameRepository.findByGenre(genre, PageRequest.of(0, 20)).getContent();
-        List<Game> availableGames = genreGames.stream()
-            .filter(game -> !excludeGameIds.contains(game.getId()))
+        List<GameCard> genreGames = findGenreGames(genre);
+        List<GameCard> availableGames = genreGames.stream()
+            .filter(game -> !ownershipIndex.owns(userId, game.getId()) && !excludeGameIds.contains(game.getId()))
             .collect(Collectors.toList());
         
         if (availableGames.isEmpty()) {
             // If no more are available, allow repeats but not from user's library or current game
             availableGames = genreGames.stream()
-                .filter(game -> !userGameIds.contains(game.getId()) && 
+                .filter(game -> !ownershipIndex.owns(userId, game.getId()) &&
                                 !game.getId().equals(adventure.getCurrentGameId()))
                 .collect(Collectors.toList());
         }
         
         if (!availableGames.isEmpty()) {
-            Game nextGame = availableGames.get(new Random().nextInt(availableGames.size()));
+            GameCard nextGame = availableGames.get(new Random().nextInt(availableGames.size()));
             adventure.setCurrentGameId(nextGame.getId());
             adventureRepository.save(adventure);
         } else {
@@ -394,6 +379,17 @@ public class DiscoveryAdventureService {
         }
     }
     
+    // Candidate games for an adventure step: the best rated of the genre, straight from memory
+    private List<GameCard> findGenreGames(String genre) {
+        List<Long> gameIds = topRatedIndex.topRatedByGenre(genre, 20);
+        Map<Long, GameCard> cards = catalogSnapshot.getCards(gameIds);
+        
+        return gameIds.stream()
+            .map(cards::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+    
     public int getCompletedAdventureCount(Long userId) {
         return adventureRepository.countCompletedAdventuresByUserId(userId);
     }
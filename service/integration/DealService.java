@@ -1,43 +1,69 @@
 package com.example.demo.service.integration;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.example.demo.model.Game;
 import com.example.demo.repository.GameRepository;
+import com.example.demo.service.catalog.CatalogSnapshot;
+import com.example.demo.service.catalog.DealIndex;
+import com.example.demo.service.catalog.GameCard;
+import com.example.demo.service.catalog.TopRatedIndex;
 
 @Service
 public class DealService {
     
-    private final GameRepository gameRepository;
+    private static final int WEEKLY_SALE_SIZE = 20;
+    private static final int WEEKLY_SALE_DISCOUNT = 25;
     
-    // Cache of current featured deals
-    private List<Map<String, Object>> featuredDeals = new ArrayList<>();
-    private LocalDateTime lastFeaturedDealsUpdate = LocalDateTime.now();
+    private final GameRepository gameRepository;
+    private final CatalogSnapshot catalogSnapshot;
+    private final DealIndex dealIndex;
+    private final TopRatedIndex topRatedIndex;
+    private final SaleScheduler saleScheduler;
  
-    public DealService(GameRepository gameRepository) {
+    public DealService(GameRepository gameRepository, CatalogSnapshot catalogSnapshot, DealIndex dealIndex,
+                       TopRatedIndex topRatedIndex, SaleScheduler saleScheduler) {
         this.gameRepository = gameRepository;
+        this.catalogSnapshot = catalogSnapshot;
+        this.dealIndex = dealIndex;
+        this.topRatedIndex = topRatedIndex;
+        this.saleScheduler = saleScheduler;
     }
     
+    // Read from the deal index, which follows every price and sale change as it happens
     public List<Map<String, Object>> getFeaturedDeals() {
-        // Check if we need to refresh the featured deals
-        if (featuredDeals.isEmpty() || 
-            LocalDateTime.now().isAfter(lastFeaturedDealsUpdate.plusHours(6))) {
-            updateFeaturedDeals();
+        if (!dealIndex.isReady()) {
+            return loadFeaturedDeals();
         }
         
-        return featuredDeals;
+        return formatDeals(dealIndex.getFeatured());
     }
     
-    @Scheduled(cron = "0 0 */6 * * ?") // Run every 6 hours
-    public void updateFeaturedDeals() {
+    private List<Map<String, Object>> formatDeals(List<GameCard> games) {
+        return games.stream()
+            .map(game -> {
+                Map<String, Object> dealData = new HashMap<>();
+                dealData.put("id", game.getId());
+                dealData.put("title", game.getTitle());
+                dealData.put("coverUrl", game.getCoverImageUrl());
+                dealData.put("originalPrice", game.getPrice());
+                dealData.put("salePrice", game.getSalePrice());
+                dealData.put("discountPercentage", Math.round(DealIndex.discountOf(game) * 100));
+                return dealData;
+            })
+            .collect(Collectors.toList());
+    }
+    
+    // Only used until the index has been built at startup
+    private List<Map<String, Object>> loadFeaturedDeals() {
         // Get games that are on sale
         List<Game> onSaleGames = gameRepository.findByOnSaleTrue();
         
@@ -52,7 +78,7 @@ public class DealService {
             .collect(Collectors.toList());
         
         // Format for response
-        featuredDeals = sortedGames.stream()
+        return sortedGames.stream()
             .map(game -> {
                 Map<String, Object> dealData = new HashMap<>();
                 dealData.put("id", game.getId());
@@ -67,11 +93,13 @@ public class DealService {
                 return dealData;
             })
             .collect(Collectors.toList());
-        
-        lastFeaturedDealsUpdate = LocalDateTime.now();
     }
     
     public List<Map<String, Object>> getDealsByGenre(String genre) {
+        if (dealIndex.isReady()) {
+            return formatDeals(dealIndex.getDealsByGenre(genre, 10));
+        }
+        
         // Get games on sale with the specified genre
         List<Game> genreGames = gameRepository.findByGenre(genre, null).getContent();
         List<Game> onSaleGenreGames = genreGames.stream()
@@ -108,13 +136,13 @@ public class DealService {
     
     public List<Map<String, Object>> getDealsForUserWishlist(Long userId, List<Long> wishlistGameIds) {
         // Get games on sale from user's wishlist
-        List<Game> wishlistGames = gameRepository.findAllById(wishlistGameIds);
-        List<Game> onSaleWishlistGames = wishlistGames.stream()
-            .filter(Game::isOnSale)
+        Collection<GameCard> wishlistGames = catalogSnapshot.getCards(wishlistGameIds).values();
+        List<GameCard> onSaleWishlistGames = wishlistGames.stream()
+            .filter(GameCard::isOnSale)
             .collect(Collectors.toList());
         
         // Sort by discount percentage (highest first)
-        List<Game> sortedGames = onSaleWishlistGames.stream()
+        List<GameCard> sortedGames = onSaleWishlistGames.stream()
             .sorted((g1, g2) -> {
                 double discount1 = (1 - (g1.getSalePrice() / g1.getPrice())) * 100;
                 double discount2 = (1 - (g2.getSalePrice() / g2.getPrice())) * 100;
@@ -140,15 +168,38 @@ public class DealService {
             .collect(Collectors.toList());
     }
     
+    // Best rated games not already on sale, discounted from the next full hour for a week
     public Map<String, Object> createWeeklySale() {
-        // In a real implementation, this would create a new weekly sale
-        // For now, we'll return simulated data
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        LocalDateTime end = start.plusDays(7);
+        String name = "Weekly Special " + start.toLocalDate();
+        
+        List<GameCard> games = catalogSnapshot.getCards(topRatedIndex.topRated(WEEKLY_SALE_SIZE * 3)).values().stream()
+            .filter(game -> !game.isOnSale() && game.getPrice() > 0)
+            .sorted((g1, g2) -> Double.compare(g2.getAverageRating(), g1.getAverageRating()))
+            .limit(WEEKLY_SALE_SIZE)
+            .collect(Collectors.toList());
+        
+        saleScheduler.scheduleSale(name, games.stream().map(GameCard::getId).collect(Collectors.toList()),
+            WEEKLY_SALE_DISCOUNT, start, end);
         
         Map<String, Object> saleData = new HashMap<>();
-        saleData.put("name", "Weekly Special");
-        saleData.put("startDate", LocalDateTime.now());
-        saleData.put("endDate", LocalDateTime.now().plusDays(7));
-        saleData.put("featuredGames", getFeaturedDeals());
+        saleData.put("name", name);
+        saleData.put("startDate", start);
+        saleData.put("endDate", end);
+        saleData.put("discountPercentage", WEEKLY_SALE_DISCOUNT);
+        saleData.put("featuredGames", games.stream()
+            .map(game -> {
+                Map<String, Object> dealData = new HashMap<>();
+                dealData.put("id", game.getId());
+                dealData.put("title", game.getTitle());
+                dealData.put("coverUrl", game.getCoverImageUrl());
+                dealData.put("originalPrice", game.getPrice());
+                dealData.put("salePrice", Math.round(game.getPrice() * (100 - WEEKLY_SALE_DISCOUNT)) / 100.0);
+                dealData.put("discountPercentage", WEEKLY_SALE_DISCOUNT);
+                return dealData;
+            })
+            .collect(Collectors.toList()));
         
         return saleData;
     }
@@ -0,0 +1,167 @@
+package com.example.demo.service.integration;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.dto.PriceChange;
+import com.example.demo.event.PricesChangedEvent;
+import com.example.demo.util.StreamingQuery;
+
+// Bulk repricing over a compact (id, price, sale price, on sale) projection, without loading Game entities.
+// Changes are written in chunks of JDBC batch updates, each chunk in its own transaction followed by one event.
+@Service
+public class PriceBatchEngine {
+    
+    private static final int CHUNK_SIZE = 1000;
+    
+    private static final String PRICES_SQL = "SELECT id, price, sale_price, on_sale FROM games ORDER BY id";
+    
+    // Compare-and-set against the projected values: a game repriced elsewhere since the read is left alone
+    private static final String UPDATE_SQL =
+        "UPDATE games SET price = ?, sale_price = ?, on_sale = ? " +
+        "WHERE id = ? AND price = ? AND sale_price = ? AND on_sale = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StreamingQuery streamingQuery;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    public PriceBatchEngine(JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            StreamingQuery streamingQuery,
+                            ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.streamingQuery = streamingQuery;
+        this.eventPublisher = eventPublisher;
+    }
+    
+    // Current pricing of the whole catalog in primitive arrays, about 25 bytes per game
+    public PriceTable loadPrices() {
+        PriceTable table = new PriceTable();
+        streamingQuery.query(PRICES_SQL, rs -> {
+            table.add(rs.getLong(1), rs.getDouble(2), rs.getDouble(3), rs.getBoolean(4));
+        });
+        return table;
+    }
+    
+    // Changes that lost a race with another writer are in neither list; ones in a chunk that rolled back are failed
+    public ApplyResult apply(List<PriceChange> changes) {
+        List<PriceChange> applied = new ArrayList<>(changes.size());
+        List<PriceChange> failed = new ArrayList<>();
+        for (int from = 0; from < changes.size(); from += CHUNK_SIZE) {
+            List<PriceChange> chunk = changes.subList(from, Math.min(from + CHUNK_SIZE, changes.size()));
+            
+            List<PriceChange> written;
+            try {
+                written = transactionTemplate.execute(status -> writeChunk(chunk));
+            } catch (RuntimeException e) {
+                // Earlier chunks are committed and announced; this one rolled back as a whole
+                System.err.println("Error applying price chunk at " + from + ": " + e.getMessage());
+                failed.addAll(chunk);
+                continue;
+            }
+            
+            if (written != null && !written.isEmpty()) {
+                eventPublisher.publishEvent(new PricesChangedEvent(written));
+                applied.addAll(written);
+            }
+        }
+        return new ApplyResult(applied, failed);
+    }
+    
+    private List<PriceChange> writeChunk(List<PriceChange> chunk) {
+        List<Object[]> rows = new ArrayList<>(chunk.size());
+        for (PriceChange change : chunk) {
+            rows.add(new Object[] {
+                change.getPrice(), change.getSalePrice(), change.isOnSale(),
+                change.getGameId(), change.getPreviousPrice(), change.getPreviousSalePrice(), change.isPreviousOnSale()
+            });
+        }
+        
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, rows);
+        List<PriceChange> written = new ArrayList<>(chunk.size());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                written.add(chunk.get(i));
+            }
+        }
+        return written;
+    }
+    
+    public static final class ApplyResult {
+        
+        private final List<PriceChange> applied;
+        private final List<PriceChange> failed;
+        
+        ApplyResult(List<PriceChange> applied, List<PriceChange> failed) {
+            this.applied = applied;
+            this.failed = failed;
+        }
+        
+        public List<PriceChange> getApplied() {
+            return applied;
+        }
+        
+        public List<PriceChange> getFailed() {
+            return failed;
+        }
+    }
+    
+    // Row-indexed pricing columns, filled in id order
+    public static final class PriceTable {
+        
+        private long[] gameIds = new long[1024];
+        private double[] prices = new double[1024];
+        private double[] salePrices = new double[1024];
+        private boolean[] onSale = new boolean[1024];
+        private int size;
+        
+        void add(long gameId, double price, double salePrice, boolean isOnSale) {
+            if (size == gameIds.length) {
+                int capacity = size * 2;
+                gameIds = Arrays.copyOf(gameIds, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                salePrices = Arrays.copyOf(salePrices, capacity);
+                onSale = Arrays.copyOf(onSale, capacity);
+            }
+            gameIds[size] = gameId;
+            prices[size] = price;
+            salePrices[size] = salePrice;
+            onSale[size] = isOnSale;
+            size++;
+        }
+        
+        public int size() {
+            return size;
+        }
+        
+        public long getGameId(int row) {
+            return gameIds[row];
+        }
+        
+        public double getPrice(int row) {
+            return prices[row];
+        }
+        
+        public double getSalePrice(int row) {
+            return salePrices[row];
+        }
+        
+        public boolean isOnSale(int row) {
+            return onSale[row];
+        }
+        
+        // New pricing for a row, remembering the values it replaces
+        public PriceChange change(int row, double price, double salePrice, boolean isOnSale) {
+            return new PriceChange(gameIds[row], prices[row], salePrices[row], onSale[row], price, salePrice, isOnSale);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,302 @@
+package com.example.demo.service.integration;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.dto.PriceChange;
+import com.example.demo.dto.PricePoint;
+import com.example.demo.event.CatalogImportedEvent;
+import com.example.demo.event.GameChangedEvent;
+import com.example.demo.event.PricesChangedEvent;
+import com.example.demo.model.Game;
+import com.example.demo.util.DeltaVarintCodec;
+
+// Price history per game as append-only segments of (time, regular price, effective price) deltas.
+// A point is only written when a price actually changes, so years of history stay within a few segments.
+@Service
+public class PriceHistoryStore {
+    
+    // Roughly 5-8 bytes per point, so a full segment is about 1 KB
+    private static final int POINTS_PER_SEGMENT = 128;
+    
+    private static final int TUPLE_WIDTH = 3;
+    
+    private static final int SEED_BATCH_SIZE = 1000;
+    
+    private static final int MAX_APPEND_ATTEMPTS = 3;
+    
+    // Locking the newest segment serializes appends for one game, deltas are relative to its last point
+    private static final String TAIL_SQL =
+        "SELECT segment_no, point_count, last_time, last_price_cents, last_effective_cents " +
+        "FROM price_history_segments WHERE game_id = ? ORDER BY segment_no DESC LIMIT 1 FOR UPDATE";
+    
+    private static final String INSERT_SQL =
+        "INSERT INTO price_history_segments (game_id, segment_no, first_time, last_time, point_count, " +
+        "last_price_cents, last_effective_cents, min_cents, min_time, max_cents, max_time, data) " +
+        "VALUES (?, ?, ?, ?, 1, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (game_id, segment_no) DO NOTHING";
+    
+    // SET expressions all see the old row, so the CASEs compare against the previous extremes
+    private static final String APPEND_SQL =
+        "UPDATE price_history_segments SET data = data || ?, point_count = point_count + 1, last_time = ?, " +
+        "last_price_cents = ?, last_effective_cents = ?, " +
+        "min_time = CASE WHEN ? < min_cents THEN ? ELSE min_time END, min_cents = LEAST(min_cents, ?), " +
+        "max_time = CASE WHEN ? > max_cents THEN ? ELSE max_time END, max_cents = GREATEST(max_cents, ?) " +
+        "WHERE game_id = ? AND segment_no = ?";
+    
+    // From the segment holding the price in effect at the start of the range up to the end of it
+    private static final String RANGE_SQL =
+        "SELECT data FROM price_history_segments WHERE game_id = ? AND first_time <= ? AND segment_no >= (" +
+        "SELECT COALESCE(MAX(segment_no), 0) FROM price_history_segments WHERE game_id = ? AND first_time <= ?) " +
+        "ORDER BY segment_no";
+    
+    private static final String EXTREMES_SQL =
+        "SELECT min_cents, min_time, max_cents, max_time FROM price_history_segments WHERE game_id = ? ORDER BY segment_no";
+    
+    private static final String MISSING_SQL =
+        "SELECT g.id, g.price, g.sale_price, g.on_sale FROM games g " +
+        "WHERE NOT EXISTS (SELECT 1 FROM price_history_segments s WHERE s.game_id = g.id)";
+    
+    private static final String DELETE_SQL = "DELETE FROM price_history_segments WHERE game_id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    // Last prices written per game; most game saves (ratings, tags, images) don't touch the price
+    private final Map<Long, long[]> lastRecorded = new ConcurrentHashMap<>();
+    
+    public PriceHistoryStore(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+    
+    // Every game gets a starting point, later changes are recorded relative to it
+    @EventListener({ ApplicationReadyEvent.class, CatalogImportedEvent.class })
+    public void seedMissing() {
+        long now = Instant.now().getEpochSecond();
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        
+        try {
+            jdbcTemplate.query(MISSING_SQL, rs -> {
+                long priceCents = toCents(rs.getDouble(2));
+                long effectiveCents = rs.getBoolean(4) ? toCents(rs.getDouble(3)) : priceCents;
+                batch.add(segmentRow(rs.getLong(1), 0, now, priceCents, effectiveCents));
+                if (batch.size() >= SEED_BATCH_SIZE) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                    batch.clear();
+                }
+            });
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+            }
+        } catch (Exception e) {
+            System.err.println("Error seeding price history: " + e.getMessage());
+        }
+    }
+    
+    // After commit, so a rolled back price change never shows up in the history
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGameChanged(GameChangedEvent event) {
+        try {
+            if (event.isDeleted()) {
+                lastRecorded.remove(event.getGameId());
+                jdbcTemplate.update(DELETE_SQL, event.getGameId());
+                return;
+            }
+            
+            Game game = event.getGame();
+            record(game.getId(), game.getPrice(), game.isOnSale() ? game.getSalePrice() : game.getPrice());
+        } catch (Exception e) {
+            System.err.println("Error recording price history for game " + event.getGameId() + ": " + e.getMessage());
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPricesChanged(PricesChangedEvent event) {
+        try {
+            recordAll(event.getChanges());
+        } catch (Exception e) {
+            System.err.println("Error recording price history for a repricing chunk: " + e.getMessage());
+        }
+    }
+    
+    // A repricing chunk is appended in one transaction; games whose first segment raced another writer go again alone
+    public void recordAll(List<PriceChange> changes) {
+        long now = Instant.now().getEpochSecond();
+        List<PriceChange> appended = new ArrayList<>(changes.size());
+        List<PriceChange> conflicted = new ArrayList<>();
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            for (PriceChange change : changes) {
+                long priceCents = toCents(change.getPrice());
+                long effectiveCents = toCents(change.getEffectivePrice());
+                if (append(change.getGameId(), now, priceCents, effectiveCents)) {
+                    appended.add(change);
+                } else {
+                    conflicted.add(change);
+                }
+            }
+        });
+        
+        for (PriceChange change : appended) {
+            lastRecorded.put(change.getGameId(),
+                new long[] { toCents(change.getPrice()), toCents(change.getEffectivePrice()) });
+        }
+        for (PriceChange change : conflicted) {
+            record(change.getGameId(), change.getPrice(), change.getEffectivePrice());
+        }
+    }
+    
+    public void record(Long gameId, double price, double effectivePrice) {
+        long priceCents = toCents(price);
+        long effectiveCents = toCents(effectivePrice);
+        long[] last = lastRecorded.get(gameId);
+        if (last != null && last[0] == priceCents && last[1] == effectiveCents) {
+            return;
+        }
+        
+        long now = Instant.now().getEpochSecond();
+        for (int attempt = 1; ; attempt++) {
+            Boolean appended = transactionTemplate.execute(status -> append(gameId, now, priceCents, effectiveCents));
+            if (Boolean.TRUE.equals(appended)) {
+                break;
+            }
+            // Another writer created the same segment first; go again against the new tail
+            if (attempt >= MAX_APPEND_ATTEMPTS) {
+                throw new IllegalStateException("Could not append price history for game " + gameId);
+            }
+        }
+        lastRecorded.put(gameId, new long[] { priceCents, effectiveCents });
+    }
+    
+    // Points between from and to, oldest first; the price in effect at from is included as a point at from
+    public List<PricePoint> getHistory(Long gameId, LocalDateTime from, LocalDateTime to) {
+        long fromTime = toEpochSecond(from);
+        long toTime = toEpochSecond(to);
+        
+        List<byte[]> segments = jdbcTemplate.query(RANGE_SQL, (rs, rowNum) -> rs.getBytes(1),
+            gameId, toTime, gameId, fromTime);
+        
+        List<PricePoint> points = new ArrayList<>();
+        long[] carried = null;
+        for (byte[] data : segments) {
+            for (long[] tuple : DeltaVarintCodec.decode(data, TUPLE_WIDTH)) {
+                if (tuple[0] < fromTime) {
+                    carried = tuple;
+                    continue;
+                }
+                if (tuple[0] > toTime) {
+                    break;
+                }
+                if (carried != null) {
+                    if (tuple[0] > fromTime) {
+                        points.add(toPoint(fromTime, carried));
+                    }
+                    carried = null;
+                }
+                points.add(toPoint(tuple[0], tuple));
+            }
+        }
+        if (carried != null) {
+            points.add(toPoint(fromTime, carried));
+        }
+        return points;
+    }
+    
+    // All-time lowest and highest effective price from the per-segment extremes, no decoding involved
+    public Map<String, Object> getExtremes(Long gameId) {
+        long[] extremes = { Long.MAX_VALUE, 0, Long.MIN_VALUE, 0 };
+        jdbcTemplate.query(EXTREMES_SQL, rs -> {
+            if (rs.getLong(1) < extremes[0]) {
+                extremes[0] = rs.getLong(1);
+                extremes[1] = rs.getLong(2);
+            }
+            if (rs.getLong(3) > extremes[2]) {
+                extremes[2] = rs.getLong(3);
+                extremes[3] = rs.getLong(4);
+            }
+        }, gameId);
+        
+        Map<String, Object> result = new HashMap<>();
+        if (extremes[0] == Long.MAX_VALUE) {
+            return result;
+        }
+        result.put("lowestPrice", extremePoint(extremes[0], extremes[1]));
+        result.put("highestPrice", extremePoint(extremes[2], extremes[3]));
+        return result;
+    }
+    
+    // False when the segment to insert was created concurrently
+    private boolean append(Long gameId, long now, long priceCents, long effectiveCents) {
+        List<long[]> tail = jdbcTemplate.query(TAIL_SQL, (rs, rowNum) -> new long[] {
+            rs.getInt(1), rs.getInt(2), rs.getLong(3), rs.getLong(4), rs.getLong(5)
+        }, gameId);
+        
+        if (tail.isEmpty()) {
+            return jdbcTemplate.update(INSERT_SQL, segmentRow(gameId, 0, now, priceCents, effectiveCents)) > 0;
+        }
+        
+        long[] last = tail.get(0);
+        int segmentNo = (int) last[0];
+        if (last[3] == priceCents && last[4] == effectiveCents) {
+            return true;
+        }
+        
+        // Clocks of different instances may disagree slightly, time never runs backwards within a game
+        long time = Math.max(now, last[2]);
+        long[] point = { time, priceCents, effectiveCents };
+        
+        if (last[1] >= POINTS_PER_SEGMENT) {
+            return jdbcTemplate.update(INSERT_SQL, segmentRow(gameId, segmentNo + 1, time, priceCents, effectiveCents)) > 0;
+        }
+        
+        byte[] encoded = DeltaVarintCodec.encode(new long[] { last[2], last[3], last[4] }, point);
+        jdbcTemplate.update(APPEND_SQL, encoded, time, priceCents, effectiveCents,
+            effectiveCents, time, effectiveCents,
+            effectiveCents, time, effectiveCents,
+            gameId, segmentNo);
+        return true;
+    }
+    
+    // A segment starts from scratch, its first point is stored absolute
+    private static Object[] segmentRow(Long gameId, int segmentNo, long time, long priceCents, long effectiveCents) {
+        byte[] data = DeltaVarintCodec.encode(null, new long[] { time, priceCents, effectiveCents });
+        return new Object[] { gameId, segmentNo, time, time, priceCents, effectiveCents,
+            effectiveCents, time, effectiveCents, time, data };
+    }
+    
+    private static PricePoint toPoint(long time, long[] tuple) {
+        return new PricePoint(toLocalDateTime(time), tuple[1] / 100.0, tuple[2] / 100.0);
+    }
+    
+    private static Map<String, Object> extremePoint(long cents, long time) {
+        Map<String, Object> point = new HashMap<>();
+        point.put("date", toLocalDateTime(time).toString());
+        point.put("price", cents / 100.0);
+        return point;
+    }
+    
+    private static long toCents(double price) {
+        return Math.round(price * 100);
+    }
+    
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+    
+    private static LocalDateTime toLocalDateTime(long epochSecond) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+    }
+}
\ No newline at end of file
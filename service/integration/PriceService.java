@@ -2,6 +2,7 @@ package com.example.demo.service.integration;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -10,26 +11,44 @@ import java.util.Random;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.example.demo.dto.PriceChange;
+import com.example.demo.dto.PricePoint;
+import com.example.demo.event.GameChangedEvent;
 import com.example.demo.model.Game;
 import com.example.demo.repository.GameRepository;
+import com.example.demo.service.catalog.CatalogSnapshot;
+import com.example.demo.service.catalog.GameCard;
 
 @Service
 public class PriceService {
     
+    private static final int HISTORY_DAYS = 180;
+    
     private final GameRepository gameRepository;
     private final SteamAPIService steamAPIService;
+    private final CatalogSnapshot catalogSnapshot;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PriceHistoryStore priceHistoryStore;
+    private final PriceBatchEngine priceBatchEngine;
     
     @Autowired
-    public PriceService(GameRepository gameRepository, SteamAPIService steamAPIService) {
+    public PriceService(GameRepository gameRepository, SteamAPIService steamAPIService,
+                        CatalogSnapshot catalogSnapshot, ApplicationEventPublisher eventPublisher,
+                        PriceHistoryStore priceHistoryStore, PriceBatchEngine priceBatchEngine) {
         this.gameRepository = gameRepository;
         this.steamAPIService = steamAPIService;
+        this.catalogSnapshot = catalogSnapshot;
+        this.eventPublisher = eventPublisher;
+        this.priceHistoryStore = priceHistoryStore;
+        this.priceBatchEngine = priceBatchEngine;
     }
     
     public Map<String, Object> getGamePrice(Long gameId) {
-        Game game = gameRepository.findById(gameId)
+        GameCard game = catalogSnapshot.find(gameId)
             .orElseThrow(() -> new IllegalArgumentException("Game not found"));
         
         Map<String, Object> priceData = new HashMap<>();
@@ -70,34 +89,42 @@ public class PriceService {
         // In a real implementation, this would call Steam API
         // For now, we'll simulate updating prices for some games
         
-        List<Game> allGames = gameRepository.findAll();
+        // Pricing columns only, changes are computed in memory and written in chunked batches
+        PriceBatchEngine.PriceTable prices = priceBatchEngine.loadPrices();
+        if (prices.size() == 0) {
+            return;
+        }
         Random random = new Random();
         
-        // Update about 10% of games
-        int updateCount = Math.max(1, allGames.size() / 10);
+        // Update about 10% of games, each at most once per run
+        int updateCount = Math.max(1, prices.size() / 10);
+        BitSet picked = new BitSet(prices.size());
+        List<PriceChange> changes = new ArrayList<>(updateCount);
         
         for (int i = 0; i < updateCount; i++) {
-            int index = random.nextInt(allGames.size());
-            Game game = allGames.get(index);
+            int row = random.nextInt(prices.size());
+            if (picked.get(row)) {
+                continue;
+            }
+            picked.set(row);
             
             // Randomly put games on sale or update prices
             boolean putOnSale = random.nextBoolean();
             
-            if (putOnSale && !game.isOnSale()) {
+            if (putOnSale && !prices.isOnSale(row)) {
                 // Put game on sale
                 double discount = (random.nextInt(7) + 1) * 10; // 10% to 70% discount
-                double salePrice = game.getPrice() * (1 - (discount / 100));
+                double salePrice = prices.getPrice(row) * (1 - (discount / 100));
                 salePrice = Math.round(salePrice * 100) / 100.0; // Round to 2 decimal places
                 
-                game.setSalePrice(salePrice);
-                game.setOnSale(true);
-            } else if (game.isOnSale()) {
+                changes.add(prices.change(row, prices.getPrice(row), salePrice, true));
+            } else if (prices.isOnSale(row)) {
                 // End sale
-                game.setOnSale(false);
+                changes.add(prices.change(row, prices.getPrice(row), prices.getSalePrice(row), false));
             }
-            
-            gameRepository.save(game);
         }
+        
+        priceBatchEngine.apply(changes);
     }
     
     public void updateGamePrice(Long gameId, double newPrice) {
@@ -116,7 +143,7 @@ public class PriceService {
             game.setSalePrice(newSalePrice);
         }
         
-        gameRepository.save(game);
+        eventPublisher.publishEvent(GameChangedEvent.saved(gameRepository.save(game)));
     }
     
     public void setGameOnSale(Long gameId, double salePrice, boolean onSale) {
@@ -126,45 +153,39 @@ public class PriceService {
         game.setSalePrice(salePrice);
         game.setOnSale(onSale);
         
-        gameRepository.save(game);
+        eventPublisher.publishEvent(GameChangedEvent.saved(gameRepository.save(game)));
     }
     
+    // Last six months, the window the store page chart shows
     public Map<String, Object> getPriceHistory(Long gameId) {
-        // In a real implementation, this would fetch price history
-        // For now, we'll return simulated data
-        
-        Game game = gameRepository.findById(gameId)
+        LocalDateTime now = LocalDateTime.now();
+        return getPriceHistory(gameId, now.minusDays(HISTORY_DAYS), now);
+    }
+    
+    public Map<String, Object> getPriceHistory(Long gameId, LocalDateTime from, LocalDateTime to) {
+        GameCard game = catalogSnapshot.find(gameId)
             .orElseThrow(() -> new IllegalArgumentException("Game not found"));
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Invalid date range");
+        }
         
         Map<String, Object> priceHistory = new HashMap<>();
         priceHistory.put("gameId", game.getId());
         priceHistory.put("title", game.getTitle());
         
-        // Simulate 6 months of price history
         List<Map<String, Object>> historyPoints = new ArrayList<>();
-        Random random = new Random(game.getId().intValue()); // Seed with game ID for consistency
-        
-        double basePrice = game.getPrice();
-        
-        for (int i = 0; i < 180; i++) {
-            LocalDateTime date = LocalDateTime.now().minusDays(180 - i);
-            
-            // Create random sales events
-            boolean onSale = i % 30 == 0 || (i > 150 && i % 15 == 0);
-            double price = onSale ? 
-                basePrice * (1 - ((random.nextInt(7) + 1) * 0.1)) : basePrice;
-            
+        for (PricePoint pricePoint : priceHistoryStore.getHistory(gameId, from, to)) {
             Map<String, Object> point = new HashMap<>();
-            point.put("date", date.toString());
-            point.put("price", Math.round(price * 100) / 100.0);
-            point.put("onSale", onSale);
-            
+            point.put("date", pricePoint.getTime().toString());
+            point.put("price", pricePoint.getPrice());
+            point.put("regularPrice", pricePoint.getRegularPrice());
+            point.put("onSale", pricePoint.isOnSale());
             historyPoints.add(point);
         }
         
         priceHistory.put("history", historyPoints);
         
-        // Add lowest and highest prices
+        // Lowest and highest within the requested range
         Map<String, Object> lowestPrice = historyPoints.stream()
             .min(Comparator.comparing(p -> ((Double) p.get("price"))))
             .orElse(new HashMap<>());
@@ -176,6 +197,11 @@ public class PriceService {
         priceHistory.put("lowestPrice", lowestPrice);
         priceHistory.put("highestPrice", highestPrice);
         
+        // All-time lowest and highest, kept per segment as history is written
+        Map<String, Object> extremes = priceHistoryStore.getExtremes(gameId);
+        priceHistory.put("allTimeLowest", extremes.getOrDefault("lowestPrice", new HashMap<>()));
+        priceHistory.put("allTimeHighest", extremes.getOrDefault("highestPrice", new HashMap<>()));
+        
         return priceHistory;
     }
 }
\ No newline at end of file
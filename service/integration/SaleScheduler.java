@@ -0,0 +1,466 @@
+package com.example.demo.service.integration;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.dto.PriceChange;
+import com.example.demo.service.catalog.CatalogSnapshot;
+import com.example.demo.service.catalog.DealIndex;
+import com.example.demo.service.catalog.GameCard;
+import com.example.demo.service.game.StorefrontMaterializer;
+import com.example.demo.util.StreamingQuery;
+import com.example.demo.util.TimingWheel;
+
+import jakarta.annotation.PreDestroy;
+
+// Applies scheduled price changes (sale starts and ends) at the second they are due.
+// Pending changes live in scheduled_price_changes; the in-memory timing wheel only holds (id, second) pairs
+// and is reloaded from the table at startup. Firing re-reads the rows, so a cancelled change simply isn't found.
+@Service
+public class SaleScheduler {
+    
+    private static final int BATCH_SIZE = 1000;
+    
+    private static final long BASE_BACKOFF_SECONDS = 5;
+    private static final long MAX_BACKOFF_SECONDS = 10 * 60;
+    
+    private static final String ALLOCATE_IDS =
+        "SELECT nextval(pg_get_serial_sequence('scheduled_price_changes', 'id')) FROM generate_series(1, ?)";
+    
+    private static final String INSERT_SQL =
+        "INSERT INTO scheduled_price_changes (id, game_id, fire_at, price, sale_price, on_sale, sale_name, " +
+        "attempts, failed) VALUES (?, ?, ?, ?, ?, ?, ?, 0, false)";
+    
+    private static final String PENDING_SQL = "SELECT id, fire_at FROM scheduled_price_changes WHERE failed = false";
+    
+    private static final String BIG_SECONDS_SQL =
+        "SELECT fire_at FROM scheduled_price_changes WHERE failed = false GROUP BY fire_at HAVING COUNT(*) >= ?";
+    
+    private static final String DUE_AT_SQL =
+        "SELECT id, game_id, fire_at, price, sale_price, on_sale, sale_name, attempts FROM scheduled_price_changes " +
+        "WHERE fire_at = ? AND failed = false";
+    
+    private static final String BY_IDS_SQL =
+        "SELECT id, game_id, fire_at, price, sale_price, on_sale, sale_name, attempts FROM scheduled_price_changes " +
+        "WHERE id IN (:ids) AND failed = false";
+    
+    private static final String RESCHEDULE_SQL = "UPDATE scheduled_price_changes SET attempts = ?, failed = ? WHERE id = ?";
+    
+    private static final String PRICES_SQL = "SELECT id, price, sale_price, on_sale FROM games WHERE id IN (:ids)";
+    
+    private static final String DELETE_SQL = "DELETE FROM scheduled_price_changes WHERE id IN (:ids)";
+    
+    private static final String SALE_EXISTS_SQL =
+        "SELECT EXISTS (SELECT 1 FROM scheduled_price_changes WHERE sale_name = ?)";
+    
+    private static final String CANCEL_SQL = "DELETE FROM scheduled_price_changes WHERE sale_name = ?";
+    
+    private static final Comparator<Transition> IN_FIRING_ORDER = Comparator
+        .comparingLong((Transition t) -> t.fireTime)
+        .thenComparingLong(t -> t.id);
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StreamingQuery streamingQuery;
+    private final PriceBatchEngine priceBatchEngine;
+    private final CatalogSnapshot catalogSnapshot;
+    private final DealIndex dealIndex;
+    private final StorefrontMaterializer storefrontMaterializer;
+    private final int prewarmSeconds;
+    private final int prewarmMinChanges;
+    private final int maxAttempts;
+    
+    // Guarded by its own monitor; warm-up markers are stored as negative ids holding the second they prepare
+    private final TimingWheel wheel = new TimingWheel(Instant.now().getEpochSecond());
+    
+    // Rows read ahead of a big second by its warm-up, by id
+    private final Map<Long, Transition> prepared = new ConcurrentHashMap<>();
+    private final Set<Long> warmUpSeconds = ConcurrentHashMap.newKeySet();
+    
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sale-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public SaleScheduler(JdbcTemplate jdbcTemplate,
+                         NamedParameterJdbcTemplate namedJdbcTemplate,
+                         TransactionTemplate transactionTemplate,
+                         StreamingQuery streamingQuery,
+                         PriceBatchEngine priceBatchEngine,
+                         CatalogSnapshot catalogSnapshot,
+                         DealIndex dealIndex,
+                         StorefrontMaterializer storefrontMaterializer,
+                         @Value("${sales.prewarm-seconds:60}") int prewarmSeconds,
+                         @Value("${sales.prewarm-min-changes:1000}") int prewarmMinChanges,
+                         @Value("${sales.max-attempts:10}") int maxAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.streamingQuery = streamingQuery;
+        this.priceBatchEngine = priceBatchEngine;
+        this.catalogSnapshot = catalogSnapshot;
+        this.dealIndex = dealIndex;
+        this.storefrontMaterializer = storefrontMaterializer;
+        this.prewarmSeconds = prewarmSeconds;
+        this.prewarmMinChanges = prewarmMinChanges;
+        this.maxAttempts = maxAttempts;
+    }
+    
+    // Changes that came due while the application was down fire on the first tick
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        TimingWheel.Bucket pending = new TimingWheel.Bucket();
+        
+        try {
+            streamingQuery.query(PENDING_SQL, rs -> {
+                pending.add(rs.getLong(1), toEpochSecond(rs.getTimestamp(2).toLocalDateTime()));
+            });
+            List<Timestamp> bigSeconds = jdbcTemplate.queryForList(BIG_SECONDS_SQL, Timestamp.class, prewarmMinChanges);
+            
+            synchronized (wheel) {
+                for (int i = 0; i < pending.size(); i++) {
+                    wheel.add(pending.getId(i), pending.getDeadline(i));
+                }
+            }
+            for (Timestamp second : bigSeconds) {
+                scheduleWarmUp(toEpochSecond(second.toLocalDateTime()));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error loading scheduled price changes: " + e.getMessage());
+        }
+        
+        // Aligned to the start of the next second
+        long delay = 1000 - System.currentTimeMillis() % 1000;
+        ticker.scheduleAtFixedRate(this::tick, delay, 1000, TimeUnit.MILLISECONDS);
+    }
+    
+    // Null price or sale price keeps the game's value at the time the change fires
+    public long schedule(Long gameId, LocalDateTime fireAt, Double price, Double salePrice, boolean onSale, String saleName) {
+        if (catalogSnapshot.get(gameId) == null) {
+            throw new IllegalArgumentException("Game not found");
+        }
+        Transition transition = new Transition(0, gameId, toEpochSecond(fireAt), price, salePrice, onSale, saleName, 0);
+        return insert(List.of(transition)).get(0);
+    }
+    
+    // A start and an end change per game; unknown games are skipped. Returns the number of games in the sale.
+    // A sale name can only be scheduled once while any of its changes are pending.
+    public int scheduleSale(String saleName, Collection<Long> gameIds, int discountPercent,
+                            LocalDateTime start, LocalDateTime end) {
+        if (discountPercent < 1 || discountPercent > 99) {
+            throw new IllegalArgumentException("Discount must be between 1 and 99 percent");
+        }
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("Sale must end after it starts");
+        }
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(SALE_EXISTS_SQL, Boolean.class, saleName))) {
+            throw new IllegalStateException("Sale already scheduled");
+        }
+        
+        long startTime = toEpochSecond(start);
+        long endTime = toEpochSecond(end);
+        List<Transition> transitions = new ArrayList<>(gameIds.size() * 2);
+        for (GameCard game : catalogSnapshot.getCards(gameIds).values()) {
+            double salePrice = Math.round(game.getPrice() * (100 - discountPercent)) / 100.0;
+            transitions.add(new Transition(0, game.getId(), startTime, null, salePrice, true, saleName, 0));
+            transitions.add(new Transition(0, game.getId(), endTime, null, null, false, saleName, 0));
+        }
+        if (transitions.isEmpty()) {
+            return 0;
+        }
+        
+        try {
+            insert(transitions);
+        } catch (DuplicateKeyException e) {
+            // Scheduled concurrently under the same name; the unique key rolled this one back
+            throw new IllegalStateException("Sale already scheduled");
+        }
+        if (transitions.size() / 2 >= prewarmMinChanges) {
+            scheduleWarmUp(startTime);
+            scheduleWarmUp(endTime);
+        }
+        return transitions.size() / 2;
+    }
+    
+    // Changes of the sale that haven't fired yet are dropped; ones already applied stay applied
+    public int cancelSale(String saleName) {
+        int cancelled = jdbcTemplate.update(CANCEL_SQL, saleName);
+        prepared.values().removeIf(t -> saleName.equals(t.saleName));
+        return cancelled;
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (wheel) {
+            stats.put("pending", wheel.size());
+            stats.put("currentSecond", wheel.getCurrentTick());
+        }
+        stats.put("prepared", prepared.size());
+        stats.put("warmUps", warmUpSeconds.size());
+        return stats;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+    
+    // Rows first, wheel after commit: a change on the wheel whose row never committed just isn't found
+    private List<Long> insert(List<Transition> transitions) {
+        List<Long> ids = transactionTemplate.execute(status -> {
+            List<Long> allocated = jdbcTemplate.queryForList(ALLOCATE_IDS, Long.class, transitions.size());
+            for (int from = 0; from < transitions.size(); from += BATCH_SIZE) {
+                List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+                for (int i = from; i < Math.min(from + BATCH_SIZE, transitions.size()); i++) {
+                    Transition t = transitions.get(i);
+                    rows.add(new Object[] {
+                        allocated.get(i), t.gameId, Timestamp.valueOf(toLocalDateTime(t.fireTime)),
+                        t.price, t.salePrice, t.onSale, t.saleName
+                    });
+                }
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            }
+            return allocated;
+        });
+        
+        synchronized (wheel) {
+            for (int i = 0; i < transitions.size(); i++) {
+                wheel.add(ids.get(i), transitions.get(i).fireTime);
+            }
+        }
+        return ids;
+    }
+    
+    private void scheduleWarmUp(long fireTime) {
+        if (warmUpSeconds.add(fireTime)) {
+            synchronized (wheel) {
+                wheel.add(-fireTime, fireTime - prewarmSeconds);
+            }
+        }
+    }
+    
+    // Runs on the ticker thread; an exception escaping here would cancel every later tick
+    private void tick() {
+        try {
+            long now = Instant.now().getEpochSecond();
+            TimingWheel.Bucket due = new TimingWheel.Bucket();
+            synchronized (wheel) {
+                wheel.advanceTo(now, due);
+            }
+            
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < due.size(); i++) {
+                long id = due.getId(i);
+                if (id < 0) {
+                    warmUp(-id);
+                } else {
+                    ids.add(id);
+                }
+            }
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                fire(ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())), now);
+            }
+        } catch (Exception e) {
+            System.err.println("Error firing scheduled price changes: " + e.getMessage());
+        }
+    }
+    
+    // Reads a big second's rows ahead so firing is one price read and one batch write,
+    // and makes sure the read models that will absorb the change are built
+    private void warmUp(long fireTime) {
+        try {
+            jdbcTemplate.query(DUE_AT_SQL, rs -> {
+                Transition t = Transition.from(rs.getLong(1), rs.getLong(2), rs.getTimestamp(3), rs.getObject(4),
+                    rs.getObject(5), rs.getBoolean(6), rs.getString(7), rs.getInt(8));
+                prepared.put(t.id, t);
+            }, Timestamp.valueOf(toLocalDateTime(fireTime)));
+            
+            if (!catalogSnapshot.isReady()) {
+                catalogSnapshot.rebuild();
+            }
+            if (!dealIndex.isReady()) {
+                dealIndex.rebuild();
+            }
+            if (!storefrontMaterializer.isReady()) {
+                storefrontMaterializer.rebuild();
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error warming up sale at " + toLocalDateTime(fireTime) + ": " + e.getMessage());
+        } finally {
+            warmUpSeconds.remove(fireTime);
+        }
+    }
+    
+    private void fire(List<Long> ids, long now) {
+        List<Transition> transitions = new ArrayList<>(ids.size());
+        List<Long> unprepared = new ArrayList<>();
+        for (Long id : ids) {
+            Transition t = prepared.remove(id);
+            if (t != null) {
+                transitions.add(t);
+            } else {
+                unprepared.add(id);
+            }
+        }
+        if (!unprepared.isEmpty()) {
+            namedJdbcTemplate.query(BY_IDS_SQL, Map.of("ids", unprepared), rs -> {
+                transitions.add(Transition.from(rs.getLong(1), rs.getLong(2), rs.getTimestamp(3), rs.getObject(4),
+                    rs.getObject(5), rs.getBoolean(6), rs.getString(7), rs.getInt(8)));
+            });
+        }
+        if (transitions.isEmpty()) {
+            return;
+        }
+        transitions.sort(IN_FIRING_ORDER);
+        
+        // Several changes of one game due together fold into a single change from its current pricing
+        Map<Long, List<Transition>> byGame = new LinkedHashMap<>();
+        for (Transition t : transitions) {
+            byGame.computeIfAbsent(t.gameId, id -> new ArrayList<>()).add(t);
+        }
+        Map<Long, double[]> current = new HashMap<>();
+        namedJdbcTemplate.query(PRICES_SQL, Map.of("ids", byGame.keySet()), rs -> {
+            current.put(rs.getLong(1), new double[] { rs.getDouble(2), rs.getDouble(3), rs.getBoolean(4) ? 1 : 0 });
+        });
+        
+        List<PriceChange> changes = new ArrayList<>(byGame.size());
+        for (Map.Entry<Long, List<Transition>> entry : byGame.entrySet()) {
+            double[] pricing = current.get(entry.getKey());
+            if (pricing == null) {
+                continue; // Game deleted, its changes are dropped
+            }
+            double price = pricing[0];
+            double salePrice = pricing[1];
+            boolean onSale = pricing[2] != 0;
+            for (Transition t : entry.getValue()) {
+                price = t.price != null ? t.price : price;
+                salePrice = t.salePrice != null ? t.salePrice : salePrice;
+                onSale = t.onSale;
+            }
+            if (price != pricing[0] || salePrice != pricing[1] || onSale != (pricing[2] != 0)) {
+                changes.add(new PriceChange(entry.getKey(), pricing[0], pricing[1], pricing[2] != 0,
+                    price, salePrice, onSale));
+            }
+        }
+        
+        PriceBatchEngine.ApplyResult result = priceBatchEngine.apply(changes);
+        Set<Long> written = new HashSet<>();
+        for (PriceChange change : result.getApplied()) {
+            written.add(change.getGameId());
+        }
+        Set<Long> failed = new HashSet<>();
+        for (PriceChange change : result.getFailed()) {
+            failed.add(change.getGameId());
+        }
+        
+        // A lost race means the game was repriced in between; its rows go again next second against the new pricing
+        Set<Long> raced = new HashSet<>();
+        for (PriceChange change : changes) {
+            if (!written.contains(change.getGameId()) && !failed.contains(change.getGameId())) {
+                raced.add(change.getGameId());
+            }
+        }
+        
+        // Rows in a chunk that rolled back back off, and are flagged once they run out of attempts
+        List<Long> done = new ArrayList<>(transitions.size());
+        List<Object[]> rescheduled = new ArrayList<>();
+        int givenUp = 0;
+        synchronized (wheel) {
+            for (Transition t : transitions) {
+                if (raced.contains(t.gameId)) {
+                    wheel.add(t.id, now + 1);
+                } else if (failed.contains(t.gameId)) {
+                    int attempts = t.attempts + 1;
+                    boolean giveUp = attempts >= maxAttempts;
+                    if (giveUp) {
+                        givenUp++;
+                    } else {
+                        long delay = Math.min(MAX_BACKOFF_SECONDS, BASE_BACKOFF_SECONDS << Math.min(attempts - 1, 20));
+                        wheel.add(t.id, now + delay);
+                    }
+                    rescheduled.add(new Object[] { attempts, giveUp, t.id });
+                } else {
+                    done.add(t.id);
+                }
+            }
+        }
+        if (!done.isEmpty()) {
+            namedJdbcTemplate.update(DELETE_SQL, Map.of("ids", done));
+        }
+        if (!rescheduled.isEmpty()) {
+            jdbcTemplate.batchUpdate(RESCHEDULE_SQL, rescheduled);
+        }
+        if (!raced.isEmpty()) {
+            System.err.println("Retrying scheduled price changes for " + raced.size() + " repriced games");
+        }
+        if (givenUp > 0) {
+            System.err.println("Giving up on " + givenUp + " scheduled price changes after " + maxAttempts + " attempts");
+        }
+    }
+    
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+    
+    private static LocalDateTime toLocalDateTime(long epochSecond) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+    }
+    
+    private static final class Transition {
+        
+        private final long id;
+        private final long gameId;
+        private final long fireTime;
+        private final Double price;
+        private final Double salePrice;
+        private final boolean onSale;
+        private final String saleName;
+        private final int attempts;
+        
+        Transition(long id, long gameId, long fireTime, Double price, Double salePrice, boolean onSale, String saleName,
+                   int attempts) {
+            this.id = id;
+            this.gameId = gameId;
+            this.fireTime = fireTime;
+            this.price = price;
+            this.salePrice = salePrice;
+            this.onSale = onSale;
+            this.saleName = saleName;
+            this.attempts = attempts;
+        }
+        
+        static Transition from(long id, long gameId, Timestamp fireAt, Object price, Object salePrice,
+                               boolean onSale, String saleName, int attempts) {
+            return new Transition(id, gameId, toEpochSecond(fireAt.toLocalDateTime()),
+                price != null ? ((Number) price).doubleValue() : null,
+                salePrice != null ? ((Number) salePrice).doubleValue() : null,
+                onSale, saleName, attempts);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,177 @@
+package com.example.demo.service.integration;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.dto.PriceChange;
+import com.example.demo.event.CatalogImportedEvent;
+import com.example.demo.event.GameChangedEvent;
+import com.example.demo.event.PricesChangedEvent;
+import com.example.demo.service.catalog.CatalogSnapshot;
+import com.example.demo.service.catalog.GameCard;
+import com.example.demo.service.realtime.LiveUpdateService;
+import com.example.demo.service.user.WishlistIndex;
+
+import jakarta.annotation.PreDestroy;
+
+// Tells everyone who wishlisted a game that its price dropped.
+// Wishlisters come from one bitmap lookup and are alerted in batches spread over a small pool.
+@Service
+public class WishlistAlertService {
+    
+    private static final int BATCH_SIZE = 1000;
+    
+    private static final String NOTIFICATION_TYPE = "wishlist_deal";
+    
+    private static final String INSERT_NOTIFICATION_SQL =
+        "INSERT INTO notifications (user_id, title, message, type, data, timestamp, read) " +
+        "VALUES (?, ?, ?, ?, ?, ?, false)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogSnapshot catalogSnapshot;
+    private final WishlistIndex wishlistIndex;
+    private final LiveUpdateService liveUpdateService;
+    private final ExecutorService executor;
+    
+    // Effective price each game was last seen at, so only drops are announced and each only once
+    private final Map<Long, Double> lastPrices = new ConcurrentHashMap<>();
+    
+    public WishlistAlertService(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                CatalogSnapshot catalogSnapshot,
+                                WishlistIndex wishlistIndex,
+                                LiveUpdateService liveUpdateService,
+                                @Value("${wishlist.alerts.threads:4}") int threads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.catalogSnapshot = catalogSnapshot;
+        this.wishlistIndex = wishlistIndex;
+        this.liveUpdateService = liveUpdateService;
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "wishlist-alerts-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    // Imports reprice without alerts; the next change is compared against what they left
+    @EventListener({ ApplicationReadyEvent.class, CatalogImportedEvent.class })
+    public void seedPrices() {
+        for (GameCard card : catalogSnapshot.getAll()) {
+            lastPrices.put(card.getId(), effectivePrice(card.getPrice(), card.getSalePrice(), card.isOnSale()));
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGameChanged(GameChangedEvent event) {
+        if (event.isDeleted()) {
+            lastPrices.remove(event.getGameId());
+            return;
+        }
+        
+        GameCard card = catalogSnapshot.get(event.getGameId());
+        if (card == null) {
+            return;
+        }
+        double price = effectivePrice(card.getPrice(), card.getSalePrice(), card.isOnSale());
+        Double previous = lastPrices.put(card.getId(), price);
+        if (previous != null && price < previous) {
+            alert(card, previous);
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPricesChanged(PricesChangedEvent event) {
+        for (PriceChange change : event.getChanges()) {
+            lastPrices.put(change.getGameId(), change.getEffectivePrice());
+            if (change.getEffectivePrice() < change.getPreviousEffectivePrice()) {
+                GameCard card = catalogSnapshot.get(change.getGameId());
+                if (card != null) {
+                    alert(card, change.getPreviousEffectivePrice());
+                }
+            }
+        }
+    }
+    
+    // Sales are shown against the regular price, plain price cuts against the price before the cut
+    private void alert(GameCard card, double previousPrice) {
+        double originalPrice = card.isOnSale() ? card.getPrice() : previousPrice;
+        double salePrice = effectivePrice(card.getPrice(), card.getSalePrice(), card.isOnSale());
+        executor.execute(() -> fanOut(card.getId(), card.getTitle(), originalPrice, salePrice));
+    }
+    
+    private void fanOut(Long gameId, String title, double originalPrice, double salePrice) {
+        RoaringBitmap users;
+        try {
+            users = wishlistIndex.wishlistersOf(gameId);
+        } catch (RuntimeException e) {
+            System.err.println("Error looking up wishlisters of game " + gameId + ": " + e.getMessage());
+            return;
+        }
+        
+        IntIterator it = users.getIntIterator();
+        while (it.hasNext()) {
+            int[] batch = new int[BATCH_SIZE];
+            int size = 0;
+            while (it.hasNext() && size < batch.length) {
+                batch[size++] = it.next();
+            }
+            int batchSize = size;
+            executor.execute(() -> deliver(batch, batchSize, gameId, title, originalPrice, salePrice));
+        }
+    }
+    
+    // One insert batch and commit for the stored notifications, then the live alerts
+    private void deliver(int[] userIds, int size, Long gameId, String title, double originalPrice, double salePrice) {
+        String message = String.format("%s is now %.2f (was %.2f)", title, salePrice, originalPrice);
+        String data = Map.of("gameId", gameId, "originalPrice", originalPrice, "salePrice", salePrice).toString();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        
+        try {
+            List<Object[]> rows = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                rows.add(new Object[] { (long) userIds[i], "Wishlist game on sale", message, NOTIFICATION_TYPE, data, now });
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_NOTIFICATION_SQL, rows));
+        } catch (RuntimeException e) {
+            System.err.println("Error storing wishlist notifications for game " + gameId + ": " + e.getMessage());
+        }
+        
+        for (int i = 0; i < size; i++) {
+            try {
+                liveUpdateService.sendDealAlert((long) userIds[i], gameId, title, originalPrice, salePrice);
+            } catch (Exception e) {
+                System.err.println("Error sending deal alert to user " + userIds[i] + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    private static double effectivePrice(double price, double salePrice, boolean onSale) {
+        return onSale ? salePrice : price;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,211 @@
+package com.example.demo.service.realtime;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.gamification.CollectionQuestService;
+import com.example.demo.service.gamification.PlatformAchievementService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Delivers outbox messages in batches, off the request path. Delivery is at-least-once:
+// a crash between delivering and deleting a message means it is delivered again after its lease runs out.
+@Service
+public class OutboxRelay {
+    
+    private static final int BATCH_SIZE = 200;
+    
+    // Caps one run so a backlog doesn't hold the shared scheduler thread for long
+    private static final int MAX_BATCHES_PER_RUN = 10;
+    
+    // A claimed message becomes visible again if the relay dies before settling it
+    private static final long LEASE_MILLIS = 60_000;
+    
+    private static final long BASE_BACKOFF_MILLIS = 5_000;
+    private static final long MAX_BACKOFF_MILLIS = 10 * 60_000;
+    
+    // One statement claims the batch; SKIP LOCKED lets several instances relay without stepping on each other
+    private static final String CLAIM_SQL =
+        "UPDATE outbox_messages SET available_at = ?, attempts = attempts + 1 WHERE id IN (" +
+        "SELECT id FROM outbox_messages WHERE failed = false AND available_at <= ? " +
+        "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+        "RETURNING id, type, user_id, payload, attempts";
+    
+    private static final String DELETE_SQL = "DELETE FROM outbox_messages WHERE id = ?";
+    
+    private static final String RESCHEDULE_SQL = "UPDATE outbox_messages SET available_at = ?, failed = ? WHERE id = ?";
+    
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<Map<String, Object>>() {};
+    
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final NotificationService notificationService;
+    private final LiveUpdateService liveUpdateService;
+    private final CollectionQuestService collectionQuestService;
+    private final PlatformAchievementService platformAchievementService;
+    
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       ObjectMapper objectMapper,
+                       NotificationService notificationService,
+                       LiveUpdateService liveUpdateService,
+                       CollectionQuestService collectionQuestService,
+                       PlatformAchievementService platformAchievementService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.notificationService = notificationService;
+        this.liveUpdateService = liveUpdateService;
+        this.collectionQuestService = collectionQuestService;
+        this.platformAchievementService = platformAchievementService;
+    }
+    
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:500}")
+    public void relay() {
+        for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+            List<Message> batch;
+            try {
+                batch = claim();
+            } catch (Exception e) {
+                System.err.println("Error claiming outbox messages: " + e.getMessage());
+                return;
+            }
+            
+            if (batch.isEmpty()) {
+                return;
+            }
+            deliver(batch);
+            if (batch.size() < BATCH_SIZE) {
+                return;
+            }
+        }
+    }
+    
+    private List<Message> claim() {
+        long now = System.currentTimeMillis();
+        List<Message> batch = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new Message(
+            rs.getLong(1),
+            rs.getString(2),
+            rs.getObject(3) != null ? rs.getLong(3) : null,
+            rs.getString(4),
+            rs.getInt(5)
+        ), new Timestamp(now + LEASE_MILLIS), new Timestamp(now), BATCH_SIZE);
+        
+        // RETURNING has no order; keep each user's messages in the order they were written
+        batch.sort(Comparator.comparingLong(message -> message.id));
+        return batch;
+    }
+    
+    private void deliver(List<Message> batch) {
+        List<Object[]> delivered = new ArrayList<>();
+        List<Object[]> rescheduled = new ArrayList<>();
+        
+        // A cart of games queues one check per user, and so does every purchase in the batch; run each once
+        Map<String, Boolean> checks = new HashMap<>();
+        
+        for (Message message : batch) {
+            boolean ok;
+            if (OutboxService.QUEST_CHECK.equals(message.type) || OutboxService.ACHIEVEMENT_CHECK.equals(message.type)) {
+                ok = checks.computeIfAbsent(message.type + ":" + message.userId, key -> attempt(message));
+            } else {
+                ok = attempt(message);
+            }
+            
+            if (ok) {
+                delivered.add(new Object[] { message.id });
+            } else {
+                boolean giveUp = message.attempts >= maxAttempts;
+                long delay = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(message.attempts - 1, 20));
+                rescheduled.add(new Object[] { new Timestamp(System.currentTimeMillis() + delay), giveUp, message.id });
+                if (giveUp) {
+                    System.err.println("Giving up on outbox message " + message.id + " (" + message.type + ") after "
+                        + message.attempts + " attempts");
+                }
+            }
+        }
+        
+        // If settling fails the leases run out and the batch is retried, which at-least-once allows
+        try {
+            if (!delivered.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_SQL, delivered);
+            }
+            if (!rescheduled.isEmpty()) {
+                jdbcTemplate.batchUpdate(RESCHEDULE_SQL, rescheduled);
+            }
+        } catch (Exception e) {
+            System.err.println("Error settling outbox messages: " + e.getMessage());
+        }
+    }
+    
+    private boolean attempt(Message message) {
+        try {
+            dispatch(message);
+            return true;
+        } catch (Exception e) {
+            System.err.println("Error delivering outbox message " + message.id + " (" + message.type + "): "
+                + e.getMessage());
+            return false;
+        }
+    }
+    
+    private void dispatch(Message message) throws Exception {
+        Map<String, Object> payload = message.payload != null
+            ? objectMapper.readValue(message.payload, PAYLOAD_TYPE)
+            : Map.of();
+        
+        switch (message.type) {
+            case OutboxService.NOTIFICATION:
+                @SuppressWarnings("unchecked")
+                Map<String, Object> data = (Map<String, Object>) payload.getOrDefault("data", Map.of());
+                notificationService.sendNotification(
+                    message.userId,
+                    (String) payload.get("title"),
+                    (String) payload.get("message"),
+                    (String) payload.get("type"),
+                    data
+                );
+                break;
+            case OutboxService.LIBRARY_UPDATE:
+                String updateType = (String) payload.get("updateType");
+                for (Object gameId : (List<?>) payload.get("gameIds")) {
+                    liveUpdateService.sendLibraryUpdate(message.userId, ((Number) gameId).longValue(), updateType);
+                }
+                break;
+            case OutboxService.QUEST_CHECK:
+                collectionQuestService.checkQuestProgress(message.userId);
+                break;
+            case OutboxService.ACHIEVEMENT_CHECK:
+                platformAchievementService.checkAndAwardAchievements(message.userId);
+                break;
+            default:
+                throw new IllegalStateException("Unknown outbox message type");
+        }
+    }
+    
+    private static final class Message {
+        
+        private final long id;
+        private final String type;
+        private final Long userId;
+        private final String payload;
+        private final int attempts;
+        
+        Message(long id, String type, Long userId, String payload, int attempts) {
+            this.id = id;
+            this.type = type;
+            this.userId = userId;
+            this.payload = payload;
+            this.attempts = attempts;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.example.demo.service.realtime;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Records side effects in the caller's transaction; OutboxRelay delivers them once that transaction has committed.
+// Mandatory: a message written outside the business transaction could outlive a rollback.
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+    
+    public static final String NOTIFICATION = "notification";
+    public static final String LIBRARY_UPDATE = "library_update";
+    public static final String QUEST_CHECK = "quest_check";
+    public static final String ACHIEVEMENT_CHECK = "achievement_check";
+    
+    private static final String INSERT_SQL =
+        "INSERT INTO outbox_messages (type, user_id, payload, created_at, available_at, attempts, failed) " +
+        "VALUES (?, ?, ?, ?, ?, 0, false)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    
+    public OutboxService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+    
+    public void enqueue(String type, Long userId, Map<String, Object> payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable", e);
+        }
+        
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.update(INSERT_SQL, type, userId, json, now, now);
+    }
+    
+    public void enqueueNotification(Long userId, String title, String message, String notificationType,
+                                    Map<String, Object> data) {
+        enqueue(NOTIFICATION, userId, Map.of(
+            "title", title,
+            "message", message,
+            "type", notificationType,
+            "data", data
+        ));
+    }
+    
+    public void enqueueLibraryUpdate(Long userId, Collection<Long> gameIds, String updateType) {
+        enqueue(LIBRARY_UPDATE, userId, Map.of(
+            "gameIds", gameIds,
+            "updateType", updateType
+        ));
+    }
+    
+    // Quest and achievement checks are idempotent, so the relay runs each at most once per user per batch
+    public void enqueueProgressChecks(Long userId) {
+        enqueue(QUEST_CHECK, userId, Map.of());
+        enqueue(ACHIEVEMENT_CHECK, userId, Map.of());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.example.demo.service.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Store sidebar selection: values inside one facet are OR'ed (unless matchAll is set), facets are AND'ed together
+public class FacetQuery {
+    
+    private List<String> genres = new ArrayList<>();
+    private boolean matchAllGenres;
+    private List<String> tags = new ArrayList<>();
+    private boolean matchAllTags;
+    private List<String> priceRanges = new ArrayList<>();
+    private Double maxPrice;
+    private Boolean onSale;
+    
+    public static FacetQuery forGenre(String genre) {
+        FacetQuery query = new FacetQuery();
+        query.getGenres().add(genre);
+        return query;
+    }
+    
+    public static FacetQuery forTag(String tag) {
+        FacetQuery query = new FacetQuery();
+        query.getTags().add(tag);
+        return query;
+    }
+    
+    public List<String> getGenres() {
+        return genres;
+    }
+    
+    public void setGenres(List<String> genres) {
+        this.genres = genres;
+    }
+    
+    public boolean isMatchAllGenres() {
+        return matchAllGenres;
+    }
+    
+    public void setMatchAllGenres(boolean matchAllGenres) {
+        this.matchAllGenres = matchAllGenres;
+    }
+    
+    public List<String> getTags() {
+        return tags;
+    }
+    
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+    
+    public boolean isMatchAllTags() {
+        return matchAllTags;
+    }
+    
+    public void setMatchAllTags(boolean matchAllTags) {
+        this.matchAllTags = matchAllTags;
+    }
+    
+    // Keys from GameFacetIndex.PRICE_RANGES, e.g. "under_5" or "20_to_40"
+    public List<String> getPriceRanges() {
+        return priceRanges;
+    }
+    
+    public void setPriceRanges(List<String> priceRanges) {
+        this.priceRanges = priceRanges;
+    }
+    
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+    
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+    
+    // Null means "don't care"
+    public Boolean getOnSale() {
+        return onSale;
+    }
+    
+    public void setOnSale(Boolean onSale) {
+        this.onSale = onSale;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,448 @@
+package com.example.demo.service.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.hibernate.Hibernate;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.dto.PriceChange;
+import com.example.demo.event.CatalogImportedEvent;
+import com.example.demo.event.GameChangedEvent;
+import com.example.demo.event.PricesChangedEvent;
+import com.example.demo.model.Game;
+import com.example.demo.repository.GameRepository;
+
+// One compressed bitmap of game ids per genre, tag, price range and sale state
+@Service
+public class GameFacetIndex {
+    
+    // Ranges are on the current price (sale price while on sale); lower bound inclusive, upper bound exclusive
+    public static final List<String> PRICE_RANGES = List.of(
+        "free", "under_5", "5_to_10", "10_to_20", "20_to_40", "40_to_60", "over_60");
+    private static final double[] PRICE_RANGE_UPPER_BOUNDS = { 0.0, 5.0, 10.0, 20.0, 40.0, 60.0, Double.MAX_VALUE };
+    
+    // The tag facet can have thousands of values; only the most populated ones are counted for the sidebar
+    private static final int MAX_TAG_COUNTS = 30;
+    
+    private final GameRepository gameRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private FacetState state = new FacetState();
+    private volatile boolean ready = false;
+    
+    public GameFacetIndex(GameRepository gameRepository) {
+        this.gameRepository = gameRepository;
+    }
+    
+    @EventListener({ ApplicationReadyEvent.class, CatalogImportedEvent.class })
+    public void rebuild() {
+        Map<Long, List<String>> genresByGame = groupByGame(gameRepository.findAllGameGenres());
+        Map<Long, List<String>> tagsByGame = groupByGame(gameRepository.findAllGameTags());
+        
+        FacetState fresh = new FacetState();
+        for (Object[] row : gameRepository.findAllPricing()) {
+            Long gameId = (Long) row[0];
+            double price = ((Number) row[1]).doubleValue();
+            double salePrice = ((Number) row[2]).doubleValue();
+            boolean onSale = (Boolean) row[3];
+            
+            fresh.add(gameId, new GameFacets(
+                genresByGame.getOrDefault(gameId, Collections.emptyList()),
+                tagsByGame.getOrDefault(gameId, Collections.emptyList()),
+                onSale,
+                onSale ? salePrice : price));
+        }
+        
+        lock.writeLock().lock();
+        try {
+            state = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+    }
+    
+    @EventListener
+    public void onGameChanged(GameChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getGameId());
+        } else {
+            index(event.getGame());
+        }
+    }
+    
+    // Only the sale bitmap and price ranges move, genre and tag bitmaps are left alone
+    @EventListener
+    public void onPricesChanged(PricesChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (PriceChange change : event.getChanges()) {
+                state.reprice(change.getGameId(), change.isOnSale(), change.getEffectivePrice());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void index(Game game) {
+        if (game == null || game.getId() == null) {
+            return;
+        }
+        
+        List<String> genres = Hibernate.isInitialized(game.getGenres())
+            ? game.getGenres()
+            : gameRepository.findGenresByGameId(game.getId());
+        List<String> tags = Hibernate.isInitialized(game.getTags())
+            ? game.getTags()
+            : gameRepository.findTagsByGameId(game.getId());
+        
+        GameFacets facets = new GameFacets(genres, tags, game.isOnSale(),
+            game.isOnSale() ? game.getSalePrice() : game.getPrice());
+        
+        lock.writeLock().lock();
+        try {
+            state.remove(game.getId());
+            state.add(game.getId(), facets);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(Long gameId) {
+        lock.writeLock().lock();
+        try {
+            state.remove(gameId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public FacetResult query(FacetQuery query, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            FacetState s = state;
+            
+            // Null means the facet is unconstrained
+            RoaringBitmap genreFilter = valueFilter(s.genres, query.getGenres(), query.isMatchAllGenres());
+            RoaringBitmap tagFilter = valueFilter(s.tags, query.getTags(), query.isMatchAllTags());
+            RoaringBitmap saleFilter = saleFilter(s, query.getOnSale());
+            RoaringBitmap priceFilter = priceFilter(s, query);
+            
+            RoaringBitmap matches = intersect(s.all, genreFilter, tagFilter, saleFilter, priceFilter);
+            
+            // Each facet is counted against every other selection but its own, so the sidebar can offer alternatives
+            Map<String, Map<String, Integer>> facetCounts = new LinkedHashMap<>();
+            facetCounts.put("genres", countValues(s.genres, s.genreLabels,
+                intersect(s.all, tagFilter, saleFilter, priceFilter), Integer.MAX_VALUE));
+            facetCounts.put("tags", countValues(s.tags, s.tagLabels,
+                intersect(s.all, genreFilter, saleFilter, priceFilter), MAX_TAG_COUNTS));
+            
+            RoaringBitmap saleBase = intersect(s.all, genreFilter, tagFilter, priceFilter);
+            int onSaleCount = RoaringBitmap.andCardinality(saleBase, s.onSale);
+            Map<String, Integer> saleCounts = new LinkedHashMap<>();
+            saleCounts.put("true", onSaleCount);
+            saleCounts.put("false", saleBase.getCardinality() - onSaleCount);
+            facetCounts.put("onSale", saleCounts);
+            
+            RoaringBitmap priceBase = intersect(s.all, genreFilter, tagFilter, saleFilter);
+            Map<String, Integer> priceCounts = new LinkedHashMap<>();
+            for (int i = 0; i < PRICE_RANGES.size(); i++) {
+                priceCounts.put(PRICE_RANGES.get(i), RoaringBitmap.andCardinality(priceBase, s.priceRanges[i]));
+            }
+            facetCounts.put("price", priceCounts);
+            
+            return new FacetResult(page(matches, offset, limit), matches.getCardinality(), facetCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private RoaringBitmap valueFilter(Map<String, RoaringBitmap> bitmaps, List<String> values, boolean matchAll) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        
+        List<RoaringBitmap> selected = new ArrayList<>();
+        for (String value : values) {
+            RoaringBitmap bitmap = bitmaps.get(normalize(value));
+            if (bitmap == null) {
+                if (matchAll) {
+                    return new RoaringBitmap();
+                }
+                continue;
+            }
+            selected.add(bitmap);
+        }
+        
+        if (selected.isEmpty()) {
+            return new RoaringBitmap();
+        }
+        
+        RoaringBitmap[] array = selected.toArray(new RoaringBitmap[0]);
+        return matchAll ? FastAggregation.and(array) : FastAggregation.or(array);
+    }
+    
+    private RoaringBitmap saleFilter(FacetState s, Boolean onSale) {
+        if (onSale == null) {
+            return null;
+        }
+        return onSale ? s.onSale : RoaringBitmap.andNot(s.all, s.onSale);
+    }
+    
+    private RoaringBitmap priceFilter(FacetState s, FacetQuery query) {
+        RoaringBitmap filter = null;
+        
+        if (query.getPriceRanges() != null && !query.getPriceRanges().isEmpty()) {
+            filter = new RoaringBitmap();
+            for (String range : query.getPriceRanges()) {
+                int index = PRICE_RANGES.indexOf(range);
+                if (index >= 0) {
+                    filter.or(s.priceRanges[index]);
+                }
+            }
+        }
+        
+        if (query.getMaxPrice() != null) {
+            double maxPrice = query.getMaxPrice();
+            RoaringBitmap underMax = new RoaringBitmap();
+            
+            for (int i = 0; i < PRICE_RANGES.size(); i++) {
+                double lowerBound = i == 0 ? 0.0 : PRICE_RANGE_UPPER_BOUNDS[i - 1];
+                if (PRICE_RANGE_UPPER_BOUNDS[i] <= maxPrice) {
+                    underMax.or(s.priceRanges[i]);
+                } else if (lowerBound <= maxPrice) {
+                    // Range straddles the limit: check the individual prices
+                    s.priceRanges[i].forEach((int id) -> {
+                        if (s.facetsByGame.get((long) id).price <= maxPrice) {
+                            underMax.add(id);
+                        }
+                    });
+                }
+            }
+            
+            filter = filter == null ? underMax : RoaringBitmap.and(filter, underMax);
+        }
+        
+        return filter;
+    }
+    
+    // Filters are always subsets of "all"; the result must be treated as read-only
+    private static RoaringBitmap intersect(RoaringBitmap all, RoaringBitmap... filters) {
+        RoaringBitmap result = null;
+        for (RoaringBitmap filter : filters) {
+            if (filter != null) {
+                result = result == null ? filter : RoaringBitmap.and(result, filter);
+            }
+        }
+        return result != null ? result : all;
+    }
+    
+    private static Map<String, Integer> countValues(Map<String, RoaringBitmap> bitmaps, Map<String, String> labels,
+                                                    RoaringBitmap base, int limit) {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+        for (Map.Entry<String, RoaringBitmap> entry : bitmaps.entrySet()) {
+            int count = RoaringBitmap.andCardinality(base, entry.getValue());
+            if (count > 0) {
+                counts.add(Map.entry(labels.getOrDefault(entry.getKey(), entry.getKey()), count));
+            }
+        }
+        
+        counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : counts) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+    
+    // Bitmaps iterate in ascending id order, so pages are stable between requests
+    private static List<Long> page(RoaringBitmap matches, int offset, int limit) {
+        List<Long> ids = new ArrayList<>();
+        if (offset >= matches.getCardinality() || limit <= 0) {
+            return ids;
+        }
+        
+        PeekableIntIterator iterator = matches.getIntIterator();
+        iterator.advanceIfNeeded(matches.select(offset));
+        while (iterator.hasNext() && ids.size() < limit) {
+            ids.add((long) iterator.next());
+        }
+        return ids;
+    }
+    
+    private static Map<Long, List<String>> groupByGame(List<Object[]> rows) {
+        Map<Long, List<String>> grouped = new HashMap<>();
+        for (Object[] row : rows) {
+            grouped.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+        return grouped;
+    }
+    
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static int priceRange(double price) {
+        if (price <= 0) {
+            return 0;
+        }
+        for (int i = 1; i < PRICE_RANGE_UPPER_BOUNDS.length; i++) {
+            if (price < PRICE_RANGE_UPPER_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return PRICE_RANGE_UPPER_BOUNDS.length - 1;
+    }
+    
+    public static class FacetResult {
+        
+        private final List<Long> gameIds;
+        private final int totalHits;
+        private final Map<String, Map<String, Integer>> facetCounts;
+        
+        FacetResult(List<Long> gameIds, int totalHits, Map<String, Map<String, Integer>> facetCounts) {
+            this.gameIds = gameIds;
+            this.totalHits = totalHits;
+            this.facetCounts = facetCounts;
+        }
+        
+        // Ids of the requested page, ascending
+        public List<Long> getGameIds() {
+            return gameIds;
+        }
+        
+        public int getTotalHits() {
+            return totalHits;
+        }
+        
+        // facet name -> value -> number of matching games
+        public Map<String, Map<String, Integer>> getFacetCounts() {
+            return facetCounts;
+        }
+    }
+    
+    private static final class GameFacets {
+        
+        private final List<String> genres;
+        private final List<String> tags;
+        private final boolean onSale;
+        private final double price;
+        
+        GameFacets(List<String> genres, List<String> tags, boolean onSale, double price) {
+            this.genres = genres != null ? new ArrayList<>(genres) : Collections.emptyList();
+            this.tags = tags != null ? new ArrayList<>(tags) : Collections.emptyList();
+            this.onSale = onSale;
+            this.price = price;
+        }
+    }
+    
+    private static final class FacetState {
+        
+        private final RoaringBitmap all = new RoaringBitmap();
+        private final RoaringBitmap onSale = new RoaringBitmap();
+        private final RoaringBitmap[] priceRanges = new RoaringBitmap[PRICE_RANGES.size()];
+        private final Map<String, RoaringBitmap> genres = new HashMap<>();
+        private final Map<String, RoaringBitmap> tags = new HashMap<>();
+        // Kept apart so a genre and a tag with the same key don't take each other's display label
+        private final Map<String, String> genreLabels = new HashMap<>();
+        private final Map<String, String> tagLabels = new HashMap<>();
+        private final Map<Long, GameFacets> facetsByGame = new HashMap<>();
+        
+        FacetState() {
+            for (int i = 0; i < priceRanges.length; i++) {
+                priceRanges[i] = new RoaringBitmap();
+            }
+        }
+        
+        void add(Long gameId, GameFacets facets) {
+            int id = Math.toIntExact(gameId);
+            
+            all.add(id);
+            if (facets.onSale) {
+                onSale.add(id);
+            }
+            priceRanges[priceRange(facets.price)].add(id);
+            for (String genre : facets.genres) {
+                addValue(genres, genreLabels, genre, id);
+            }
+            for (String tag : facets.tags) {
+                addValue(tags, tagLabels, tag, id);
+            }
+            
+            facetsByGame.put(gameId, facets);
+        }
+        
+        void reprice(Long gameId, boolean isOnSale, double price) {
+            GameFacets facets = facetsByGame.get(gameId);
+            if (facets == null) {
+                return;
+            }
+            
+            int id = Math.toIntExact(gameId);
+            if (isOnSale) {
+                onSale.add(id);
+            } else {
+                onSale.remove(id);
+            }
+            priceRanges[priceRange(facets.price)].remove(id);
+            priceRanges[priceRange(price)].add(id);
+            
+            facetsByGame.put(gameId, new GameFacets(facets.genres, facets.tags, isOnSale, price));
+        }
+        
+        void remove(Long gameId) {
+            GameFacets facets = facetsByGame.remove(gameId);
+            if (facets == null) {
+                return;
+            }
+            
+            int id = Math.toIntExact(gameId);
+            all.remove(id);
+            onSale.remove(id);
+            priceRanges[priceRange(facets.price)].remove(id);
+            for (String genre : facets.genres) {
+                removeValue(genres, genre, id);
+            }
+            for (String tag : facets.tags) {
+                removeValue(tags, tag, id);
+            }
+        }
+        
+        private static void addValue(Map<String, RoaringBitmap> bitmaps, Map<String, String> labels, String value, int id) {
+            String key = normalize(value);
+            bitmaps.computeIfAbsent(key, k -> new RoaringBitmap()).add(id);
+            labels.putIfAbsent(key, value.trim());
+        }
+        
+        private void removeValue(Map<String, RoaringBitmap> bitmaps, String value, int id) {
+            String key = normalize(value);
+            RoaringBitmap bitmap = bitmaps.get(key);
+            if (bitmap != null) {
+                bitmap.remove(id);
+                if (bitmap.isEmpty()) {
+                    bitmaps.remove(key);
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,428 @@
+package com.example.demo.service.search;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.hibernate.Hibernate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.event.CatalogImportedEvent;
+import com.example.demo.event.GameChangedEvent;
+import com.example.demo.model.Game;
+import com.example.demo.repository.GameRepository;
+
+// In-memory inverted index over the game catalog with BM25 ranking
+@Service
+public class GameSearchIndex {
+    
+    // BM25 parameters
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    
+    // Per-field weights applied to term frequencies before BM25 saturation
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float TAG_WEIGHT = 2.0f;
+    private static final float DEVELOPER_WEIGHT = 1.5f;
+    private static final float PUBLISHER_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    
+    // The last query token is treated as a prefix while the user is still typing
+    private static final int MAX_PREFIX_EXPANSIONS = 32;
+    private static final float PREFIX_MATCH_WEIGHT = 0.8f;
+    
+    // Updates tombstone the old document; postings are compacted once enough of them pile up
+    private static final int MIN_TOMBSTONES_FOR_COMPACTION = 1024;
+    private static final double COMPACTION_RATIO = 0.25;
+    
+    private final GameRepository gameRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private IndexState state = new IndexState();
+    private volatile boolean ready = false;
+    
+    public GameSearchIndex(GameRepository gameRepository) {
+        this.gameRepository = gameRepository;
+    }
+    
+    @EventListener({ ApplicationReadyEvent.class, CatalogImportedEvent.class })
+    public void rebuild() {
+        Map<Long, List<String>> tagsByGame = new HashMap<>();
+        for (Object[] row : gameRepository.findAllGameTags()) {
+            tagsByGame.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+        
+        IndexState fresh = new IndexState();
+        for (Object[] row : gameRepository.findAllSearchDocuments()) {
+            Long gameId = (Long) row[0];
+            List<String> tags = tagsByGame.getOrDefault(gameId, Collections.emptyList());
+            String title = (String) row[1];
+            String developer = (String) row[2];
+            String publisher = (String) row[3];
+            String description = (String) row[4];
+            
+            fresh.upsert(gameId,
+                termFrequencies(title, developer, publisher, description, tags),
+                fingerprint(title, developer, publisher, description, tags));
+        }
+        
+        lock.writeLock().lock();
+        try {
+            state = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+    }
+    
+    @EventListener
+    public void onGameChanged(GameChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getGameId());
+        } else {
+            index(event.getGame());
+        }
+    }
+    
+    public void index(Game game) {
+        if (game == null || game.getId() == null) {
+            return;
+        }
+        
+        List<String> tags = Hibernate.isInitialized(game.getTags())
+            ? game.getTags()
+            : gameRepository.findTagsByGameId(game.getId());
+        
+        Map<String, Float> termFrequencies = termFrequencies(
+            game.getTitle(), game.getDeveloper(), game.getPublisher(), game.getDescription(), tags);
+        long[] fingerprint = fingerprint(
+            game.getTitle(), game.getDeveloper(), game.getPublisher(), game.getDescription(), tags);
+        
+        lock.writeLock().lock();
+        try {
+            state.upsert(game.getId(), termFrequencies, fingerprint);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(Long gameId) {
+        lock.writeLock().lock();
+        try {
+            state.delete(gameId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public SearchResult search(String query, int offset, int limit) {
+        List<String> tokens = SearchTokenizer.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return SearchResult.EMPTY;
+        }
+        
+        // Only expand the trailing token when the user hasn't finished typing it
+        boolean expandLastToken = !Character.isWhitespace(query.charAt(query.length() - 1));
+        
+        lock.readLock().lock();
+        try {
+            IndexState s = state;
+            if (s.liveDocs == 0) {
+                return SearchResult.EMPTY;
+            }
+            
+            float averageLength = (float) (s.totalLength / s.liveDocs);
+            float[] scores = new float[s.docCount];
+            BitSet hits = new BitSet(s.docCount);
+            
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                
+                if (expandLastToken && i == tokens.size() - 1) {
+                    int expansions = 0;
+                    for (Map.Entry<String, Postings> entry : s.terms.tailMap(token, true).entrySet()) {
+                        if (!entry.getKey().startsWith(token) || expansions++ >= MAX_PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                        float weight = entry.getKey().equals(token) ? 1.0f : PREFIX_MATCH_WEIGHT;
+                        score(s, entry.getValue(), weight, averageLength, scores, hits);
+                    }
+                } else {
+                    Postings postings = s.terms.get(token);
+                    if (postings != null) {
+                        score(s, postings, 1.0f, averageLength, scores, hits);
+                    }
+                }
+            }
+            
+            int totalHits = hits.cardinality();
+            if (totalHits == 0 || offset >= totalHits) {
+                return new SearchResult(Collections.emptyList(), totalHits);
+            }
+            int wanted = (int) Math.min((long) offset + limit, totalHits);
+            
+            // Min-heap keeps the best offset + limit documents
+            PriorityQueue<Integer> top = new PriorityQueue<>(wanted, (d1, d2) -> {
+                int cmp = Float.compare(scores[d1], scores[d2]);
+                return cmp != 0 ? cmp : Integer.compare(d2, d1);
+            });
+            for (int doc = hits.nextSetBit(0); doc >= 0; doc = hits.nextSetBit(doc + 1)) {
+                if (top.size() < wanted) {
+                    top.add(doc);
+                } else if (scores[doc] > scores[top.peek()]) {
+                    top.poll();
+                    top.add(doc);
+                }
+            }
+            
+            Long[] ranked = new Long[top.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = s.gameIds[top.poll()];
+            }
+            
+            List<Long> page = Arrays.asList(ranked).subList(Math.min(offset, ranked.length), ranked.length);
+            return new SearchResult(new ArrayList<>(page), totalHits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void score(IndexState s, Postings postings, float weight, float averageLength,
+                       float[] scores, BitSet hits) {
+        // Document frequency still counts tombstones until the next compaction, which is close enough for idf
+        int df = postings.size;
+        float idf = (float) Math.log(1 + (s.liveDocs - df + 0.5) / (df + 0.5));
+        
+        for (int j = 0; j < postings.size; j++) {
+            int doc = postings.docs[j];
+            if (s.deleted.get(doc)) {
+                continue;
+            }
+            
+            float tf = postings.frequencies[j];
+            float norm = K1 * (1 - B + B * s.docLengths[doc] / averageLength);
+            scores[doc] += weight * idf * (tf * (K1 + 1)) / (tf + norm);
+            hits.set(doc);
+        }
+    }
+    
+    private void compactIfNeeded() {
+        int tombstones = state.docCount - state.liveDocs;
+        if (tombstones >= MIN_TOMBSTONES_FOR_COMPACTION && tombstones > state.docCount * COMPACTION_RATIO) {
+            state = state.compact();
+        }
+    }
+    
+    private static Map<String, Float> termFrequencies(String title, String developer, String publisher,
+                                                      String description, List<String> tags) {
+        Map<String, Float> frequencies = new HashMap<>();
+        addField(frequencies, title, TITLE_WEIGHT);
+        addField(frequencies, developer, DEVELOPER_WEIGHT);
+        addField(frequencies, publisher, PUBLISHER_WEIGHT);
+        addField(frequencies, description, DESCRIPTION_WEIGHT);
+        
+        if (tags != null) {
+            for (String tag : tags) {
+                addField(frequencies, tag, TAG_WEIGHT);
+            }
+        }
+        
+        return frequencies;
+    }
+    
+    private static void addField(Map<String, Float> frequencies, String text, float weight) {
+        for (String token : SearchTokenizer.tokenize(text)) {
+            frequencies.merge(token, weight, Float::sum);
+        }
+    }
+    
+    // Lets us skip re-indexing when only non-text fields (price, rating, ...) changed.
+    // 128 bits of SHA-256 over the text fields, so a real edit can't be mistaken for no change.
+    private static long[] fingerprint(String title, String developer, String publisher,
+                                      String description, List<String> tags) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        
+        List<String> fields = new ArrayList<>(Arrays.asList(title, developer, publisher, description));
+        if (tags != null) {
+            fields.addAll(tags);
+        }
+        for (String field : fields) {
+            // Null and each field's length are hashed too, so field boundaries can't shift
+            if (field == null) {
+                digest.update((byte) 0);
+                continue;
+            }
+            byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+            digest.update((byte) 1);
+            digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+            digest.update(bytes);
+        }
+        
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new long[] { hash.getLong(), hash.getLong() };
+    }
+    
+    public static class SearchResult {
+        
+        static final SearchResult EMPTY = new SearchResult(Collections.emptyList(), 0);
+        
+        private final List<Long> gameIds;
+        private final int totalHits;
+        
+        SearchResult(List<Long> gameIds, int totalHits) {
+            this.gameIds = gameIds;
+            this.totalHits = totalHits;
+        }
+        
+        // Ranked ids for the requested page, best match first
+        public List<Long> getGameIds() {
+            return gameIds;
+        }
+        
+        public int getTotalHits() {
+            return totalHits;
+        }
+    }
+    
+    private static final class Postings {
+        
+        private int[] docs = new int[4];
+        private float[] frequencies = new float[4];
+        private int size;
+        
+        void add(int doc, float frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+        }
+        
+        Postings remap(int[] newDocIds) {
+            Postings remapped = new Postings();
+            for (int i = 0; i < size; i++) {
+                int doc = newDocIds[docs[i]];
+                if (doc >= 0) {
+                    remapped.add(doc, frequencies[i]);
+                }
+            }
+            return remapped;
+        }
+    }
+    
+    private static final class IndexState {
+        
+        private final TreeMap<String, Postings> terms = new TreeMap<>();
+        private final Map<Long, Integer> docByGameId = new HashMap<>();
+        private final BitSet deleted = new BitSet();
+        
+        private long[] gameIds = new long[256];
+        private float[] docLengths = new float[256];
+        // Two longs per doc
+        private long[] fingerprints = new long[512];
+        private int docCount;
+        private int liveDocs;
+        private double totalLength;
+        
+        void upsert(long gameId, Map<String, Float> termFrequencies, long[] fingerprint) {
+            Integer existing = docByGameId.get(gameId);
+            if (existing != null) {
+                if (fingerprints[existing * 2] == fingerprint[0] && fingerprints[existing * 2 + 1] == fingerprint[1]) {
+                    return;
+                }
+                delete(gameId);
+            }
+            
+            int doc = newDoc(gameId, fingerprint);
+            float length = 0;
+            for (Map.Entry<String, Float> entry : termFrequencies.entrySet()) {
+                terms.computeIfAbsent(entry.getKey(), term -> new Postings()).add(doc, entry.getValue());
+                length += entry.getValue();
+            }
+            
+            docLengths[doc] = length;
+            liveDocs++;
+            totalLength += length;
+        }
+        
+        void delete(long gameId) {
+            Integer doc = docByGameId.remove(gameId);
+            if (doc == null) {
+                return;
+            }
+            
+            deleted.set(doc);
+            liveDocs--;
+            totalLength -= docLengths[doc];
+        }
+        
+        IndexState compact() {
+            IndexState compacted = new IndexState();
+            int[] newDocIds = new int[docCount];
+            
+            for (int doc = 0; doc < docCount; doc++) {
+                if (deleted.get(doc)) {
+                    newDocIds[doc] = -1;
+                    continue;
+                }
+                int newDoc = compacted.newDoc(gameIds[doc],
+                    new long[] { fingerprints[doc * 2], fingerprints[doc * 2 + 1] });
+                compacted.docLengths[newDoc] = docLengths[doc];
+                newDocIds[doc] = newDoc;
+            }
+            
+            for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+                Postings remapped = entry.getValue().remap(newDocIds);
+                if (remapped.size > 0) {
+                    compacted.terms.put(entry.getKey(), remapped);
+                }
+            }
+            
+            compacted.liveDocs = liveDocs;
+            compacted.totalLength = totalLength;
+            return compacted;
+        }
+        
+        private int newDoc(long gameId, long[] fingerprint) {
+            if (docCount == gameIds.length) {
+                int capacity = docCount * 2;
+                gameIds = Arrays.copyOf(gameIds, capacity);
+                docLengths = Arrays.copyOf(docLengths, capacity);
+                fingerprints = Arrays.copyOf(fingerprints, capacity * 2);
+            }
+            
+            int doc = docCount++;
+            gameIds[doc] = gameId;
+            fingerprints[doc * 2] = fingerprint[0];
+            fingerprints[doc * 2 + 1] = fingerprint[1];
+            docByGameId.put(gameId, doc);
+            return doc;
+        }
+    }
+}
\ No newline at end of file
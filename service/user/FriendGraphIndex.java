@@ -0,0 +1,62 @@
+package com.example.demo.service.user;
+
+import java.time.Duration;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.event.FriendshipChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+// Accepted friends per active user as compressed bitmaps of user ids, loaded on first use
+@Service
+public class FriendGraphIndex {
+    
+    // A friendship is stored once, by whoever sent the request
+    private static final String LOAD_SQL =
+        "SELECT friend_id FROM friends WHERE user_id = ? AND status = 'ACCEPTED' " +
+        "UNION ALL SELECT user_id FROM friends WHERE friend_id = ? AND status = 'ACCEPTED'";
+    
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    // Never modified once cached, callers may intersect without copying
+    private final Cache<Long, RoaringBitmap> cache;
+    
+    public FriendGraphIndex(JdbcTemplate jdbcTemplate,
+                            @Value("${friends.cache.max-bytes:33554432}") long maxBytes,
+                            @Value("${friends.cache.idle-minutes:60}") long idleMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher((Long userId, RoaringBitmap friends) -> ENTRY_OVERHEAD_BYTES + (int) friends.getLongSizeInBytes())
+            .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+            .build();
+    }
+    
+    // Read-only: the same instance is handed to every caller
+    public RoaringBitmap getFriends(Long userId) {
+        return cache.get(userId, this::load);
+    }
+    
+    // Friend changes are rare, so both sides are simply reloaded on next use
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        cache.invalidate(event.getUserId());
+        cache.invalidate(event.getOtherUserId());
+    }
+    
+    private RoaringBitmap load(Long userId) {
+        RoaringBitmap friends = new RoaringBitmap();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            friends.add(Math.toIntExact(rs.getLong(1)));
+        }, userId, userId);
+        friends.runOptimize();
+        return friends;
+    }
+}
\ No newline at end of file
@@ -10,8 +10,10 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import com.example.demo.event.FriendshipChangedEvent;
 import com.example.demo.model.Friend;
 import com.example.demo.model.User;
 import com.example.demo.repository.FriendRepository;
@@ -24,13 +26,16 @@ public class FriendService {
     private final FriendRepository friendRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
     
     public FriendService(FriendRepository friendRepository, 
                         UserRepository userRepository, 
-                        NotificationService notificationService) {
+                        NotificationService notificationService,
+                        ApplicationEventPublisher eventPublisher) {
         this.friendRepository = friendRepository;
         this.userRepository = userRepository;
         this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
     }
     
     public List<Map<String, Object>> getUserFriends(Long userId) {
@@ -135,6 +140,7 @@ public class FriendService {
                     friendship.setStatus(Friend.FriendStatus.ACCEPTED);
                     friendship.setLastUpdated(LocalDateTime.now());
                     friendRepository.save(friendship);
+                    eventPublisher.publishEvent(new FriendshipChangedEvent(userId, friendId));
                     
                     // Send notification to the original requester
                     notificationService.sendNotification(
@@ -198,6 +204,7 @@ public class FriendService {
         request.setStatus(Friend.FriendStatus.ACCEPTED);
         request.setLastUpdated(LocalDateTime.now());
         friendRepository.save(request);
+        eventPublisher.publishEvent(new FriendshipChangedEvent(request.getUserId(), userId));
         
         // Send notification to requester
         User user = userRepository.findById(userId).orElse(null);
@@ -236,6 +243,7 @@ public class FriendService {
         
         if (friendship.isPresent() && friendship.get().getStatus() == Friend.FriendStatus.ACCEPTED) {
             friendRepository.delete(friendship.get());
+            eventPublisher.publishEvent(new FriendshipChangedEvent(userId, friendId));
         } else {
             throw new IllegalArgumentException("Friendship does not exist");
         }
@@ -279,6 +287,9 @@ public class FriendService {
             
             friendRepository.save(blocked);
         }
+        
+        // Blocking ends any friendship between the two
+        eventPublisher.publishEvent(new FriendshipChangedEvent(userId, userToBlockId));
     }
     
     public void unblockUser(Long userId, Long blockedUserId) {
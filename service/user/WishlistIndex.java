@@ -0,0 +1,68 @@
+package com.example.demo.service.user;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.event.WishlistChangedEvent;
+import com.example.demo.util.StreamingQuery;
+import com.example.demo.util.UserBitmapIndex;
+
+// Wishlisting user ids per game as compressed bitmaps, so a price drop finds its audience in one lookup.
+// Built from wishlists at startup and nightly, kept current from wishlist events in between.
+@Service
+public class WishlistIndex {
+    
+    private static final String WISHLISTS_SQL = "SELECT game_id, user_id FROM wishlist_items";
+    
+    private static final String WISHLISTERS_SQL = "SELECT user_id FROM wishlist_items WHERE game_id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final UserBitmapIndex<WishlistChangedEvent> wishlisters;
+    
+    public WishlistIndex(JdbcTemplate jdbcTemplate, StreamingQuery streamingQuery) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.wishlisters = new UserBitmapIndex<>(streamingQuery, WISHLISTS_SQL,
+            WishlistChangedEvent::getGameId, WishlistChangedEvent::getUserId, WishlistChangedEvent::isRemoved);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 45 5 * * ?") // Run at 5:45 AM every day
+    public void rebuild() {
+        try {
+            wishlisters.rebuild();
+        } catch (RuntimeException e) {
+            System.err.println("Error building wishlist index: " + e.getMessage());
+        }
+    }
+    
+    public boolean isReady() {
+        return wishlisters.isReady();
+    }
+    
+    // Users wishing for the game, as a copy the caller can iterate at leisure; read from the database until built
+    public RoaringBitmap wishlistersOf(Long gameId) {
+        RoaringBitmap users = wishlisters.usersOf(gameId);
+        if (users == null) {
+            RoaringBitmap fromDatabase = new RoaringBitmap();
+            jdbcTemplate.query(WISHLISTERS_SQL, rs -> {
+                fromDatabase.add(Math.toIntExact(rs.getLong(1)));
+            }, gameId);
+            return fromDatabase;
+        }
+        return users;
+    }
+    
+    public int countWishlisters(Long gameId) {
+        return wishlisters.countUsers(gameId);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWishlistChanged(WishlistChangedEvent event) {
+        wishlisters.onChanged(event);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.example.demo.service.user;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.event.LibraryChangedEvent;
+import com.example.demo.event.WishlistChangedEvent;
+import com.example.demo.model.Profile;
+import com.example.demo.repository.ProfileRepository;
+import com.example.demo.service.catalog.CatalogSnapshot;
+import com.example.demo.service.catalog.GameCard;
+import com.example.demo.service.game.OwnershipIndex;
+import com.example.demo.service.integration.DealService;
+
+@Service
+public class WishlistService {
+    
+    private static final String INSERT_SQL =
+        "INSERT INTO wishlist_items (user_id, game_id, added_at) VALUES (?, ?, ?) " +
+        "ON CONFLICT (user_id, game_id) DO NOTHING";
+    
+    private static final String DELETE_SQL = "DELETE FROM wishlist_items WHERE user_id = ? AND game_id = ?";
+    
+    private static final String IDS_SQL =
+        "SELECT game_id FROM wishlist_items WHERE user_id = ? ORDER BY added_at DESC, id DESC";
+    
+    private static final String LIST_SQL =
+        "SELECT game_id, added_at FROM wishlist_items WHERE user_id = ? ORDER BY added_at DESC, id DESC";
+    
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM wishlist_items WHERE user_id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogSnapshot catalogSnapshot;
+    private final OwnershipIndex ownershipIndex;
+    private final ProfileRepository profileRepository;
+    private final DealService dealService;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    public WishlistService(JdbcTemplate jdbcTemplate,
+                           CatalogSnapshot catalogSnapshot,
+                           OwnershipIndex ownershipIndex,
+                           ProfileRepository profileRepository,
+                           DealService dealService,
+                           ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogSnapshot = catalogSnapshot;
+        this.ownershipIndex = ownershipIndex;
+        this.profileRepository = profileRepository;
+        this.dealService = dealService;
+        this.eventPublisher = eventPublisher;
+    }
+    
+    // False if the game was already on the wishlist
+    @Transactional
+    public boolean addToWishlist(Long userId, Long gameId) {
+        if (catalogSnapshot.get(gameId) == null) {
+            throw new IllegalArgumentException("Game not found");
+        }
+        if (ownershipIndex.owns(userId, gameId)) {
+            throw new IllegalStateException("Game already in user's library");
+        }
+        
+        boolean added = jdbcTemplate.update(INSERT_SQL, userId, gameId, Timestamp.valueOf(LocalDateTime.now())) > 0;
+        if (added) {
+            eventPublisher.publishEvent(WishlistChangedEvent.added(userId, gameId));
+        }
+        return added;
+    }
+    
+    // False if the game wasn't on the wishlist
+    @Transactional
+    public boolean removeFromWishlist(Long userId, Long gameId) {
+        boolean removed = jdbcTemplate.update(DELETE_SQL, userId, gameId) > 0;
+        if (removed) {
+            eventPublisher.publishEvent(WishlistChangedEvent.removed(userId, gameId));
+        }
+        return removed;
+    }
+    
+    // Most recently added first
+    public List<Long> getWishlistGameIds(Long userId) {
+        return jdbcTemplate.queryForList(IDS_SQL, Long.class, userId);
+    }
+    
+    public List<Map<String, Object>> getWishlist(Long userId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(LIST_SQL, userId);
+        List<Long> gameIds = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            gameIds.add(((Number) row.get("game_id")).longValue());
+        }
+        Map<Long, GameCard> cards = catalogSnapshot.getCards(gameIds);
+        
+        List<Map<String, Object>> wishlist = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            GameCard game = cards.get(gameIds.get(i));
+            if (game == null) {
+                continue;
+            }
+            
+            Map<String, Object> gameData = new HashMap<>();
+            gameData.put("id", game.getId());
+            gameData.put("title", game.getTitle());
+            gameData.put("coverUrl", game.getCoverImageUrl());
+            gameData.put("price", game.getPrice());
+            gameData.put("onSale", game.isOnSale());
+            if (game.isOnSale()) {
+                gameData.put("salePrice", game.getSalePrice());
+            }
+            gameData.put("addedAt", ((Timestamp) rows.get(i).get("added_at")).toLocalDateTime());
+            wishlist.add(gameData);
+        }
+        return wishlist;
+    }
+    
+    // Honors the owner's showWishlist privacy setting for anyone else
+    public List<Map<String, Object>> getWishlistForViewer(Long viewerId, Long userId) {
+        if (!Objects.equals(viewerId, userId)) {
+            boolean visible = profileRepository.findByUserId(userId)
+                .map(Profile::isShowWishlist)
+                .orElse(true);
+            if (!visible) {
+                return Collections.emptyList();
+            }
+        }
+        return getWishlist(userId);
+    }
+    
+    public List<Map<String, Object>> getWishlistDeals(Long userId) {
+        return dealService.getDealsForUserWishlist(userId, getWishlistGameIds(userId));
+    }
+    
+    public int getWishlistSize(Long userId) {
+        Integer count = jdbcTemplate.queryForObject(COUNT_SQL, Integer.class, userId);
+        return count != null ? count : 0;
+    }
+    
+    // Synchronous, so the entry is removed in the library change's own transaction when it has one
+    @EventListener
+    public void onLibraryChanged(LibraryChangedEvent event) {
+        if (event.isRemoved()) {
+            return;
+        }
+        if (jdbcTemplate.update(DELETE_SQL, event.getUserId(), event.getGameId()) > 0) {
+            eventPublisher.publishEvent(WishlistChangedEvent.removed(event.getUserId(), event.getGameId()));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.example.demo.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// Fixed-width tuples of longs stored as zigzag varint deltas from the previous tuple.
+// Slowly changing series (timestamps, prices) shrink to one or two bytes per value.
+public final class DeltaVarintCodec {
+    
+    private DeltaVarintCodec() {
+    }
+    
+    // Bytes for one tuple; previous is null for the first tuple of a block, which is stored as-is
+    public static byte[] encode(long[] previous, long[] current) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(current.length * 3);
+        for (int i = 0; i < current.length; i++) {
+            long delta = previous != null ? current[i] - previous[i] : current[i];
+            writeVarint(out, (delta << 1) ^ (delta >> 63));
+        }
+        return out.toByteArray();
+    }
+    
+    // Every tuple in a block, in order
+    public static List<long[]> decode(byte[] data, int width) {
+        List<long[]> tuples = new ArrayList<>();
+        long[] running = new long[width];
+        int position = 0;
+        while (position < data.length) {
+            long[] tuple = new long[width];
+            for (int i = 0; i < width; i++) {
+                long value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    if (position >= data.length) {
+                        throw new IllegalArgumentException("Truncated delta block");
+                    }
+                    b = data[position++];
+                    value |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                
+                running[i] += (value >>> 1) ^ -(value & 1);
+                tuple[i] = running[i];
+            }
+            tuples.add(tuple);
+        }
+        return tuples;
+    }
+    
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
\ No newline at end of file
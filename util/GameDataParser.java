@@ -1,102 +1,241 @@
 package com.example.demo.util;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
 
 import org.springframework.stereotype.Component;
 
 import com.example.demo.model.Game;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 
 @Component
 public class GameDataParser {
     
+    public static final String DEFAULT_COVER_IMAGE = "default_cover.jpg";
+    public static final String DEFAULT_HEADER_IMAGE = "default_header.jpg";
+    
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    
     // Parse game data from CSV file
     public List<Game> parseGameDataFromCsv(String csvData) {
         List<Game> games = new ArrayList<>();
         
-        String[] lines = csvData.split("\n");
-        // Skip header
-        for (int i = 1; i < lines.length; i++) {
-            String line = lines[i];
-            String[] fields = line.split(",");
+        try {
+            CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csvData));
+            CsvLayout layout = CsvLayout.fromHeader(tokenizer.next());
             
-            if (fields.length < 10) continue; // Skip invalid lines
-            
-            try {
-                Game game = new Game();
-                
-                // Parse fields
-                game.setTitle(fields[1].trim());
-                
-                if (fields[2] != null && !fields[2].isEmpty()) {
-                    game.setDeveloper(fields[2].trim());
-                }
-                
-                if (fields[3] != null && !fields[3].isEmpty()) {
-                    game.setPublisher(fields[3].trim());
-                }
-                
-                // Parse release date
-                try {
-                    String dateString = fields[4].trim();
-                    if (dateString.length() >= 4) {
-                        int year = Integer.parseInt(dateString.substring(0, 4));
-                        game.setReleaseDate(LocalDate.of(year, 1, 1));
-                    }
-                } catch (Exception e) {
-                    // Default to current year if date parsing fails
-                    game.setReleaseDate(LocalDate.now());
-                }
-                
-                // Parse price
+            List<String> record;
+            while ((record = tokenizer.next()) != null) {
                 try {
-                    double price = Double.parseDouble(fields[5].trim());
-                    game.setPrice(price);
+                    games.add(parseCsvRecord(record, layout));
                 } catch (Exception e) {
-                    game.setPrice(29.99); // Default price
-                }
-                
-                // Parse genres
-                if (fields[6] != null && !fields[6].isEmpty()) {
-                    String[] genres = fields[6].split(";");
-                    game.setGenres(Arrays.asList(genres));
-                } else {
-                    game.setGenres(Collections.singletonList("Uncategorized"));
+                    // Skip this game if parsing fails
+                    System.err.println("Error parsing game data: " + e.getMessage());
                 }
-                
-                // Set other fields with default values
-                game.setCoverImageUrl("default_cover.jpg");
-                game.setHeaderImageUrl("default_header.jpg");
-                game.setScreenshots(new ArrayList<>());
-                game.setTags(new ArrayList<>());
-                game.setAverageRating(0.0);
-                game.setReviewCount(0);
-                game.setFeatured(false);
-                game.setOnSale(false);
-                
-                games.add(game);
-            } catch (Exception e) {
-                // Skip this game if parsing fails
-                System.err.println("Error parsing game data: " + e.getMessage());
             }
+        } catch (IOException e) {
+            System.err.println("Error reading game data: " + e.getMessage());
         }
         
         return games;
     }
     
-    // Parse game data from JSON
+    // Map one CSV record onto a new Game; throws IllegalArgumentException for rows that can't be imported
+    public Game parseCsvRecord(List<String> fields, CsvLayout layout) {
+        return toGame(column -> layout.get(fields, column));
+    }
+    
+    // Same mapping for a record read by JsonCatalogReader
+    public Game parseJsonRecord(Map<String, String> record) {
+        return toGame(column -> {
+            String value = record.get(column);
+            return value == null || value.trim().isEmpty() ? null : value.trim();
+        });
+    }
+    
+    private Game toGame(Function<String, String> field) {
+        String title = field.apply(CsvLayout.TITLE);
+        if (title == null) {
+            throw new IllegalArgumentException("Missing title");
+        }
+        if (title.length() > 255) {
+            throw new IllegalArgumentException("Title longer than 255 characters");
+        }
+        
+        Game game = new Game();
+        game.setTitle(title);
+        game.setDeveloper(field.apply(CsvLayout.DEVELOPER));
+        game.setPublisher(field.apply(CsvLayout.PUBLISHER));
+        
+        String description = field.apply(CsvLayout.DESCRIPTION);
+        if (description != null && description.length() > 5000) {
+            description = description.substring(0, 5000);
+        }
+        game.setDescription(description);
+        
+        // Parse release date
+        String dateString = field.apply(CsvLayout.RELEASE_DATE);
+        try {
+            if (dateString != null && dateString.length() >= 10) {
+                game.setReleaseDate(LocalDate.parse(dateString.substring(0, 10)));
+            } else if (dateString != null && dateString.length() >= 4) {
+                int year = Integer.parseInt(dateString.substring(0, 4));
+                game.setReleaseDate(LocalDate.of(year, 1, 1));
+            }
+        } catch (Exception e) {
+            // Default to current year if date parsing fails
+            game.setReleaseDate(LocalDate.now());
+        }
+        
+        // Parse price
+        String priceString = field.apply(CsvLayout.PRICE);
+        if (priceString == null || priceString.isBlank()) {
+            game.setPrice(29.99); // Default price
+        } else {
+            try {
+                double price = Double.parseDouble(priceString);
+                if (price < 0 || Double.isNaN(price) || Double.isInfinite(price)) {
+                    throw new IllegalArgumentException("Invalid price: " + price);
+                }
+                game.setPrice(price);
+            } catch (NumberFormatException e) {
+                game.setPrice(29.99); // Default price
+            }
+        }
+        
+        // Parse genres
+        List<String> genres = splitList(field.apply(CsvLayout.GENRES));
+        game.setGenres(genres.isEmpty() ? new ArrayList<>(Collections.singletonList("Uncategorized")) : genres);
+        game.setTags(splitList(field.apply(CsvLayout.TAGS)));
+        
+        // Set other fields with default values
+        String cover = field.apply(CsvLayout.COVER_IMAGE_URL);
+        String header = field.apply(CsvLayout.HEADER_IMAGE_URL);
+        game.setCoverImageUrl(cover != null ? cover : DEFAULT_COVER_IMAGE);
+        game.setHeaderImageUrl(header != null ? header : DEFAULT_HEADER_IMAGE);
+        game.setScreenshots(new ArrayList<>());
+        game.setAverageRating(0.0);
+        game.setReviewCount(0);
+        game.setFeatured(false);
+        game.setOnSale(false);
+        
+        return game;
+    }
+    
+    // Genres and tags are ';'-separated inside one column
+    private static List<String> splitList(String value) {
+        List<String> values = new ArrayList<>();
+        if (value == null) {
+            return values;
+        }
+        for (String part : value.split(";")) {
+            String trimmed = part.trim();
+            if (!trimmed.isEmpty() && !values.contains(trimmed)) {
+                values.add(trimmed);
+            }
+        }
+        return values;
+    }
+    
+    // Column positions, taken from the header when it names them, otherwise the legacy export layout
+    public static class CsvLayout {
+        
+        public static final String TITLE = "title";
+        public static final String DEVELOPER = "developer";
+        public static final String PUBLISHER = "publisher";
+        public static final String RELEASE_DATE = "release_date";
+        public static final String PRICE = "price";
+        public static final String GENRES = "genres";
+        public static final String TAGS = "tags";
+        public static final String DESCRIPTION = "description";
+        public static final String COVER_IMAGE_URL = "cover_image_url";
+        public static final String HEADER_IMAGE_URL = "header_image_url";
+        
+        // id,title,developer,publisher,release_date,price,genres,...
+        private static final Map<String, Integer> LEGACY_LAYOUT = Map.of(
+            TITLE, 1, DEVELOPER, 2, PUBLISHER, 3, RELEASE_DATE, 4, PRICE, 5, GENRES, 6
+        );
+        
+        private final Map<String, Integer> columns;
+        
+        private CsvLayout(Map<String, Integer> columns) {
+            this.columns = columns;
+        }
+        
+        public static CsvLayout fromHeader(List<String> header) {
+            if (header == null) {
+                return new CsvLayout(LEGACY_LAYOUT);
+            }
+            
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.putIfAbsent(columnName(header.get(i)), i);
+            }
+            
+            return columns.containsKey(TITLE) ? new CsvLayout(columns) : new CsvLayout(LEGACY_LAYOUT);
+        }
+        
+        // "Release Date", "releaseDate" and "release_date" all name the same column
+        public static String columnName(String raw) {
+            String name = raw.trim()
+                .replaceAll("([a-z0-9])([A-Z])", "$1_$2")
+                .toLowerCase(Locale.ROOT)
+                .replace(' ', '_');
+            if (name.equals("releasedate")) name = RELEASE_DATE;
+            if (name.equals("genre")) name = GENRES;
+            if (name.equals("tag")) name = TAGS;
+            return name;
+        }
+        
+        // Trimmed value, null when the column is absent or blank
+        public String get(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+    
+    // Parse game data from a JSON array or newline-delimited JSON
     public List<Game> parseGameDataFromJson(String jsonData) {
         List<Game> games = new ArrayList<>();
         
-        // In a real implementation, use a JSON library like Jackson
-        // For simplicity, we'll return an empty list
+        try (JsonParser parser = JSON_FACTORY.createParser(jsonData)) {
+            JsonCatalogReader reader = new JsonCatalogReader(parser);
+            
+            Map<String, String> record;
+            while ((record = reader.next()) != null) {
+                try {
+                    games.add(parseJsonRecord(record));
+                } catch (Exception e) {
+                    // Skip this game if parsing fails
+                    System.err.println("Error parsing game data: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading game data: " + e.getMessage());
+        }
         
         return games;
     }
     
+    // Streaming parser for large dumps, to be read with JsonCatalogReader
+    public JsonParser createJsonParser(Reader reader) throws IOException {
+        return JSON_FACTORY.createParser(reader);
+    }
+    
     // Generate system requirements string
     public String generateSystemRequirements(Game game) {
         StringBuilder sb = new StringBuilder();
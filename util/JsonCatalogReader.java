@@ -0,0 +1,86 @@
+package com.example.demo.util;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+// Streams game records out of a JSON array or newline-delimited JSON, one object at a time, without building a tree
+public class JsonCatalogReader {
+    
+    private final JsonParser parser;
+    private boolean started = false;
+    private boolean inArray = false;
+    private long recordNumber = 0;
+    
+    public JsonCatalogReader(JsonParser parser) {
+        this.parser = parser;
+    }
+    
+    // Next record as column -> value, or null at end of input. Array values are joined with ';' like CSV lists.
+    public Map<String, String> next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (!started) {
+            started = true;
+            if (token == JsonToken.START_ARRAY) {
+                inArray = true;
+                token = parser.nextToken();
+            }
+        }
+        
+        // Anything that isn't an object at record level (stray scalars, nested arrays) is skipped
+        while (token != null && token != JsonToken.START_OBJECT) {
+            if (inArray && token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            if (token.isStructStart()) {
+                parser.skipChildren();
+            }
+            token = parser.nextToken();
+        }
+        if (token == null) {
+            return null;
+        }
+        
+        recordNumber++;
+        return readRecord();
+    }
+    
+    // 1-based position of the last returned record, for error reports
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+    
+    private Map<String, String> readRecord() throws IOException {
+        Map<String, String> record = new HashMap<>();
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String column = GameDataParser.CsvLayout.columnName(parser.currentName());
+            JsonToken value = parser.nextToken();
+            
+            if (value == JsonToken.START_ARRAY) {
+                StringBuilder joined = new StringBuilder();
+                JsonToken element;
+                while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (element.isStructStart()) {
+                        parser.skipChildren();
+                    } else if (element.isScalarValue() && element != JsonToken.VALUE_NULL) {
+                        if (joined.length() > 0) {
+                            joined.append(';');
+                        }
+                        joined.append(parser.getText());
+                    }
+                }
+                record.putIfAbsent(column, joined.toString());
+            } else if (value == JsonToken.START_OBJECT) {
+                parser.skipChildren();
+            } else if (value != JsonToken.VALUE_NULL) {
+                record.putIfAbsent(column, parser.getText());
+            }
+        }
+        
+        return record;
+    }
+}
\ No newline at end of file
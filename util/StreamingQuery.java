@@ -0,0 +1,27 @@
+package com.example.demo.util;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Full-table reads for index builds, handed to the callback row by row instead of buffered as one result
+@Component
+public class StreamingQuery {
+    
+    private static final int FETCH_SIZE = 10_000;
+    
+    private final JdbcTemplate streaming;
+    private final TransactionTemplate transactionTemplate;
+    
+    public StreamingQuery(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streaming.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = transactionTemplate;
+    }
+    
+    // A cursor-backed fetch needs a transaction on PostgreSQL, otherwise the driver buffers the whole result
+    public void query(String sql, RowCallbackHandler handler, Object... args) {
+        transactionTemplate.executeWithoutResult(status -> streaming.query(sql, handler, args));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.example.demo.util;
+
+import java.util.Arrays;
+
+// Hierarchical timing wheel over one-second ticks holding (id, deadline) pairs as primitive longs.
+// Six levels of 64 slots reach about 2000 years ahead; adding is O(1) and each entry cascades at most once per level.
+// Not thread-safe, callers serialize access.
+public final class TimingWheel {
+    
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 6;
+    
+    private final Bucket[][] wheels = new Bucket[LEVELS][SLOTS];
+    
+    // Already due when added, handed out on the next advance
+    private final Bucket overdue = new Bucket();
+    
+    // Every deadline up to and including this tick has been handed out
+    private long currentTick;
+    private int size;
+    
+    public TimingWheel(long currentTick) {
+        this.currentTick = currentTick;
+        for (Bucket[] wheel : wheels) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheel[slot] = new Bucket();
+            }
+        }
+    }
+    
+    public long getCurrentTick() {
+        return currentTick;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public void add(long id, long deadline) {
+        if (deadline <= currentTick) {
+            overdue.add(id, deadline);
+        } else {
+            place(id, deadline);
+        }
+        size++;
+    }
+    
+    // Moves time forward to tick, adding every entry whose deadline was passed to due, tick by tick
+    public void advanceTo(long tick, Bucket due) {
+        if (!overdue.isEmpty()) {
+            size -= overdue.size;
+            overdue.drainTo(due);
+        }
+        
+        while (currentTick < tick) {
+            currentTick++;
+            
+            // Higher levels first: what they release may land in a lower slot that is also due now
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level, (int) (currentTick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+                }
+            }
+            
+            Bucket slot = wheels[0][(int) currentTick & (SLOTS - 1)];
+            if (!slot.isEmpty()) {
+                size -= slot.size;
+                slot.drainTo(due);
+            }
+        }
+    }
+    
+    // The level is the highest 6-bit digit in which deadline and now differ, the slot is deadline's digit there
+    private void place(long id, long deadline) {
+        long differing = deadline ^ currentTick;
+        int level = differing == 0 ? 0 : (63 - Long.numberOfLeadingZeros(differing)) / SLOT_BITS;
+        if (level >= LEVELS) {
+            throw new IllegalArgumentException("Deadline too far in the future");
+        }
+        wheels[level][(int) (deadline >>> (SLOT_BITS * level)) & (SLOTS - 1)].add(id, deadline);
+    }
+    
+    private void cascade(int level, int slotIndex) {
+        Bucket slot = wheels[level][slotIndex];
+        if (slot.isEmpty()) {
+            return;
+        }
+        
+        long[] ids = slot.ids;
+        long[] deadlines = slot.deadlines;
+        int count = slot.size;
+        slot.reset();
+        for (int i = 0; i < count; i++) {
+            place(ids[i], deadlines[i]);
+        }
+    }
+    
+    // Growable pair of long arrays
+    public static final class Bucket {
+        
+        private static final int INITIAL_CAPACITY = 8;
+        
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private long[] deadlines = new long[INITIAL_CAPACITY];
+        private int size;
+        
+        public void add(long id, long deadline) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                deadlines = Arrays.copyOf(deadlines, size * 2);
+            }
+            ids[size] = id;
+            deadlines[size] = deadline;
+            size++;
+        }
+        
+        public int size() {
+            return size;
+        }
+        
+        public boolean isEmpty() {
+            return size == 0;
+        }
+        
+        public long getId(int index) {
+            return ids[index];
+        }
+        
+        public long getDeadline(int index) {
+            return deadlines[index];
+        }
+        
+        public void clear() {
+            size = 0;
+        }
+        
+        void drainTo(Bucket target) {
+            for (int i = 0; i < size; i++) {
+                target.add(ids[i], deadlines[i]);
+            }
+            reset();
+        }
+        
+        // Gives a large bucket's memory back once it has been emptied
+        void reset() {
+            if (ids.length > INITIAL_CAPACITY) {
+                ids = new long[INITIAL_CAPACITY];
+                deadlines = new long[INITIAL_CAPACITY];
+            }
+            size = 0;
+        }
+    }
+}
\ No newline at end of file
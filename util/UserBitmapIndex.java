@@ -0,0 +1,146 @@
+package com.example.demo.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.roaringbitmap.RoaringBitmap;
+
+// User ids per game as compressed bitmaps, read from a (game_id, user_id) query and kept current from change events.
+// A rebuild runs alongside live changes: changes arriving while it reads are replayed onto the new bitmaps before they go live.
+public class UserBitmapIndex<E> {
+    
+    private final StreamingQuery streamingQuery;
+    private final String rowsSql;
+    private final Function<E, Long> gameIdOf;
+    private final Function<E, Long> userIdOf;
+    private final Predicate<E> isRemoval;
+    
+    // Each bitmap is guarded by its own monitor: popular games are too big to copy on every change
+    private volatile Map<Long, RoaringBitmap> users = null;
+    
+    // Orders changes against the swap at the end of a rebuild
+    private final Object changeLock = new Object();
+    
+    // Changes committed while a rebuild is reading
+    private List<E> pending = null;
+    
+    public UserBitmapIndex(StreamingQuery streamingQuery, String rowsSql,
+                           Function<E, Long> gameIdOf, Function<E, Long> userIdOf, Predicate<E> isRemoval) {
+        this.streamingQuery = streamingQuery;
+        this.rowsSql = rowsSql;
+        this.gameIdOf = gameIdOf;
+        this.userIdOf = userIdOf;
+        this.isRemoval = isRemoval;
+    }
+    
+    // On failure the previous bitmaps stay live and the exception is rethrown
+    public synchronized void rebuild() {
+        synchronized (changeLock) {
+            pending = new ArrayList<>();
+        }
+        
+        Map<Long, RoaringBitmap> rebuilt;
+        try {
+            rebuilt = readRows();
+        } catch (RuntimeException e) {
+            synchronized (changeLock) {
+                pending = null;
+            }
+            throw e;
+        }
+        
+        synchronized (changeLock) {
+            for (E event : pending) {
+                apply(rebuilt, event);
+            }
+            pending = null;
+            users = rebuilt;
+        }
+    }
+    
+    public boolean isReady() {
+        return users != null;
+    }
+    
+    // The users in candidates listed for the game, as a new bitmap; null until the index has been built
+    public RoaringBitmap usersAmong(Long gameId, RoaringBitmap candidates) {
+        Map<Long, RoaringBitmap> current = users;
+        if (current == null) {
+            return null;
+        }
+        
+        RoaringBitmap gameUsers = current.get(gameId);
+        if (gameUsers == null || candidates.isEmpty()) {
+            return new RoaringBitmap();
+        }
+        synchronized (gameUsers) {
+            return RoaringBitmap.and(candidates, gameUsers);
+        }
+    }
+    
+    // A copy the caller can iterate at leisure; null until the index has been built
+    public RoaringBitmap usersOf(Long gameId) {
+        Map<Long, RoaringBitmap> current = users;
+        if (current == null) {
+            return null;
+        }
+        
+        RoaringBitmap gameUsers = current.get(gameId);
+        if (gameUsers == null) {
+            return new RoaringBitmap();
+        }
+        synchronized (gameUsers) {
+            return gameUsers.clone();
+        }
+    }
+    
+    public int countUsers(Long gameId) {
+        Map<Long, RoaringBitmap> current = users;
+        RoaringBitmap gameUsers = current != null ? current.get(gameId) : null;
+        if (gameUsers == null) {
+            return 0;
+        }
+        synchronized (gameUsers) {
+            return gameUsers.getCardinality();
+        }
+    }
+    
+    public void onChanged(E event) {
+        synchronized (changeLock) {
+            Map<Long, RoaringBitmap> current = users;
+            if (current != null) {
+                apply(current, event);
+            }
+            if (pending != null) {
+                pending.add(event);
+            }
+        }
+    }
+    
+    // Idempotent, so replaying a change the rebuild already read is harmless
+    private void apply(Map<Long, RoaringBitmap> index, E event) {
+        int userId = Math.toIntExact(userIdOf.apply(event));
+        RoaringBitmap gameUsers = index.computeIfAbsent(gameIdOf.apply(event), id -> new RoaringBitmap());
+        synchronized (gameUsers) {
+            if (isRemoval.test(event)) {
+                gameUsers.remove(userId);
+            } else {
+                gameUsers.add(userId);
+            }
+        }
+    }
+    
+    private Map<Long, RoaringBitmap> readRows() {
+        Map<Long, RoaringBitmap> rebuilt = new ConcurrentHashMap<>();
+        streamingQuery.query(rowsSql, rs -> {
+            rebuilt.computeIfAbsent(rs.getLong(1), id -> new RoaringBitmap()).add(Math.toIntExact(rs.getLong(2)));
+        });
+        
+        rebuilt.values().forEach(RoaringBitmap::runOptimize);
+        return rebuilt;
+    }
+}
\ No newline at end of file